@@ -0,0 +1,295 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Admission control of the reviews. Each review is admitted with its
+ * estimated cost, from the size of the repository reported in the push:
+ * the disk it needs on the PDD host (the clone and the checkout, twice
+ * the size) and the heap it needs here (the scan results, a fiftieth of
+ * the size and at least 1 MB). A review is refused when it would exceed
+ * the budget of reviews in flight (waiting or running), of disk or of
+ * heap; a review bigger than a whole budget is only admitted when nothing
+ * else is in flight.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+@Component
+public class Admission {
+
+    /**
+     * Size assumed when the push doesn't report it, 100 MB.
+     */
+    private static final long UNKNOWN = 100L << 20;
+
+    /**
+     * Smallest heap needed by a review, 1 MB.
+     */
+    private static final long MIN_HEAP = 1L << 20;
+
+    /**
+     * Weight of the last review in the average duration.
+     */
+    private static final double ALPHA = 0.3;
+
+    /**
+     * Maximum reviews in flight, 0 for no limit.
+     */
+    private final int reviews;
+
+    /**
+     * Disk budget in bytes, 0 for no limit.
+     */
+    private final long disk;
+
+    /**
+     * Heap budget in bytes, 0 for no limit.
+     */
+    private final long heap;
+
+    /**
+     * Reviews in flight.
+     */
+    private int inflight;
+
+    /**
+     * Disk used by the reviews in flight.
+     */
+    private long disked;
+
+    /**
+     * Heap used by the reviews in flight.
+     */
+    private long heaped;
+
+    /**
+     * Average time a review is in flight, in millis.
+     */
+    private double average;
+
+    /**
+     * Ctor. The budgets are read from {@link TodosEnv#MAX_REVIEWS}
+     * (no limit by default), {@link TodosEnv#DISK_BUDGET} (no limit by
+     * default) and {@link TodosEnv#HEAP_BUDGET} (no limit by default).
+     */
+    public Admission() {
+        this(
+            Integer.parseInt(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.MAX_REVIEWS), "0"
+                )
+            ),
+            Long.parseLong(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.DISK_BUDGET), "0"
+                )
+            ) << 20,
+            Long.parseLong(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.HEAP_BUDGET), "0"
+                )
+            ) << 20
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param reviews Maximum reviews in flight, 0 for no limit.
+     * @param disk Disk budget in bytes, 0 for no limit.
+     * @param heap Heap budget in bytes, 0 for no limit.
+     */
+    public Admission(final int reviews, final long disk, final long heap) {
+        this.reviews = reviews;
+        this.disk = disk;
+        this.heap = heap;
+        this.average = 1000;
+    }
+
+    /**
+     * Try to admit the review of a push.
+     * @param push Push.
+     * @return Ticket, to be closed when the review is finished; check
+     *  {@link Ticket#refusal()} first.
+     */
+    public Ticket admit(final Push push) {
+        long size = push.size();
+        if (size < 0) {
+            size = Admission.UNKNOWN;
+        }
+        final Ticket ticket = new Ticket(
+            2 * size, Math.max(Admission.MIN_HEAP, size / 50)
+        );
+        this.reserve(ticket);
+        return ticket;
+    }
+
+    /**
+     * Seconds after which a refused review should be retried: the average
+     * time a review is in flight.
+     * @return Seconds, at least 1.
+     */
+    public synchronized long retryAfter() {
+        return Math.max(1L, (long) Math.ceil(this.average / 1000));
+    }
+
+    /**
+     * Reserve what the ticket needs, if it fits in the budgets.
+     * @param ticket Ticket.
+     */
+    private synchronized void reserve(final Ticket ticket) {
+        ticket.refusal = this.check(ticket);
+        if (ticket.refusal == null) {
+            this.inflight = this.inflight + 1;
+            this.disked = this.disked + ticket.disk;
+            this.heaped = this.heaped + ticket.heap;
+        }
+    }
+
+    /**
+     * Which budget the ticket would exceed. Must be called while holding
+     * the lock of this Admission.
+     * @param ticket Ticket.
+     * @return Budget or null if it fits.
+     */
+    private Budget check(final Ticket ticket) {
+        Budget exceeded = null;
+        if (this.inflight > 0) {
+            if (this.reviews > 0 && this.inflight >= this.reviews) {
+                exceeded = Budget.REVIEWS;
+            } else if (this.disk > 0
+                && this.disked + ticket.disk > this.disk) {
+                exceeded = Budget.DISK;
+            } else if (this.heap > 0
+                && this.heaped + ticket.heap > this.heap) {
+                exceeded = Budget.HEAP;
+            }
+        }
+        return exceeded;
+    }
+
+    /**
+     * Give back what an admitted review used.
+     * @param ticket Ticket.
+     */
+    private synchronized void release(final Ticket ticket) {
+        this.inflight = this.inflight - 1;
+        this.disked = this.disked - ticket.disk;
+        this.heaped = this.heaped - ticket.heap;
+        this.average = Admission.ALPHA
+            * (System.currentTimeMillis() - ticket.since)
+            + (1 - Admission.ALPHA) * this.average;
+    }
+
+    /**
+     * Budgets.
+     */
+    public enum Budget {
+
+        /**
+         * Number of reviews in flight.
+         */
+        REVIEWS,
+
+        /**
+         * Disk on the PDD host.
+         */
+        DISK,
+
+        /**
+         * Heap of this service.
+         */
+        HEAP
+    }
+
+    /**
+     * Admission of a review.
+     */
+    public final class Ticket implements AutoCloseable {
+
+        /**
+         * Disk needed, in bytes.
+         */
+        private final long disk;
+
+        /**
+         * Heap needed, in bytes.
+         */
+        private final long heap;
+
+        /**
+         * When it was admitted.
+         */
+        private final long since;
+
+        /**
+         * Budget which refused it, null if admitted.
+         */
+        private Budget refusal;
+
+        /**
+         * Closed already?
+         */
+        private boolean closed;
+
+        /**
+         * Ctor.
+         * @param disk Disk needed, in bytes.
+         * @param heap Heap needed, in bytes.
+         */
+        Ticket(final long disk, final long heap) {
+            this.disk = disk;
+            this.heap = heap;
+            this.since = System.currentTimeMillis();
+        }
+
+        /**
+         * Budget which refused the review.
+         * @return Budget or null if the review was admitted.
+         */
+        public Budget refusal() {
+            return this.refusal;
+        }
+
+        @Override
+        public void close() {
+            if (this.closing()) {
+                Admission.this.release(this);
+            }
+        }
+
+        /**
+         * Close this ticket, only once.
+         * @return True if it was admitted and not closed yet.
+         */
+        private synchronized boolean closing() {
+            final boolean release = this.refusal == null && !this.closed;
+            this.closed = true;
+            return release;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The to-dos found in git blobs, by blob SHA. The content of a blob never
+ * changes, so a blob which was scanned once (in any commit, branch or
+ * repository) doesn't have to be read again. Only the most recently used
+ * blobs are kept; they are saved in a compact binary file, loaded at
+ * startup.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+@Component
+public class BlobCache {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        BlobCache.class
+    );
+
+    /**
+     * First bytes of the file, with the version of the format.
+     */
+    private static final int MAGIC = 0x53544231;
+
+    /**
+     * Blobs with more to-dos than this are not cached.
+     */
+    private static final int MAX_TODOS = 0xFFFF;
+
+    /**
+     * File where the cache is saved.
+     */
+    private final Path file;
+
+    /**
+     * Maximum number of blobs.
+     */
+    private final int max;
+
+    /**
+     * To-dos by blob SHA, from the least to the most recently used.
+     */
+    private final Map<String, List<Todo>> blobs;
+
+    /**
+     * Changed since it was loaded or saved?
+     */
+    private boolean dirty;
+
+    /**
+     * Ctor. The file is read from {@link TodosEnv#BLOB_CACHE} (defaults to
+     * self-todos-blobs.bin in the temporary directory) and the number of
+     * blobs from {@link TodosEnv#BLOB_CACHE_ENTRIES} (defaults to 100000).
+     */
+    public BlobCache() {
+        this(
+            Path.of(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.BLOB_CACHE),
+                    Path.of(
+                        System.getProperty("java.io.tmpdir"),
+                        "self-todos-blobs.bin"
+                    ).toString()
+                )
+            ),
+            Integer.parseInt(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.BLOB_CACHE_ENTRIES), "100000"
+                )
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param file File where the cache is saved.
+     * @param max Maximum number of blobs, 0 disables the cache.
+     */
+    public BlobCache(final Path file, final int max) {
+        this.file = file;
+        this.max = max;
+        this.blobs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, List<Todo>> eldest
+            ) {
+                return this.size() > max;
+            }
+        };
+    }
+
+    /**
+     * Is this cache used at all?
+     * @return True or false.
+     */
+    public boolean enabled() {
+        return this.max > 0;
+    }
+
+    /**
+     * Load the saved cache, if any. A file which cannot be read is
+     * ignored, the cache starts empty.
+     */
+    @PostConstruct
+    public void load() {
+        if(this.enabled() && Files.isRegularFile(this.file)) {
+            try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(this.file))
+            )) {
+                if(input.readInt() != BlobCache.MAGIC) {
+                    throw new IOException("Unknown format of " + this.file);
+                }
+                final int count = input.readInt();
+                synchronized (this.blobs) {
+                    for(int idx = 0; idx < count; idx = idx + 1) {
+                        final String sha = input.readUTF();
+                        this.blobs.put(sha, BlobCache.read(input));
+                    }
+                }
+            } catch (final IOException ex) {
+                LOG.warn("Could not load the blob cache, starting empty.", ex);
+                synchronized (this.blobs) {
+                    this.blobs.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the cache, if it changed. The file is replaced atomically.
+     * @throws IOException If it cannot be written.
+     */
+    @Scheduled(fixedDelay = 300_000)
+    @PreDestroy
+    public void save() throws IOException {
+        final Map<String, List<Todo>> copy;
+        synchronized (this.blobs) {
+            if(this.dirty) {
+                copy = new LinkedHashMap<>(this.blobs);
+                this.dirty = false;
+            } else {
+                copy = Map.of();
+            }
+        }
+        if(!copy.isEmpty()) {
+            final Path temp = this.file.resolveSibling(
+                this.file.getFileName() + ".tmp"
+            );
+            try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp))
+            )) {
+                output.writeInt(BlobCache.MAGIC);
+                output.writeInt(copy.size());
+                for(final Map.Entry<String, List<Todo>> blob
+                    : copy.entrySet()) {
+                    output.writeUTF(blob.getKey());
+                    BlobCache.write(blob.getValue(), output);
+                }
+            }
+            Files.move(
+                temp,
+                this.file,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        }
+    }
+
+    /**
+     * To-dos of a blob.
+     * @param sha SHA of the blob.
+     * @return To-dos or null if the blob is not cached.
+     */
+    List<Todo> get(final String sha) {
+        synchronized (this.blobs) {
+            return this.blobs.get(sha);
+        }
+    }
+
+    /**
+     * Remember the to-dos of a blob.
+     * @param sha SHA of the blob.
+     * @param todos To-dos found in it.
+     */
+    void put(final String sha, final List<Todo> todos) {
+        if(this.enabled() && todos.size() <= BlobCache.MAX_TODOS) {
+            synchronized (this.blobs) {
+                this.blobs.put(sha, List.copyOf(todos));
+                this.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Read the to-dos of one blob.
+     * @param input Input.
+     * @return To-dos.
+     * @throws IOException If they cannot be read.
+     */
+    private static List<Todo> read(final DataInputStream input)
+        throws IOException {
+        final int count = input.readUnsignedShort();
+        final List<Todo> todos = new ArrayList<>(count);
+        for(int idx = 0; idx < count; idx = idx + 1) {
+            todos.add(
+                new Todo(
+                    input.readInt(),
+                    input.readInt(),
+                    input.readInt(),
+                    input.readInt(),
+                    new String(
+                        input.readNBytes(input.readInt()),
+                        StandardCharsets.UTF_8
+                    )
+                )
+            );
+        }
+        return todos;
+    }
+
+    /**
+     * Write the to-dos of one blob.
+     * @param todos To-dos.
+     * @param output Output.
+     * @throws IOException If they cannot be written.
+     */
+    private static void write(
+        final List<Todo> todos,
+        final DataOutputStream output
+    ) throws IOException {
+        output.writeShort(todos.size());
+        for(final Todo todo : todos) {
+            output.writeInt(todo.ticket());
+            output.writeInt(todo.estimate());
+            output.writeInt(todo.start());
+            output.writeInt(todo.end());
+            final byte[] body = todo.body().getBytes(StandardCharsets.UTF_8);
+            output.writeInt(body.length);
+            output.write(body);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+
+import java.util.Collection;
+
+/**
+ * Workspace which only leaves the given files in the checked out tree, so
+ * the scan doesn't read the others. Paths which git would quote in its
+ * output are not removed, which only makes the scan read a bit more.
+ * The script exits as soon as a step fails (not in a repository, git
+ * error), so nothing is removed from an unexpected directory. Given the
+ * commit before the push, it also fails if that commit is not an ancestor
+ * of the checked out one: the history was rewritten, so the given files
+ * are not all that changed.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class ChangedPathsWorkspace implements Workspace {
+
+    /**
+     * Decorated workspace.
+     */
+    private final Workspace origin;
+
+    /**
+     * Paths to keep, relative to the root of the repository.
+     */
+    private final Collection<String> paths;
+
+    /**
+     * Commit which must be an ancestor of the checked out one, null if
+     * there is nothing to check.
+     */
+    private final String ancestor;
+
+    /**
+     * Ctor.
+     * @param origin Decorated workspace.
+     * @param paths Paths to keep, relative to the root of the repository.
+     */
+    public ChangedPathsWorkspace(
+        final Workspace origin,
+        final Collection<String> paths
+    ) {
+        this(origin, paths, null);
+    }
+
+    /**
+     * Ctor.
+     * @param origin Decorated workspace.
+     * @param paths Paths to keep, relative to the root of the repository.
+     * @param ancestor Commit which must be an ancestor of the checked out
+     *  one, null if there is nothing to check.
+     */
+    public ChangedPathsWorkspace(
+        final Workspace origin,
+        final Collection<String> paths,
+        final String ancestor
+    ) {
+        this.origin = origin;
+        this.paths = paths;
+        this.ancestor = ancestor;
+    }
+
+    @Override
+    public String open(final String id, final Project project) {
+        final StringBuilder script = new StringBuilder(
+            this.origin.open(id, project)
+        ).append("\nTOP=$(git rev-parse --show-toplevel) || exit 1\n")
+            .append("cd \"$TOP\" || exit 1\n");
+        if(this.ancestor != null) {
+            script.append("git merge-base --is-ancestor ")
+                .append(this.ancestor).append(" HEAD || exit 1\n");
+        }
+        script
+            .append("cat > ../changed-paths <<'SELF_TODOS_PATHS' || exit 1\n");
+        for(final String path : this.paths) {
+            script.append(path).append('\n');
+        }
+        return script.append("SELF_TODOS_PATHS\n")
+            .append("git ls-files > ../tracked-paths || exit 1\n")
+            .append("grep -vxF -f ../changed-paths ../tracked-paths")
+            .append(" > ../stale-paths || [ $? -eq 1 ] || exit 1\n")
+            .append("tr '\\n' '\\0' < ../stale-paths")
+            .append(" | xargs -0 -r rm -f -- || exit 1")
+            .toString();
+    }
+
+    @Override
+    public String close(final String id, final Project project) {
+        return this.origin.close(id, project);
+    }
+}
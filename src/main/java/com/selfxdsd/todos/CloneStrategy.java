@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How the repository is cloned on the PDD host. It is built from a comma
+ * separated list of options:
+ * <ul>
+ *     <li>full: the whole history (default);</li>
+ *     <li>shallow: only the last commit (--depth 1);</li>
+ *     <li>blobless: no file contents except the checked out ones
+ *     (--filter=blob:none);</li>
+ *     <li>single-branch: only the default branch;</li>
+ *     <li>skip-lfs: don't download Git LFS objects.</li>
+ * </ul>
+ * The to-dos are only read from the working tree, so shallow,skip-lfs is
+ * usually enough.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class CloneStrategy {
+
+    /**
+     * Options given to git clone.
+     */
+    private final List<String> options;
+
+    /**
+     * Environment variables set for git clone.
+     */
+    private final List<String> environment;
+
+    /**
+     * Ctor.
+     * @param spec Comma separated options.
+     * @throws IllegalArgumentException If an option is unknown.
+     */
+    public CloneStrategy(final String spec) {
+        this.options = new ArrayList<>();
+        this.environment = new ArrayList<>();
+        for(final String option : spec.split(",")) {
+            switch (option.trim().toLowerCase()) {
+                case "":
+                case "full":
+                    break;
+                case "shallow":
+                    this.options.add("--depth 1");
+                    break;
+                case "blobless":
+                    this.options.add("--filter=blob:none");
+                    break;
+                case "single-branch":
+                    this.options.add("--single-branch");
+                    break;
+                case "skip-lfs":
+                    this.environment.add("GIT_LFS_SKIP_SMUDGE=1");
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                        "Unknown clone option: " + option
+                    );
+            }
+        }
+    }
+
+    /**
+     * Ctor.
+     * @param options Options given to git clone.
+     * @param environment Environment variables set for git clone.
+     */
+    private CloneStrategy(
+        final List<String> options,
+        final List<String> environment
+    ) {
+        this.options = options;
+        this.environment = environment;
+    }
+
+    /**
+     * The same strategy, without checking out the working tree.
+     * @return CloneStrategy.
+     */
+    public CloneStrategy withoutCheckout() {
+        final List<String> opts = new ArrayList<>(this.options);
+        opts.add("--no-checkout");
+        return new CloneStrategy(opts, this.environment);
+    }
+
+    /**
+     * The git clone command.
+     * @param remote Remote to clone.
+     * @param directory Directory to clone into.
+     * @return Shell command.
+     */
+    public String command(final String remote, final String directory) {
+        final List<String> parts = new ArrayList<>(this.environment);
+        parts.add("git clone");
+        parts.addAll(this.options);
+        parts.add(remote);
+        parts.add(directory);
+        return String.join(" ", parts);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+/**
+ * Workspace which makes a fresh clone of the repository for every review
+ * and removes it afterwards. How much of the repository is cloned depends
+ * on the {@link CloneStrategy}; with {@link PathRules}, only the included
+ * paths are checked out.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class ClonedWorkspace implements Workspace {
+
+    /**
+     * How the repository is cloned.
+     */
+    private final CloneStrategy strategy;
+
+    /**
+     * Which paths are checked out.
+     */
+    private final PathRules rules;
+
+    /**
+     * Ctor.
+     */
+    public ClonedWorkspace() {
+        this(new CloneStrategy("full"));
+    }
+
+    /**
+     * Ctor.
+     * @param strategy How the repository is cloned.
+     */
+    public ClonedWorkspace(final CloneStrategy strategy) {
+        this(strategy, new PathRules("", ""));
+    }
+
+    /**
+     * Ctor.
+     * @param strategy How the repository is cloned.
+     * @param rules Which paths are checked out.
+     */
+    public ClonedWorkspace(
+        final CloneStrategy strategy,
+        final PathRules rules
+    ) {
+        this.strategy = strategy;
+        this.rules = rules;
+    }
+
+    @Override
+    public String open(final String id, final Project project) {
+        CloneStrategy clone = this.strategy;
+        String checkout = "";
+        if(!this.rules.all()) {
+            clone = clone.withoutCheckout();
+            checkout = "\n" + this.rules.checkout();
+        }
+        return String.format(
+            new BufferedReader(
+                new InputStreamReader(
+                    this.getClass().getClassLoader()
+                        .getResourceAsStream("cloneRepo.sh"),
+                    StandardCharsets.UTF_8
+                )
+            ).lines().collect(Collectors.joining("\n")),
+            id,
+            id,
+            clone.command(
+                "git@" + project.provider() + "-"
+                + project.projectManager().username()
+                + ":" + project.repoFullName(),
+                "repo"
+            )
+        ) + checkout;
+    }
+
+    @Override
+    public String close(final String id, final Project project) {
+        return "rm -rf self-todos-tmp-" + id;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Reports a parsing problem in a comment on the commit, so the author
+ * can fix the format of their to-dos.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle LineLength (100 lines)
+ */
+final class CommentReport implements ParseReport {
+
+    /**
+     * Commit which triggered everything.
+     */
+    private final Commit commit;
+
+    /**
+     * Ctor.
+     * @param commit Commit which triggered everything.
+     */
+    CommentReport(final Commit commit) {
+        this.commit = commit;
+    }
+
+    @Override
+    public void failed(final String input, final Exception error) {
+        final StringWriter stacktrace = new StringWriter();
+        error.printStackTrace(new PrintWriter(stacktrace));
+        String author = this.commit.author();
+        if(author != null && !author.isEmpty()) {
+            author = "@" + author + " ";
+        } else {
+            author = "";
+        }
+        String parsed = "";
+        if(input != null) {
+            parsed = "Parse result:\n\n"
+                + "```\n"
+                + input
+                + "```\n\n";
+        }
+        this.commit.comments().post(
+            author
+                + "There's been a problem while "
+                + "parsing the to-dos in the code. Most likely, the format "
+                + "is not correct. Read more about the to-do format [here]"
+                + "(https://docs.self-xdsd.com/microtasking.html#anatomy-of-a-todo). "
+                + "If you can't understand the error, just open an Issue "
+                + "[here](https://github.com/self-xdsd/self-todos).\n\n"
+                + parsed
+                + "Error:\n\n"
+                + "```java\n"
+                + error.getMessage() + "\n\n"
+                + stacktrace.toString() + "\n"
+                + "```"
+        );
+    }
+}
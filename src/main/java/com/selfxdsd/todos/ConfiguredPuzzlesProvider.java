@@ -0,0 +1,393 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.jcabi.ssh.Shell;
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Provides the Puzzles of a Project as configured in its
+ * {@link ProjectSettings}:
+ * <ul>
+ *     <li>workspace: "clone" or "mirror", see {@link Workspace};</li>
+ *     <li>clone: the {@link CloneStrategy} of the "clone" workspace,
+ *     "full" if the setting is not valid;</li>
+ *     <li>stream: "true" to read the puzzles in a single SSH round-trip,
+ *     see {@link SshStreamPuzzles};</li>
+ *     <li>backend: "ssh" (default) to read the puzzles on the PDD host or
+ *     "local" to read them on this machine, see {@link LocalPuzzles};</li>
+ *     <li>scanner: for the "local" backend, "tree" (default) to scan in
+ *     this JVM with {@link TreePuzzles} or "cli" to run todo-finder-cli
+ *     as a local process; for the "ssh" backend, "cli" (default) to run
+ *     todo-finder-cli or "daemon" to use the {@link ScanDaemon};</li>
+ *     <li>incremental: "true" to only rescan the files changed by the
+ *     push, see {@link IncrementalPuzzles};</li>
+ *     <li>prefilter: "true" to only give todo-finder-cli (or the daemon)
+ *     the files containing the to-do marker, see
+ *     {@link PrefilteredScan};</li>
+ *     <li>include and exclude: comma separated globs of the paths which
+ *     are checked out and scanned, see {@link PathRules}.</li>
+ * </ul>
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ParameterNumber (300 lines)
+ */
+@Component
+final class ConfiguredPuzzlesProvider
+    implements PuzzlesComponent.ShellProjectPuzzlesProvider {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ConfiguredPuzzlesProvider.class
+    );
+
+    /**
+     * Per-Project settings.
+     */
+    private final ProjectSettings settings;
+
+    /**
+     * Puzzles found by the last reviews.
+     */
+    private final PuzzleSnapshots snapshots;
+
+    /**
+     * Repository of the reviewed push, null if the provider is not
+     * bound to a review.
+     */
+    private final RepoContext context;
+
+    /**
+     * To-dos of the already scanned blobs.
+     */
+    private final BlobCache cache;
+
+    /**
+     * Ctor.
+     * @param settings Per-Project settings.
+     * @param snapshots Puzzles found by the last reviews.
+     * @param cache To-dos of the already scanned blobs.
+     */
+    @Autowired
+    ConfiguredPuzzlesProvider(
+        final ProjectSettings settings,
+        final PuzzleSnapshots snapshots,
+        final BlobCache cache
+    ) {
+        this(settings, snapshots, cache, null);
+    }
+
+    /**
+     * Ctor.
+     * @param settings Per-Project settings.
+     * @param snapshots Puzzles found by the last reviews.
+     * @param cache To-dos of the already scanned blobs.
+     * @param context Repository of the reviewed push, null if unknown.
+     */
+    ConfiguredPuzzlesProvider(
+        final ProjectSettings settings,
+        final PuzzleSnapshots snapshots,
+        final BlobCache cache,
+        final RepoContext context
+    ) {
+        this.settings = settings;
+        this.snapshots = snapshots;
+        this.cache = cache;
+        this.context = context;
+    }
+
+    @Override
+    public PuzzlesComponent.ShellProjectPuzzlesProvider with(
+        final RepoContext review
+    ) {
+        return new ConfiguredPuzzlesProvider(
+            this.settings, this.snapshots, this.cache, review
+        );
+    }
+
+    @Override
+    public BiFunction<Project, Commit, Puzzles<Project>> apply(
+        final Shell shell
+    ) {
+        return (project, commit) -> {
+            final Puzzles<Project> puzzles;
+            final RepoContext repo = this.context(project, commit);
+            final Workspace workspace = this.workspace(project, commit);
+            if("true".equalsIgnoreCase(
+                this.settings.value(project, "incremental", "false")
+            )) {
+                puzzles = new IncrementalPuzzles(
+                    this.puzzles(shell, repo, workspace),
+                    this.puzzles(
+                        shell,
+                        repo,
+                        new ChangedPathsWorkspace(
+                            workspace,
+                            repo.push().paths(),
+                            repo.push().ancestor()
+                        )
+                    ),
+                    repo,
+                    this.snapshots
+                );
+            } else {
+                puzzles = this.puzzles(shell, repo, workspace);
+            }
+            return puzzles;
+        };
+    }
+
+    /**
+     * Repository of the review: the one this provider is bound to, or a
+     * new one, without the push, for the given Project.
+     * @param project Project.
+     * @param commit Commit which triggered everything.
+     * @return RepoContext.
+     */
+    private RepoContext context(final Project project, final Commit commit) {
+        final RepoContext repo;
+        if(this.context != null && this.context.project() == project) {
+            repo = this.context;
+        } else {
+            repo = new RepoContext(project, commit);
+        }
+        return repo;
+    }
+
+    /**
+     * Puzzles read from the given workspace, configured through the
+     * "backend", "stream" and "scanner" settings.
+     * @param shell Shell to the PDD host.
+     * @param repo Repository of the review.
+     * @param workspace Where the repository is checked out.
+     * @return Puzzles.
+     */
+    private Puzzles<Project> puzzles(
+        final Shell shell,
+        final RepoContext repo,
+        final Workspace workspace
+    ) {
+        final Project project = repo.project();
+        final Puzzles<Project> puzzles;
+        if("local".equalsIgnoreCase(
+            this.settings.value(project, "backend", "ssh")
+        )) {
+            puzzles = new LocalPuzzles(
+                Path.of(
+                    Objects.requireNonNullElse(
+                        System.getenv(TodosEnv.LOCAL_WORKSPACE),
+                        System.getProperty("java.io.tmpdir")
+                    )
+                ),
+                workspace,
+                this.scanner(repo)
+            );
+        } else if("true".equalsIgnoreCase(
+            this.settings.value(project, "stream", "false")
+        )) {
+            puzzles = new SshStreamPuzzles(
+                shell,
+                workspace,
+                this.scan(project),
+                new JsonStreamPuzzles(repo)
+            );
+        } else {
+            puzzles = new SshPuzzles(
+                shell,
+                workspace,
+                this.scan(project),
+                new SniffingPuzzles(repo)
+            );
+        }
+        return puzzles;
+    }
+
+    /**
+     * How the to-dos are found on the PDD host, configured through the
+     * "scanner" setting.
+     * @param project Project.
+     * @return Scan.
+     */
+    private Scan scan(final Project project) {
+        final Scan scan;
+        if("daemon".equalsIgnoreCase(
+            this.settings.value(project, "scanner", "cli")
+        )) {
+            scan = new DaemonScan(
+                ConfiguredPuzzlesProvider.intEnv(TodosEnv.DAEMON_PORT, 7007),
+                ConfiguredPuzzlesProvider.intEnv(TodosEnv.DAEMON_TIMEOUT, 300),
+                new TodoFinderScan()
+            );
+        } else {
+            scan = new TodoFinderScan();
+        }
+        return this.prefiltered(project, scan);
+    }
+
+    /**
+     * The scan, prefiltered with `git grep` if the "prefilter" setting
+     * is true.
+     * @param project Project.
+     * @param scan Scan.
+     * @return Scan.
+     */
+    private Scan prefiltered(final Project project, final Scan scan) {
+        final Scan prefiltered;
+        if("true".equalsIgnoreCase(
+            this.settings.value(project, "prefilter", "false")
+        )) {
+            prefiltered = new PrefilteredScan(scan);
+        } else {
+            prefiltered = scan;
+        }
+        return prefiltered;
+    }
+
+    /**
+     * Scanner of a locally checked out tree, configured through the
+     * "scanner" setting.
+     * @param repo Repository of the review.
+     * @return Puzzles.
+     */
+    private Puzzles<Path> scanner(final RepoContext repo) {
+        final Project project = repo.project();
+        final Puzzles<Path> scanner;
+        if("cli".equalsIgnoreCase(
+            this.settings.value(project, "scanner", "tree")
+        )) {
+            scanner = new TodoFinderPuzzles(
+                this.prefiltered(
+                    project,
+                    new TodoFinderScan(
+                        Objects.requireNonNullElse(
+                            System.getenv(TodosEnv.TODO_FINDER_JAR),
+                            "/usr/local/bin/todo-finder-cli.jar"
+                        )
+                    )
+                ),
+                new SniffingPuzzles(repo)
+            );
+        } else {
+            scanner = new TreePuzzles(repo, this.cache, this.rules(project));
+        }
+        return scanner;
+    }
+
+    /**
+     * Paths checked out and scanned, configured through the "include"
+     * and "exclude" settings.
+     * @param project Project.
+     * @return PathRules.
+     */
+    private PathRules rules(final Project project) {
+        return new PathRules(
+            this.settings.value(project, "include", ""),
+            this.settings.value(project, "exclude", "")
+        );
+    }
+
+    /**
+     * Workspace of the Project, configured through the "workspace" setting
+     * or {@link TodosEnv#WORKSPACE}.
+     * @param project Project.
+     * @param commit Commit which triggered everything.
+     * @return Workspace.
+     */
+    private Workspace workspace(final Project project, final Commit commit) {
+        final Workspace workspace;
+        final String mode = this.settings.value(
+            project, "workspace", System.getenv(TodosEnv.WORKSPACE)
+        );
+        if("mirror".equalsIgnoreCase(mode)) {
+            workspace = new MirrorWorkspace(
+                commit,
+                ConfiguredPuzzlesProvider.intEnv(TodosEnv.MIRROR_TTL, 7),
+                this.rules(project)
+            );
+        } else {
+            workspace = new ClonedWorkspace(
+                this.strategy(project), this.rules(project)
+            );
+        }
+        return workspace;
+    }
+
+    /**
+     * Integer environment variable. An invalid value is logged and the
+     * default is used, so the review still happens.
+     * @param name Name.
+     * @param def Default value.
+     * @return Value.
+     */
+    private static int intEnv(final String name, final int def) {
+        final String value = System.getenv(name);
+        int result = def;
+        if(value != null && !value.isEmpty()) {
+            try {
+                result = Integer.parseInt(value.trim());
+            } catch (final IllegalArgumentException ex) {
+                LOG.warn(
+                    "Invalid " + name + " '" + value + "', using " + def
+                    + " instead.",
+                    ex
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * How the Project is cloned, configured through the "clone" setting.
+     * An invalid setting is logged and the whole repository is cloned,
+     * so the review still happens.
+     * @param project Project.
+     * @return CloneStrategy.
+     */
+    private CloneStrategy strategy(final Project project) {
+        final String spec = this.settings.value(project, "clone", "full");
+        CloneStrategy strategy;
+        try {
+            strategy = new CloneStrategy(spec);
+        } catch (final IllegalArgumentException ex) {
+            LOG.warn(
+                "Invalid clone setting '" + spec + "' of "
+                + project.repoFullName() + ", cloning everything.",
+                ex
+            );
+            strategy = new CloneStrategy("full");
+        }
+        return strategy;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+/**
+ * Scan delegated to the {@link ScanDaemon} listening on the loopback
+ * interface of the PDD host, so no JVM is started for the review. If the
+ * daemon is not running or fails, the fallback scan (`todo-finder-cli`)
+ * runs instead. The same happens if the daemon doesn't answer within a
+ * number of seconds, so a hung daemon cannot hang the review.<br><br>
+ * The daemon doesn't give the puzzles the ids `todo-finder-cli` gives.
+ * When the ids change, the Issues are matched to the puzzles by ticket and
+ * body before anything is closed (see {@link Relink}), so switching a
+ * Project to the daemon, or falling back, doesn't close and reopen its
+ * Issues.<br><br>
+ * The daemon is reached through bash's /dev/tcp; with any other shell
+ * the fallback is always used.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class DaemonScan implements Scan {
+
+    /**
+     * Port of the daemon.
+     */
+    private final int port;
+
+    /**
+     * Seconds to wait for the daemon's answer.
+     */
+    private final int timeout;
+
+    /**
+     * Scan used when the daemon cannot scan.
+     */
+    private final Scan fallback;
+
+    /**
+     * Ctor. The daemon is given 5 minutes to answer.
+     * @param port Port of the daemon.
+     * @param fallback Scan used when the daemon cannot scan.
+     */
+    public DaemonScan(final int port, final Scan fallback) {
+        this(port, 300, fallback);
+    }
+
+    /**
+     * Ctor.
+     * @param port Port of the daemon.
+     * @param timeout Seconds to wait for the daemon's answer.
+     * @param fallback Scan used when the daemon cannot scan.
+     */
+    public DaemonScan(final int port, final int timeout, final Scan fallback) {
+        this.port = port;
+        this.timeout = timeout;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public String command() {
+        return String.format(
+            new BufferedReader(
+                new InputStreamReader(
+                    this.getClass().getClassLoader()
+                        .getResourceAsStream("scanDaemon.sh"),
+                    StandardCharsets.UTF_8
+                )
+            ).lines().collect(Collectors.joining("\n")),
+            this.port,
+            this.fallback.command(),
+            this.timeout
+        );
+    }
+}
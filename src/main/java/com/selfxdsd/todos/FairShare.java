@@ -0,0 +1,334 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Weighted fair queuing of the reviews, by Project Manager and by
+ * Project (self-clocked fair queuing). Each review gets a finish tag:
+ * its estimated cost, divided by the Project's weight (the "weight"
+ * setting, 1 by default), added to the latest of the virtual time and
+ * the last tags of its Project and of its Project Manager. The reviews with
+ * the smallest tags run first, so a small repository doesn't wait behind
+ * the scans of a monorepo, and neither a Project nor a Project Manager
+ * can take more than its share of the threads.<br><br>
+ *
+ * The cost of a review is the moving average of the last reviews of the
+ * Project; an unknown Project costs the average review.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class FairShare {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        FairShare.class
+    );
+
+    /**
+     * Weight of the last review in the moving averages.
+     */
+    private static final double ALPHA = 0.3;
+
+    /**
+     * How many Projects are remembered.
+     */
+    private static final int PROJECTS = 10_000;
+
+    /**
+     * Per-Project settings.
+     */
+    private final ProjectSettings settings;
+
+    /**
+     * Estimated cost of a review, in seconds, by Project.
+     */
+    private final Map<String, Double> costs;
+
+    /**
+     * Last finish tag, by Project and by Project Manager.
+     */
+    private final Map<String, Double> clocks;
+
+    /**
+     * Statistics, by Project Manager.
+     */
+    private final Map<String, Tenant> tenants;
+
+    /**
+     * Virtual time: the largest tag of a started review.
+     */
+    private double virtual;
+
+    /**
+     * Cost of the average review, in seconds.
+     */
+    private double average;
+
+    /**
+     * Ctor.
+     * @param settings Per-Project settings, with the weights.
+     */
+    FairShare(final ProjectSettings settings) {
+        this.settings = settings;
+        this.costs = FairShare.lru();
+        this.clocks = FairShare.lru();
+        this.tenants = new HashMap<>();
+        this.average = 1.0;
+    }
+
+    /**
+     * Finish tag of the review, which is about to wait for a thread.
+     * @param job Review.
+     * @return Tag, the reviews with smaller tags run first.
+     */
+    synchronized double tag(final ReviewJob job) {
+        final String project = job.provider() + "/" + job.repoFullName();
+        final String manager = "@" + job.provider() + "/" + job.manager();
+        final double start = Math.max(
+            this.virtual,
+            Math.max(
+                this.clocks.getOrDefault(project, 0.0),
+                this.clocks.getOrDefault(manager, 0.0)
+            )
+        );
+        final double tag = start
+            + this.costs.getOrDefault(project, this.average)
+            / this.weight(project);
+        this.clocks.put(project, tag);
+        this.clocks.put(manager, tag);
+        final Tenant tenant = this.tenant(job);
+        tenant.queued = tenant.queued + 1;
+        return tag;
+    }
+
+    /**
+     * The review was started.
+     * @param job Review.
+     * @param tag Its tag.
+     */
+    synchronized void started(final ReviewJob job, final double tag) {
+        this.virtual = Math.max(this.virtual, tag);
+        final Tenant tenant = this.tenant(job);
+        tenant.queued = tenant.queued - 1;
+        tenant.waits.add(job.waited());
+    }
+
+    /**
+     * The review was finished, its duration updates the estimated cost
+     * of the Project's next reviews.
+     * @param job Review.
+     */
+    synchronized void finished(final ReviewJob job) {
+        final String project = job.provider() + "/" + job.repoFullName();
+        final double seconds = job.ran().toMillis() / 1000.0;
+        final Double cost = this.costs.get(project);
+        if (cost == null) {
+            this.costs.put(project, seconds);
+        } else {
+            this.costs.put(
+                project,
+                FairShare.ALPHA * seconds + (1 - FairShare.ALPHA) * cost
+            );
+        }
+        this.average = FairShare.ALPHA * seconds
+            + (1 - FairShare.ALPHA) * this.average;
+        this.tenant(job).latencies.add(job.waited().plus(job.ran()));
+    }
+
+    /**
+     * Statistics of each Project Manager: reviews waiting for a thread,
+     * average and 99th percentile of the wait and of the latency (wait and
+     * review) of its last reviews.
+     * @return JsonArray.
+     */
+    synchronized JsonArray json() {
+        final JsonArrayBuilder json = Json.createArrayBuilder();
+        for (final Map.Entry<String, Tenant> entry : this.tenants.entrySet()) {
+            final Tenant tenant = entry.getValue();
+            json.add(
+                Json.createObjectBuilder()
+                    .add("manager", entry.getKey())
+                    .add("waiting", tenant.queued)
+                    .add("reviews", tenant.latencies.count)
+                    .add("averageWaitMs", tenant.waits.average())
+                    .add("p99WaitMs", tenant.waits.percentile(0.99))
+                    .add("averageLatencyMs", tenant.latencies.average())
+                    .add("p99LatencyMs", tenant.latencies.percentile(0.99))
+            );
+        }
+        return json.build();
+    }
+
+    /**
+     * Weight of the Project, 1 if the setting is not a positive number.
+     * @param project Provider and full name of the Project's repository.
+     * @return Weight, positive.
+     */
+    private double weight(final String project) {
+        final String value = this.settings.value(project, "weight", "1");
+        double weight;
+        try {
+            weight = Double.parseDouble(value);
+        } catch (final NumberFormatException ex) {
+            weight = Double.NaN;
+        }
+        if (Double.isNaN(weight) || Double.isInfinite(weight) || weight <= 0) {
+            LOG.warn(
+                "Invalid weight \"" + value + "\" of Project " + project
+                + ", using 1."
+            );
+            weight = 1;
+        }
+        return weight;
+    }
+
+    /**
+     * Statistics of the review's Project Manager.
+     * @param job Review.
+     * @return Tenant.
+     */
+    private Tenant tenant(final ReviewJob job) {
+        return this.tenants.computeIfAbsent(
+            job.provider() + "/" + job.manager(), key -> new Tenant()
+        );
+    }
+
+    /**
+     * Map keeping only the most recently used Projects.
+     * @return Map.
+     */
+    private static Map<String, Double> lru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, Double> eldest
+            ) {
+                return this.size() > FairShare.PROJECTS;
+            }
+        };
+    }
+
+    /**
+     * Statistics of a Project Manager.
+     */
+    private static final class Tenant {
+
+        /**
+         * Waits of the last reviews.
+         */
+        private final Samples waits = new Samples();
+
+        /**
+         * Latencies of the last reviews.
+         */
+        private final Samples latencies = new Samples();
+
+        /**
+         * Reviews waiting for a thread.
+         */
+        private int queued;
+    }
+
+    /**
+     * The last durations, in millis.
+     */
+    private static final class Samples {
+
+        /**
+         * Durations, used as a ring.
+         */
+        private final long[] millis = new long[1000];
+
+        /**
+         * Number of durations added so far.
+         */
+        private long count;
+
+        /**
+         * Add a duration, replacing the oldest one if full.
+         * @param duration Duration.
+         */
+        void add(final Duration duration) {
+            this.millis[(int) (this.count % this.millis.length)] =
+                duration.toMillis();
+            this.count = this.count + 1;
+        }
+
+        /**
+         * Average of the durations.
+         * @return Millis.
+         */
+        long average() {
+            final long[] last = this.last();
+            long sum = 0;
+            for (final long value : last) {
+                sum = sum + value;
+            }
+            return sum / Math.max(1, last.length);
+        }
+
+        /**
+         * Percentile of the durations.
+         * @param rank Rank, between 0 and 1.
+         * @return Millis, 0 if there are none.
+         */
+        long percentile(final double rank) {
+            final long[] last = this.last();
+            long result = 0;
+            if (last.length > 0) {
+                Arrays.sort(last);
+                result = last[
+                    (int) Math.min(last.length - 1, Math.ceil(
+                        rank * last.length
+                    ) - 1)
+                ];
+            }
+            return result;
+        }
+
+        /**
+         * Copy of the durations kept.
+         * @return Millis.
+         */
+        private long[] last() {
+            return Arrays.copyOf(
+                this.millis, (int) Math.min(this.count, this.millis.length)
+            );
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Puzzles of a Project obtained by only rescanning the files changed by
+ * the push: the puzzles of the last review which are not in these files
+ * are kept and the puzzles found in them are added. If there is no
+ * snapshot of the last review of the branch or the push doesn't continue
+ * it (history was rewritten, commits are missing from the payload), the
+ * whole repository is scanned. The same happens if the changed files
+ * cannot be scanned, like when GitLab's commit before the push is not an
+ * ancestor of the pushed one (see {@link ChangedPathsWorkspace}). The
+ * puzzles kept from the last review are linked to the head commit of this
+ * one.<br><br>
+ * Only the pushes to the default branch, the one which is scanned, are
+ * remembered and rescanned incrementally; the other pushes are scanned
+ * fully.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ParameterNumber (100 lines)
+ */
+public final class IncrementalPuzzles implements Puzzles<Project> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        IncrementalPuzzles.class
+    );
+
+    /**
+     * Puzzles of the whole repository.
+     */
+    private final Puzzles<Project> full;
+
+    /**
+     * Puzzles of the changed files. It may scan more files than that, only
+     * the puzzles of the changed files are used.
+     */
+    private final Puzzles<Project> changed;
+
+    /**
+     * Repository of the review.
+     */
+    private final RepoContext context;
+
+    /**
+     * Snapshots of the last reviews.
+     */
+    private final PuzzleSnapshots snapshots;
+
+    /**
+     * Processed puzzles.
+     */
+    private final List<Puzzle> puzzles;
+
+    /**
+     * Ctor.
+     * @param full Puzzles of the whole repository.
+     * @param changed Puzzles of the changed files.
+     * @param context Repository of the review, with the push.
+     * @param snapshots Snapshots of the last reviews.
+     */
+    IncrementalPuzzles(
+        final Puzzles<Project> full,
+        final Puzzles<Project> changed,
+        final RepoContext context,
+        final PuzzleSnapshots snapshots
+    ) {
+        this.full = full;
+        this.changed = changed;
+        this.context = context;
+        this.snapshots = snapshots;
+        this.puzzles = new ArrayList<>();
+    }
+
+    @Override
+    public void process(final Project project)
+        throws PuzzlesProcessingException {
+        final Push push = this.context.push();
+        PuzzleSnapshots.Snapshot last = null;
+        if(push.onDefaultBranch()) {
+            last = this.snapshots.get(project, push);
+        }
+        if(last == null || !push.continues(last.sha())
+            || !this.rescan(project, push, last)) {
+            this.full.process(project);
+            this.full.forEach(this.puzzles::add);
+        }
+        if(push.onDefaultBranch() && push.after() != null) {
+            this.snapshots.put(project, push, this.puzzles);
+        }
+    }
+
+    /**
+     * Only rescan the files changed by the push.
+     * @param project Project.
+     * @param push Push.
+     * @param last Snapshot of the last review.
+     * @return False if the changed files could not be scanned.
+     */
+    private boolean rescan(
+        final Project project,
+        final Push push,
+        final PuzzleSnapshots.Snapshot last
+    ) {
+        boolean rescanned;
+        try {
+            this.changed.process(project);
+            rescanned = true;
+        } catch (final PuzzlesProcessingException ex) {
+            LOG.warn(
+                "Could not rescan the files changed in "
+                + project.repoFullName() + ", scanning everything.",
+                ex
+            );
+            rescanned = false;
+        }
+        if(rescanned) {
+            final Set<String> paths = push.paths();
+            for(final Puzzle puzzle
+                : last.puzzles(project, this.context.head())) {
+                if(!paths.contains(IncrementalPuzzles.path(puzzle))) {
+                    this.puzzles.add(puzzle);
+                }
+            }
+            for(final Puzzle puzzle : this.changed) {
+                if(paths.contains(IncrementalPuzzles.path(puzzle))) {
+                    this.puzzles.add(puzzle);
+                }
+            }
+        }
+        return rescanned;
+    }
+
+    @Override
+    public Iterator<Puzzle> iterator() {
+        return this.puzzles.iterator();
+    }
+
+    /**
+     * Path of the puzzle's file relative to the root of the repository,
+     * as in the push payload. The scanners may prefix it with "./" or use
+     * backslashes.
+     * @param puzzle Puzzle.
+     * @return Path.
+     */
+    private static String path(final Puzzle puzzle) {
+        String path = puzzle.getFile().replace('\\', '/');
+        while (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        return path;
+    }
+}
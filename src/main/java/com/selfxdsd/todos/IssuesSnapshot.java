@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Issue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The puzzle Issues of a repository as they were when the review started:
+ * the id, body and state of each Issue are read once, a few
+ * Issues at a time, and the review works with this immutable view instead
+ * of calling the provider's API again for every comparison. Only the
+ * changes (close, comment, remove label) go to the live Issue.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class IssuesSnapshot implements Iterable<IssuesSnapshot.Entry> {
+
+    /**
+     * Issues read at the same time, by default.
+     */
+    static final int IN_FLIGHT = Integer.parseInt(
+        Objects.requireNonNullElse(
+            System.getenv(TodosEnv.ISSUES_PREFETCH), "8"
+        )
+    );
+
+    /**
+     * Threads reading the Issues; the number of reads in flight is
+     * bounded per snapshot.
+     */
+    private static final ExecutorService READERS =
+        Executors.newCachedThreadPool(IssuesSnapshot::reader);
+
+    /**
+     * Snapshot of each Issue, in the order the provider returned them.
+     */
+    private final List<Entry> entries;
+
+    /**
+     * Ctor.
+     * @param issues Live Issues.
+     * @param inflight How many Issues to read at the same time.
+     * @throws PuzzlesProcessingException If the Issues could not be read.
+     */
+    IssuesSnapshot(
+        final Iterable<? extends Issue> issues,
+        final int inflight
+    ) throws PuzzlesProcessingException {
+        final Semaphore slots = new Semaphore(Math.max(1, inflight));
+        final List<CompletableFuture<Entry>> reads = new ArrayList<>();
+        try {
+            for (final Issue issue : issues) {
+                slots.acquire();
+                reads.add(
+                    CompletableFuture
+                        .supplyAsync(() -> new Entry(issue), READERS)
+                        .whenComplete((entry, error) -> slots.release())
+                );
+            }
+            final List<Entry> read = new ArrayList<>(reads.size());
+            for (final CompletableFuture<Entry> entry : reads) {
+                read.add(entry.get());
+            }
+            this.entries = Collections.unmodifiableList(read);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            reads.forEach(entry -> entry.cancel(true));
+            throw new PuzzlesProcessingException(
+                "Interrupted while reading the Issues.", ex
+            );
+        } catch (final ExecutionException ex) {
+            throw new PuzzlesProcessingException(
+                "Could not read the Issues.", ex.getCause()
+            );
+        }
+    }
+
+    @Override
+    public Iterator<Entry> iterator() {
+        return this.entries.iterator();
+    }
+
+    /**
+     * How many Issues there are.
+     * @return Number of Issues.
+     */
+    int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Daemon thread reading Issues.
+     * @param task What it runs.
+     * @return Thread.
+     */
+    private static Thread reader(final Runnable task) {
+        final Thread thread = new Thread(task, "self-todos-issues");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * An Issue as it was read.
+     */
+    static final class Entry {
+
+        /**
+         * The live Issue, to be changed.
+         */
+        private final Issue issue;
+
+        /**
+         * Id.
+         */
+        private final String id;
+
+        /**
+         * Body.
+         */
+        private final String body;
+
+        /**
+         * Is it closed?
+         */
+        private final boolean closed;
+
+        /**
+         * Ctor.
+         * @param issue The Issue to read.
+         */
+        Entry(final Issue issue) {
+            this.issue = issue;
+            this.id = issue.issueId();
+            this.body = issue.body();
+            this.closed = issue.isClosed();
+        }
+
+        /**
+         * The live Issue.
+         * @return Issue.
+         */
+        Issue issue() {
+            return this.issue;
+        }
+
+        /**
+         * Id of the Issue.
+         * @return Id.
+         */
+        String issueId() {
+            return this.id;
+        }
+
+        /**
+         * Body of the Issue.
+         * @return Body.
+         */
+        String body() {
+            return this.body;
+        }
+
+        /**
+         * Was the Issue closed?
+         * @return True or false.
+         */
+        boolean isClosed() {
+            return this.closed;
+        }
+    }
+}
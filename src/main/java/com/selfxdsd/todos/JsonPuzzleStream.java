@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader of the JSON array of to-dos written by
+ * `todo-finder-cli`. Each to-do is read, made a Puzzle and given to the
+ * sink as soon as its object closes, so only one to-do is held in memory
+ * at a time, never the whole document. Ids are numbers in the output of
+ * `todo-finder-cli` and strings in the output of the {@link ScanDaemon}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class JsonPuzzleStream {
+
+    /**
+     * Parsers, the provider is looked up once.
+     */
+    private static final JsonParserFactory PARSERS =
+        Json.createParserFactory(null);
+
+    /**
+     * Repository of the review.
+     */
+    private final RepoContext context;
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     */
+    JsonPuzzleStream(final RepoContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Read the to-dos.
+     * @param input JSON array of to-dos.
+     * @param sink Where each Puzzle goes, in the order of the array.
+     * @throws JsonException If the input is not an array of to-dos.
+     * @throws NullPointerException If a to-do misses a required attribute.
+     * @throws ClassCastException If an attribute has the wrong type.
+     * @throws NumberFormatException If the originating ticket is not one.
+     */
+    void read(final Reader input, final Consumer<Puzzle> sink) {
+        final Puzzle.Builder builder = new Puzzle.Builder()
+            .setProject(this.context.project())
+            .setEmail("")
+            .setRole("DEV");
+        try (JsonParser parser = JsonPuzzleStream.PARSERS.createParser(input)) {
+            if(!parser.hasNext()
+                || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new JsonException("Expected an array of to-dos.");
+            }
+            JsonParser.Event event = parser.next();
+            while (event != JsonParser.Event.END_ARRAY) {
+                if(event != JsonParser.Event.START_OBJECT) {
+                    throw new JsonException(
+                        "Expected a to-do object, found " + event
+                    );
+                }
+                final JsonObject todo = parser.getObject();
+                sink.accept(
+                    builder
+                        .setCommit(this.context.head())
+                        .setId(JsonPuzzleStream.puzzleId(todo.get("id")))
+                        .setStart(todo.getInt("start"))
+                        .setEnd(todo.getInt("end"))
+                        .setTicket(Integer.parseInt(todo
+                            .getString("originatingTicket").substring(1)))
+                        .setEstimate(todo.getInt("estimatedTime"))
+                        .setFile(todo.getString("file"))
+                        .setBody(todo.getString("body"))
+                        .setAuthor(todo.getString("author", ""))
+                        .setTime(todo.getString("timestamp", ""))
+                        .build()
+                );
+                event = parser.next();
+            }
+        }
+    }
+
+    /**
+     * Id of a to-do, a number or a string.
+     * @param value Value of the "id" attribute.
+     * @return Id.
+     * @throws NullPointerException If the to-do has no id.
+     */
+    private static String puzzleId(final JsonValue value) {
+        final String id;
+        if(value.getValueType() == JsonValue.ValueType.STRING) {
+            id = ((JsonString) value).getString();
+        } else {
+            id = value.toString();
+        }
+        return id;
+    }
+}
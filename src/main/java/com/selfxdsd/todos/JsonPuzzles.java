@@ -26,9 +26,7 @@ import com.selfxdsd.api.Commit;
 import com.selfxdsd.api.Project;
 
 import javax.json.*;
-import java.io.PrintWriter;
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -45,14 +43,14 @@ import java.util.List;
 public final class JsonPuzzles implements Puzzles<String> {
 
     /**
-     * Project where these puzzles are coming from.
+     * What happens when the to-dos cannot be parsed.
      */
-    private final Project project;
+    private final ParseReport report;
 
     /**
-     * Commit which triggered everything.
+     * Repository of the review.
      */
-    private final Commit commit;
+    private final RepoContext context;
 
     /**
      * Processed puzzles.
@@ -65,73 +63,40 @@ public final class JsonPuzzles implements Puzzles<String> {
      * @param commit Commit which triggered everything.
      */
     public JsonPuzzles(final Project project, final Commit commit) {
-        this.project = project;
-        this.commit = commit;
+        this(new RepoContext(project, commit));
+    }
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     */
+    JsonPuzzles(final RepoContext context) {
+        this(context, new CommentReport(context.commit()));
+    }
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     * @param report What happens when the to-dos cannot be parsed.
+     */
+    JsonPuzzles(final RepoContext context, final ParseReport report) {
+        this.context = context;
+        this.report = report;
         this.puzzles = new ArrayList<>();
     }
 
 
     @Override
     public void process(final String input) throws PuzzlesProcessingException {
-        try (JsonReader reader = Json.createReader(new StringReader(input))) {
-            final JsonArray jsonArray = reader.readArray();
-            final Puzzle.Builder builder = new Puzzle.Builder()
-                .setProject(this.project)
-                .setEmail("")
-                .setRole("DEV");
-            for (final JsonValue jsonValue : jsonArray) {
-                final JsonObject jsonObject = jsonValue.asJsonObject();
-                final String[] fullNameSplit = this.project.repoFullName()
-                    .split("/");
-                builder
-                    .setCommit(this.project
-                        .projectManager()
-                        .provider()
-                        .repo(fullNameSplit[0], fullNameSplit[1])
-                        .commits()
-                        .latest())
-                    .setId(Integer.toString(jsonObject.getInt("id")))
-                    .setStart(jsonObject.getInt("start"))
-                    .setEnd(jsonObject.getInt("end"))
-                    .setTicket(Integer.parseInt(jsonObject
-                        .getString("originatingTicket").substring(1)))
-                    .setEstimate(jsonObject.getInt("estimatedTime"))
-                    .setFile(jsonObject.getString("file"))
-                    .setBody(jsonObject.getString("body"))
-                    .setAuthor(jsonObject.getString("author", ""))
-                    .setTime(jsonObject.getString("timestamp", ""));
-                puzzles.add(builder.build());
-            }
+        try {
+            new JsonPuzzleStream(this.context).read(
+                new StringReader(input), this.puzzles::add
+            );
         } catch (final JsonException
             | NullPointerException
             | ClassCastException
             | NumberFormatException exception) {
-            final StringWriter stacktrace = new StringWriter();
-            exception.printStackTrace(new PrintWriter(stacktrace));
-            String author = this.commit.author();
-            if(author != null && !author.isEmpty()) {
-                author = "@" + author + " ";
-            } else {
-                author = "";
-            }
-            this.commit.comments().post(
-                author
-                    + "There's been a problem while "
-                    + "parsing the to-dos in the code. Most likely, the format "
-                    + "is not correct. Read more about the to-do format [here]"
-                    + "(https://docs.self-xdsd.com/microtasking.html#anatomy-of-a-todo). "
-                    + "If you can't understand the error, just open an Issue "
-                    + "[here](https://github.com/self-xdsd/self-todos).\n\n"
-                    + "Parse result:\n\n"
-                    + "```\n"
-                    + input
-                    + "```\n\n"
-                    + "Error:\n\n"
-                    + "```java\n"
-                    + exception.getMessage() + "\n\n"
-                    + stacktrace.toString() + "\n"
-                    + "```"
-            );
+            this.report.failed(input, exception);
             throw new PuzzlesProcessingException(exception);
         }
     }
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+
+import javax.json.JsonException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Puzzles read from a JSON Document generated by `todo-finder-cli`, which
+ * is read directly from a stream (e.g. the stdout of the PDD host),
+ * without copying it into a String first.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle LineLength (300 lines)
+ */
+public final class JsonStreamPuzzles implements Puzzles<InputStream> {
+
+    /**
+     * What happens when the to-dos cannot be parsed.
+     */
+    private final ParseReport report;
+
+    /**
+     * Repository of the review.
+     */
+    private final RepoContext context;
+
+    /**
+     * Processed puzzles.
+     */
+    private final List<Puzzle> puzzles;
+
+    /**
+     * Ctor.
+     * @param project Project where these puzzles are coming from.
+     * @param commit Commit which triggered everything.
+     */
+    public JsonStreamPuzzles(final Project project, final Commit commit) {
+        this(new RepoContext(project, commit));
+    }
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     */
+    JsonStreamPuzzles(final RepoContext context) {
+        this(context, new CommentReport(context.commit()));
+    }
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     * @param report What happens when the to-dos cannot be parsed.
+     */
+    JsonStreamPuzzles(final RepoContext context, final ParseReport report) {
+        this.context = context;
+        this.report = report;
+        this.puzzles = new ArrayList<>();
+    }
+
+    @Override
+    public void process(final InputStream input)
+        throws PuzzlesProcessingException {
+        try {
+            new JsonPuzzleStream(this.context).read(
+                new InputStreamReader(input, StandardCharsets.UTF_8),
+                this.puzzles::add
+            );
+        } catch (final JsonException
+            | NullPointerException
+            | ClassCastException
+            | NumberFormatException exception) {
+            this.report.failed(null, exception);
+            throw new PuzzlesProcessingException(exception);
+        }
+    }
+
+    @Override
+    public Iterator<Puzzle> iterator() {
+        return this.puzzles.iterator();
+    }
+
+}
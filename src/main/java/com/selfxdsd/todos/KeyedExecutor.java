@@ -0,0 +1,402 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor which runs the tasks with the same key one after the other,
+ * in the order they were submitted, and the tasks with different keys in
+ * parallel. Each key has its own queue (stripe), only its head is given
+ * to the threads, so a busy key never holds a thread waiting. When all
+ * the threads are busy, the heads of the stripes run in the order of
+ * their priorities (the smallest first), then in the order they came.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class KeyedExecutor {
+
+    /**
+     * How many idle stripes are kept, with their statistics.
+     */
+    private static final int IDLE = 1000;
+
+    /**
+     * Threads.
+     */
+    private final ExecutorService threads;
+
+    /**
+     * How many tasks can wait, in all the stripes.
+     */
+    private final int capacity;
+
+    /**
+     * Stripes, by key, from the least to the most recently used.
+     */
+    private final Map<String, Stripe> stripes;
+
+    /**
+     * Number of tasks waiting, in all the stripes.
+     */
+    private int waiting;
+
+    /**
+     * Order in which the tasks were given to the threads.
+     */
+    private final AtomicLong order;
+
+    /**
+     * Ctor.
+     * @param threads Number of threads.
+     * @param capacity How many tasks can wait, in all the stripes.
+     */
+    KeyedExecutor(final int threads, final int capacity) {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            threads, threads, 1L, TimeUnit.MINUTES,
+            new PriorityBlockingQueue<>()
+        );
+        pool.allowCoreThreadTimeOut(true);
+        this.threads = pool;
+        this.capacity = capacity;
+        this.order = new AtomicLong();
+        this.stripes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, Stripe> eldest
+            ) {
+                return this.size() > KeyedExecutor.IDLE
+                    && eldest.getValue().idle();
+            }
+        };
+    }
+
+    /**
+     * Run the task after the ones already submitted with the same key.
+     * @param key Key.
+     * @param task Task.
+     * @throws RejectedExecutionException If too many tasks are waiting.
+     */
+    public void execute(final String key, final Runnable task) {
+        this.execute(key, 0, task);
+    }
+
+    /**
+     * Run the task after the ones already submitted with the same key.
+     * @param key Key.
+     * @param priority Priority, the smallest runs first when the task
+     *  waits for a thread.
+     * @param task Task.
+     * @throws RejectedExecutionException If too many tasks are waiting.
+     */
+    public void execute(
+        final String key,
+        final double priority,
+        final Runnable task
+    ) {
+        synchronized (this.stripes) {
+            if (this.waiting >= this.capacity) {
+                throw new RejectedExecutionException(
+                    this.waiting + " tasks are already waiting."
+                );
+            }
+            final Stripe stripe = this.stripes.computeIfAbsent(
+                key, Stripe::new
+            );
+            stripe.pending.add(new Waiting(task, priority));
+            this.waiting = this.waiting + 1;
+            if (!stripe.running) {
+                stripe.running = true;
+                this.next(stripe);
+            }
+        }
+    }
+
+    /**
+     * Depth, wait time and number of tasks of each stripe, as JSON.
+     * @return JsonArray.
+     */
+    public JsonArray json() {
+        final JsonArrayBuilder json = Json.createArrayBuilder();
+        synchronized (this.stripes) {
+            for (final Stripe stripe : this.stripes.values()) {
+                json.add(stripe.json());
+            }
+        }
+        return json.build();
+    }
+
+    /**
+     * Number of tasks waiting, in all the stripes.
+     * @return Integer.
+     */
+    public int waiting() {
+        synchronized (this.stripes) {
+            return this.waiting;
+        }
+    }
+
+    /**
+     * Stop the threads, interrupting the running tasks. The waiting tasks
+     * are dropped.
+     */
+    public void shutdownNow() {
+        this.threads.shutdownNow();
+    }
+
+    /**
+     * Give the next task of the stripe to the threads. Must be called
+     * while holding the lock on the stripes.
+     * @param stripe Stripe.
+     */
+    private void next(final Stripe stripe) {
+        final Waiting task = stripe.pending.peek();
+        this.threads.execute(
+            new Ordered(
+                task.priority, this.order.incrementAndGet(),
+                () -> this.run(stripe, task)
+            )
+        );
+    }
+
+    /**
+     * Run a task, then move to the next one of its stripe.
+     * @param stripe Stripe.
+     * @param task Task.
+     */
+    private void run(final Stripe stripe, final Waiting task) {
+        synchronized (this.stripes) {
+            stripe.pending.remove();
+            stripe.started(task);
+            this.waiting = this.waiting - 1;
+        }
+        try {
+            task.task.run();
+        } finally {
+            synchronized (this.stripes) {
+                if (stripe.pending.isEmpty()) {
+                    stripe.running = false;
+                } else {
+                    this.next(stripe);
+                }
+            }
+        }
+    }
+
+    /**
+     * Task waiting in a stripe.
+     */
+    private static final class Waiting {
+
+        /**
+         * Task.
+         */
+        private final Runnable task;
+
+        /**
+         * Priority.
+         */
+        private final double priority;
+
+        /**
+         * Since when it's waiting, in millis.
+         */
+        private final long since;
+
+        /**
+         * Ctor.
+         * @param task Task.
+         * @param priority Priority.
+         */
+        Waiting(final Runnable task, final double priority) {
+            this.task = task;
+            this.priority = priority;
+            this.since = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Task given to the threads, ordered by priority, then by the
+     * order in which it came.
+     */
+    private static final class Ordered
+        implements Runnable, Comparable<Ordered> {
+
+        /**
+         * Priority.
+         */
+        private final double priority;
+
+        /**
+         * Order in which it came.
+         */
+        private final long order;
+
+        /**
+         * Task.
+         */
+        private final Runnable task;
+
+        /**
+         * Ctor.
+         * @param priority Priority.
+         * @param order Order in which it came.
+         * @param task Task.
+         */
+        Ordered(final double priority, final long order, final Runnable task) {
+            this.priority = priority;
+            this.order = order;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            this.task.run();
+        }
+
+        @Override
+        public int compareTo(final Ordered other) {
+            int result = Double.compare(this.priority, other.priority);
+            if (result == 0) {
+                result = Long.compare(this.order, other.order);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Ordered
+                && this.compareTo((Ordered) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.order);
+        }
+    }
+
+    /**
+     * Tasks of one key.
+     */
+    private static final class Stripe {
+
+        /**
+         * Key.
+         */
+        private final String key;
+
+        /**
+         * Waiting tasks, the head is given to the threads when the
+         * stripe is running.
+         */
+        private final Deque<Waiting> pending;
+
+        /**
+         * Whether a task of this stripe is running or given to
+         * the threads.
+         */
+        private boolean running;
+
+        /**
+         * Number of tasks started.
+         */
+        private long started;
+
+        /**
+         * Total wait of the started tasks, in millis.
+         */
+        private long waited;
+
+        /**
+         * Longest wait of a started task, in millis.
+         */
+        private long longest;
+
+        /**
+         * Ctor.
+         * @param key Key.
+         */
+        Stripe(final String key) {
+            this.key = key;
+            this.pending = new ArrayDeque<>();
+        }
+
+        /**
+         * A task was started.
+         * @param task Task.
+         */
+        void started(final Waiting task) {
+            final long wait = System.currentTimeMillis() - task.since;
+            this.started = this.started + 1;
+            this.waited = this.waited + wait;
+            this.longest = Math.max(this.longest, wait);
+        }
+
+        /**
+         * Is nothing running or waiting?
+         * @return True or false.
+         */
+        boolean idle() {
+            return !this.running && this.pending.isEmpty();
+        }
+
+        /**
+         * Statistics of this stripe, as JSON.
+         * @return JsonObject.
+         */
+        JsonObject json() {
+            long oldest = 0;
+            if (!this.pending.isEmpty()) {
+                oldest = System.currentTimeMillis()
+                    - this.pending.peek().since;
+            }
+            long average = 0;
+            if (this.started > 0) {
+                average = this.waited / this.started;
+            }
+            return Json.createObjectBuilder()
+                .add("key", this.key)
+                .add("running", this.running)
+                .add("depth", this.pending.size())
+                .add("oldestWaitMs", oldest)
+                .add("started", this.started)
+                .add("averageWaitMs", average)
+                .add("maxWaitMs", this.longest)
+                .build();
+        }
+    }
+}
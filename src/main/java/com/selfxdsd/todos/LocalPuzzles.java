@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+import org.cactoos.io.DeadInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.UUID;
+
+/**
+ * Puzzles read on this machine, without going to the PDD host: the
+ * repository is checked out in a local directory (with the same
+ * {@link Workspace} scripts as on the PDD host) and the checked out tree
+ * is given to the next Puzzles, which scan it.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class LocalPuzzles implements Puzzles<Project> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        LocalPuzzles.class
+    );
+
+    /**
+     * Directory where the repositories are checked out.
+     */
+    private final Path directory;
+
+    /**
+     * How the repository is checked out.
+     */
+    private final Workspace workspace;
+
+    /**
+     * Next puzzles, scanning the checked out tree.
+     */
+    private final Puzzles<Path> next;
+
+    /**
+     * Ctor.
+     * @param directory Directory where the repositories are checked out.
+     * @param workspace How the repository is checked out.
+     * @param next Next puzzles, scanning the checked out tree.
+     */
+    public LocalPuzzles(
+        final Path directory,
+        final Workspace workspace,
+        final Puzzles<Path> next
+    ) {
+        this.directory = directory;
+        this.workspace = workspace;
+        this.next = next;
+    }
+
+    @Override
+    public void process(final Project project)
+        throws PuzzlesProcessingException {
+        final String id = UUID.randomUUID().toString().replace("-", "");
+        try {
+            this.exec(this.workspace.open(id, project));
+            try {
+                this.next.process(
+                    this.directory.resolve("self-todos-tmp-" + id)
+                        .resolve("repo")
+                );
+            } finally {
+                this.exec(this.workspace.close(id, project));
+            }
+        } catch (final IOException | IllegalStateException exception) {
+            LOG.error(
+                exception.getClass().getSimpleName()
+                + " while processing the puzzles for Project "
+                + project.repoFullName() + " at " + project.provider() + ": ",
+                exception
+            );
+            throw new PuzzlesProcessingException(exception);
+        }
+    }
+
+    @Override
+    public Iterator<Puzzle> iterator() {
+        return this.next.iterator();
+    }
+
+    /**
+     * Run a command in the local directory.
+     * @param cmd Command.
+     * @throws IOException If it cannot be run.
+     * @throws IllegalStateException If it exits with non-zero code.
+     */
+    private void exec(final String cmd) throws IOException {
+        final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        final int exit = new LocalShell(this.directory).exec(
+            cmd,
+            new DeadInput().stream(),
+            new ByteArrayOutputStream(),
+            stderr
+        );
+        if (exit != 0) {
+            throw new IllegalStateException(String.format(
+                "%s exits with non-zero code %d\nOutput: %s",
+                cmd,
+                exit,
+                stderr.toString(StandardCharsets.UTF_8)
+            ));
+        }
+    }
+}
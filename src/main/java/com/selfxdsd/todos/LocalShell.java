@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.jcabi.ssh.Shell;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Shell running the commands on this machine, with sh, in a given
+ * directory. It lets the scripts meant for the PDD host run locally.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ParameterNumber (100 lines)
+ */
+public final class LocalShell implements Shell {
+
+    /**
+     * Working directory.
+     */
+    private final Path directory;
+
+    /**
+     * Ctor.
+     * @param directory Working directory of the commands.
+     */
+    public LocalShell(final Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public int exec(
+        final String command,
+        final InputStream stdin,
+        final OutputStream stdout,
+        final OutputStream stderr
+    ) throws IOException {
+        final Process process = new ProcessBuilder("sh", "-c", command)
+            .directory(this.directory.toFile())
+            .start();
+        final FutureTask<Void> errors = LocalShell.pump(
+            process.getErrorStream(), stderr
+        );
+        final FutureTask<Void> output = LocalShell.pump(
+            process.getInputStream(), stdout
+        );
+        try (OutputStream input = process.getOutputStream()) {
+            stdin.transferTo(input);
+        }
+        try {
+            final int exit = process.waitFor();
+            output.get();
+            errors.get();
+            return exit;
+        } catch (final InterruptedException ex) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while running " + command
+            );
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Copy the output of the process on another thread, so the caller only
+     * waits for the process and can kill it when it's interrupted.
+     * @param from Output of the process.
+     * @param into Where to copy it.
+     * @return Task, done when the output is closed.
+     */
+    private static FutureTask<Void> pump(
+        final InputStream from,
+        final OutputStream into
+    ) {
+        final FutureTask<Void> pump = new FutureTask<>(
+            () -> {
+                try (InputStream out = from) {
+                    out.transferTo(into);
+                }
+                return null;
+            }
+        );
+        final Thread thread = new Thread(pump);
+        thread.setDaemon(true);
+        thread.start();
+        return pump;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Issue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reconciliation of the puzzles found in the code with the Issues
+ * remembered by {@link PuzzleIssues}, without reading the Issues: puzzles
+ * without a link are added, open links without a puzzle are gone.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class MappedReconciliation {
+
+    /**
+     * Puzzles without an Issue, to be opened.
+     */
+    private final List<Puzzle> added;
+
+    /**
+     * Open Issues without a puzzle, by puzzle id, to be closed.
+     */
+    private final Map<String, PuzzleIssues.Link> gone;
+
+    /**
+     * The links, with the commit where each puzzle was last seen.
+     */
+    private final Map<String, PuzzleIssues.Link> links;
+
+    /**
+     * SHA of the reviewed commit.
+     */
+    private final String sha;
+
+    /**
+     * Ctor.
+     * @param puzzles Puzzles found in the code.
+     * @param known Issues by puzzle id, as remembered.
+     * @param sha SHA of the reviewed commit.
+     */
+    MappedReconciliation(
+        final Iterable<Puzzle> puzzles,
+        final Map<String, PuzzleIssues.Link> known,
+        final String sha
+    ) {
+        this.added = new ArrayList<>();
+        this.gone = new LinkedHashMap<>(known);
+        this.links = new LinkedHashMap<>(known);
+        this.sha = sha;
+        final Set<String> fresh = new HashSet<>();
+        for (final Puzzle puzzle : puzzles) {
+            final String id = puzzle.getId();
+            final PuzzleIssues.Link link = known.get(id);
+            if (link == null) {
+                if (fresh.add(id)) {
+                    this.added.add(puzzle);
+                }
+            } else {
+                this.links.put(id, link.seen(sha));
+            }
+            this.gone.remove(id);
+        }
+        this.gone.values().removeIf(PuzzleIssues.Link::isClosed);
+    }
+
+    /**
+     * Puzzles without an Issue, to be opened.
+     * @return Puzzles, in the order they were found.
+     */
+    List<Puzzle> added() {
+        return this.added;
+    }
+
+    /**
+     * Open Issues whose puzzle is gone, to be closed.
+     * @return Links by puzzle id.
+     */
+    Map<String, PuzzleIssues.Link> gone() {
+        return this.gone;
+    }
+
+    /**
+     * The links after this review, before opening or closing anything.
+     * @return Links by puzzle id.
+     */
+    Map<String, PuzzleIssues.Link> links() {
+        return this.links;
+    }
+
+    /**
+     * Link the added puzzles to the Issues of the gone ones about the same
+     * to-do, whose puzzle id changed (see {@link Relink}). They are neither
+     * added nor gone anymore.
+     * @param issues Open Issues of the gone puzzles, by Issue id; the
+     *  relinked ones are removed from it. Those missing (closed) are not
+     *  relinked.
+     */
+    void relink(final Map<String, Issue> issues) {
+        final Relink relink = new Relink(this.added);
+        final Iterator<Map.Entry<String, PuzzleIssues.Link>> open =
+            this.gone.entrySet().iterator();
+        while (open.hasNext()) {
+            final Map.Entry<String, PuzzleIssues.Link> link = open.next();
+            final String issue = link.getValue().issueId();
+            final Issue live = issues.get(issue);
+            Puzzle puzzle = null;
+            if (live != null) {
+                puzzle = relink.take(live.body());
+            }
+            if (puzzle != null) {
+                open.remove();
+                issues.remove(issue);
+                this.added.remove(puzzle);
+                this.links.remove(link.getKey());
+                this.links.put(
+                    puzzle.getId(),
+                    new PuzzleIssues.Link(issue, false, this.sha)
+                );
+            }
+        }
+    }
+}
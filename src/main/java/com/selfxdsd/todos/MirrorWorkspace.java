@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+/**
+ * Workspace which keeps one bare mirror per provider/repoFullName in
+ * ~/self-todos-mirrors on the PDD host. Each review only fetches what
+ * changed since the previous one and checks the pushed commit out in a
+ * git worktree (with {@link PathRules}, only the included paths are
+ * checked out). Mirrors which have not been used for a number of days are
+ * evicted when a review ends, holding the same lock as the fetch; a mirror
+ * which is locked is left for the next review to evict. The lock files are
+ * kept, so a review waiting for a lock never holds a deleted one.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class MirrorWorkspace implements Workspace {
+
+    /**
+     * Commit which triggered everything, it is the one checked out.
+     */
+    private final Commit commit;
+
+    /**
+     * Mirrors not used for more than this many days are removed.
+     */
+    private final int ttl;
+
+    /**
+     * Which paths are checked out.
+     */
+    private final PathRules rules;
+
+    /**
+     * Ctor.
+     * @param commit Commit which triggered everything.
+     * @param ttl Days after which an unused mirror is removed.
+     */
+    public MirrorWorkspace(final Commit commit, final int ttl) {
+        this(commit, ttl, new PathRules("", ""));
+    }
+
+    /**
+     * Ctor.
+     * @param commit Commit which triggered everything.
+     * @param ttl Days after which an unused mirror is removed.
+     * @param rules Which paths are checked out.
+     */
+    public MirrorWorkspace(
+        final Commit commit,
+        final int ttl,
+        final PathRules rules
+    ) {
+        this.commit = commit;
+        this.ttl = ttl;
+        this.rules = rules;
+    }
+
+    @Override
+    public String open(final String id, final Project project) {
+        String sha = this.commit.shaRef();
+        if(sha == null || sha.isEmpty()) {
+            sha = "HEAD";
+        }
+        String flags = "";
+        String checkout = "";
+        if(!this.rules.all()) {
+            flags = "--no-checkout ";
+            checkout = "\n" + this.rules.checkout();
+        }
+        return String.format(
+            new BufferedReader(
+                new InputStreamReader(
+                    this.getClass().getClassLoader()
+                        .getResourceAsStream("mirrorRepo.sh"),
+                    StandardCharsets.UTF_8
+                )
+            ).lines().collect(Collectors.joining("\n")),
+            id,
+            project.provider() + "-" + project.projectManager().username(),
+            this.mirror(project),
+            project.repoFullName(),
+            sha,
+            flags
+        ) + checkout;
+    }
+
+    @Override
+    public String close(final String id, final Project project) {
+        return String.join(
+            "\n",
+            "git --git-dir=\"" + this.mirror(project) + "\" worktree remove"
+            + " --force self-todos-tmp-" + id + "/repo",
+            "rm -rf self-todos-tmp-" + id,
+            "git --git-dir=\"" + this.mirror(project) + "\" worktree prune",
+            "find \"$HOME/self-todos-mirrors\" -name '*.git' -type d -prune"
+            + " -mtime +" + this.ttl + " -exec sh -c 'for M; do ("
+            + " flock -n 9 || exit 0;"
+            + " if [ -n \"$(find \"$M\" -maxdepth 0 -mtime +" + this.ttl
+            + ")\" ]; then rm -rf \"$M\"; fi"
+            + " ) 9>\"$M.lock\"; done' sh {} +"
+        );
+    }
+
+    /**
+     * Location of the Project's mirror on the PDD host.
+     * @param project Project.
+     * @return Path of the bare mirror.
+     */
+    private String mirror(final Project project) {
+        return "$HOME/self-todos-mirrors/" + project.provider()
+            + "/" + project.repoFullName() + ".git";
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Which paths of a repository are checked out and scanned, given as comma
+ * separated include and exclude globs, with the syntax of .gitignore: a
+ * pattern without a slash (or with only a trailing one) matches at any
+ * depth, "**" matches across directories and matching a directory
+ * matches everything in it. Without includes, everything is included.
+ * <br><br>
+ * The workspaces turn them into a sparse checkout, so the excluded files
+ * are never written on disk; {@link TreePuzzles} applies them as well.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class PathRules {
+
+    /**
+     * Include patterns.
+     */
+    private final List<String> include;
+
+    /**
+     * Exclude patterns.
+     */
+    private final List<String> exclude;
+
+    /**
+     * Matchers of the include patterns.
+     */
+    private final List<PathMatcher> includes;
+
+    /**
+     * Matchers of the exclude patterns.
+     */
+    private final List<PathMatcher> excludes;
+
+    /**
+     * Ctor.
+     * @param include Comma separated include patterns.
+     * @param exclude Comma separated exclude patterns.
+     */
+    public PathRules(final String include, final String exclude) {
+        this.include = PathRules.patterns(include);
+        this.exclude = PathRules.patterns(exclude);
+        this.includes = PathRules.matchers(this.include);
+        this.excludes = PathRules.matchers(this.exclude);
+    }
+
+    /**
+     * Is everything included?
+     * @return True if there are no rules.
+     */
+    public boolean all() {
+        return this.include.isEmpty() && this.exclude.isEmpty();
+    }
+
+    /**
+     * Is this path (file or directory) excluded?
+     * @param path Path relative to the root of the repository.
+     * @return True or false.
+     */
+    public boolean excluded(final String path) {
+        return PathRules.matches(this.excludes, path);
+    }
+
+    /**
+     * Should this file be scanned?
+     * @param path Path relative to the root of the repository.
+     * @return True or false.
+     */
+    public boolean accepts(final String path) {
+        return (this.includes.isEmpty()
+            || PathRules.matches(this.includes, path))
+            && !this.excluded(path);
+    }
+
+    /**
+     * Commands which check out HEAD with these rules, in a repository
+     * cloned (or a worktree added) without checkout.
+     * @return Shell commands.
+     */
+    public String checkout() {
+        final StringBuilder script = new StringBuilder()
+            .append("SPARSE=\"$(git rev-parse --git-path")
+            .append(" info/sparse-checkout)\"\n")
+            .append("mkdir -p \"$(dirname \"$SPARSE\")\"\n")
+            .append("cat > \"$SPARSE\" <<'SELF_TODOS_SPARSE'\n");
+        if(this.include.isEmpty()) {
+            script.append("/*\n");
+        }
+        for(final String pattern : this.include) {
+            script.append(pattern).append('\n');
+        }
+        for(final String pattern : this.exclude) {
+            script.append('!').append(pattern).append('\n');
+        }
+        return script.append("SELF_TODOS_SPARSE\n")
+            .append("git -c core.sparseCheckout=true read-tree -mu HEAD")
+            .toString();
+    }
+
+    /**
+     * Split comma separated patterns.
+     * @param spec Patterns.
+     * @return List of patterns.
+     */
+    private static List<String> patterns(final String spec) {
+        final List<String> patterns = new ArrayList<>();
+        for(final String pattern : spec.split(",")) {
+            if(!pattern.isBlank()) {
+                patterns.add(pattern.trim());
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Glob matchers equivalent to the .gitignore patterns.
+     * @param patterns Patterns.
+     * @return Matchers.
+     */
+    private static List<PathMatcher> matchers(final List<String> patterns) {
+        final List<PathMatcher> matchers = new ArrayList<>();
+        for(final String pattern : patterns) {
+            String glob = pattern;
+            while (glob.endsWith("/")) {
+                glob = glob.substring(0, glob.length() - 1);
+            }
+            final boolean anchored = glob.contains("/");
+            while (glob.startsWith("/")) {
+                glob = glob.substring(1);
+            }
+            final List<String> globs = new ArrayList<>(
+                List.of(glob, glob + "/**")
+            );
+            if(!anchored) {
+                globs.add("**/" + glob);
+                globs.add("**/" + glob + "/**");
+            }
+            for(final String each : globs) {
+                matchers.add(
+                    FileSystems.getDefault().getPathMatcher("glob:" + each)
+                );
+            }
+        }
+        return matchers;
+    }
+
+    /**
+     * Does any of the matchers match the path?
+     * @param matchers Matchers.
+     * @param path Path.
+     * @return True or false.
+     */
+    private static boolean matches(
+        final List<PathMatcher> matchers,
+        final String path
+    ) {
+        final Path relative = Path.of(path);
+        boolean matches = false;
+        for(final PathMatcher matcher : matchers) {
+            matches = matches || matcher.matches(relative);
+        }
+        return matches;
+    }
+}
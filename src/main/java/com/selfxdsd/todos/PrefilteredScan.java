@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+/**
+ * Scan which first removes, from the checked out tree, the files where
+ * `git grep` doesn't find the to-do marker, so the scanner only reads
+ * the files which may contain puzzles. The .git directory is left in
+ * place. The script exits as soon as a step fails (not in a repository,
+ * git grep error), so nothing is removed from an unexpected directory
+ * and no partial tree is scanned.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class PrefilteredScan implements Scan {
+
+    /**
+     * Decorated scan.
+     */
+    private final Scan origin;
+
+    /**
+     * Ctor.
+     * @param origin Decorated scan.
+     */
+    public PrefilteredScan(final Scan origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public String command() {
+        return String.join(
+            "\n",
+            "TOP=$(git rev-parse --show-toplevel) || exit 1",
+            "cd \"$TOP\" || exit 1",
+            "UNTOUCHED=$(git rev-parse --git-path self-todos-untouched)"
+                + " || exit 1",
+            "git grep -L -z -e '[@]todo' > \"$UNTOUCHED\""
+                + " || [ $? -eq 1 ] || exit 1",
+            "xargs -0 -r rm -f -- < \"$UNTOUCHED\" || exit 1",
+            this.origin.command()
+        );
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Per-Project settings, read from the properties file indicated by
+ * {@link TodosEnv#PROJECT_SETTINGS}. A setting is looked up with the
+ * Project's key first and then globally, for instance:
+ * <pre>
+ * clone=full
+ * github/john/test.clone=shallow,skip-lfs
+ * </pre>
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+@Component
+public class ProjectSettings {
+
+    /**
+     * Settings.
+     */
+    private final Properties properties;
+
+    /**
+     * Default constructor for Spring.
+     * @throws IOException If the settings file cannot be read.
+     */
+    public ProjectSettings() throws IOException {
+        this(ProjectSettings.load(System.getenv(TodosEnv.PROJECT_SETTINGS)));
+    }
+
+    /**
+     * Constructor.
+     * @param properties Settings.
+     */
+    public ProjectSettings(final Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Value of a setting for the given Project.
+     * @param project Project.
+     * @param key Name of the setting.
+     * @param def Value returned if the setting is missing.
+     * @return Value.
+     */
+    public String value(
+        final Project project,
+        final String key,
+        final String def
+    ) {
+        return this.value(
+            project.provider() + "/" + project.repoFullName(), key, def
+        );
+    }
+
+    /**
+     * Value of a setting for the given Project.
+     * @param project Provider and full name of the Project's repository,
+     *  e.g. github/john/test.
+     * @param key Name of the setting.
+     * @param def Value returned if the setting is missing.
+     * @return Value.
+     */
+    public String value(
+        final String project,
+        final String key,
+        final String def
+    ) {
+        return this.properties.getProperty(
+            project + "." + key,
+            this.properties.getProperty(key, def)
+        );
+    }
+
+    /**
+     * Load the settings file.
+     * @param location Path of the file, can be null.
+     * @return Properties, empty if there is no file.
+     * @throws IOException If the file cannot be read.
+     */
+    private static Properties load(final String location)
+        throws IOException {
+        final Properties loaded = new Properties();
+        if(location != null && !location.isEmpty()) {
+            try (Reader reader = Files.newBufferedReader(
+                Path.of(location), StandardCharsets.UTF_8
+            )) {
+                loaded.load(reader);
+            }
+        }
+        return loaded;
+    }
+}
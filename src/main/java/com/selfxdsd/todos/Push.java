@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import java.io.StringReader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * The changes brought by a push, as described by the payload of the
+ * GitHub or GitLab push event: the branch, the commit before and after it
+ * and the files added, modified or removed by its commits.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class Push {
+
+    /**
+     * Both GitHub and GitLab list at most this many commits in the payload.
+     */
+    private static final int MAX_COMMITS = 20;
+
+    /**
+     * What a commit sha looks like; anything else is not trusted in a
+     * shell command.
+     */
+    private static final Pattern SHA = Pattern.compile("[0-9a-fA-F]{1,64}");
+
+    /**
+     * Payload of the push event, parsed once.
+     */
+    private final JsonObject json;
+
+    /**
+     * Ctor.
+     * @param payload Payload of the push event.
+     */
+    public Push(final String payload) {
+        this.json = Push.parse(payload);
+    }
+
+    /**
+     * Does this push only add commits on top of the given one, with all of
+     * them listed in the payload? If so, {@link #paths()} are the only
+     * files which changed since that commit.
+     * @param sha Commit.
+     * @return True or false.
+     */
+    public boolean continues(final String sha) {
+        final JsonArray commits = Push.commits(this.json);
+        final String before = this.json.getString("before", "");
+        final boolean follows = sha != null && sha.equals(before)
+            && Push.SHA.matcher(before).matches();
+        return follows && !this.json.getBoolean("forced", false)
+            && Push.complete(this.json, commits);
+    }
+
+    /**
+     * Commit which must be an ancestor of the pushed one for
+     * {@link #paths()} to be all the changes: the commit before the push,
+     * if the payload doesn't say whether the push was forced (GitLab).
+     * @return Sha or null if the payload says it.
+     */
+    public String ancestor() {
+        String ancestor = null;
+        final String before = this.json.getString("before", "");
+        if(!this.json.containsKey("forced")
+            && Push.SHA.matcher(before).matches()) {
+            ancestor = before;
+        }
+        return ancestor;
+    }
+
+    /**
+     * Pushed ref.
+     * @return Ref, like refs/heads/master, or null if the payload doesn't
+     *  say.
+     */
+    public String ref() {
+        return this.json.getString("ref", null);
+    }
+
+    /**
+     * Was the default branch of the repository pushed? It's the branch
+     * which is cloned and scanned.
+     * @return True or false; false if the payload doesn't say.
+     */
+    public boolean onDefaultBranch() {
+        String branch = Push.text(this.json, "repository", "default_branch");
+        if(branch == null) {
+            branch = Push.text(this.json, "project", "default_branch");
+        }
+        return branch != null && ("refs/heads/" + branch).equals(this.ref());
+    }
+
+    /**
+     * Commit after the push.
+     * @return Sha or null if the payload doesn't say.
+     */
+    public String after() {
+        return this.json.getString("after", null);
+    }
+
+    /**
+     * Size of the repository, as reported by GitHub in the payload (GitLab
+     * doesn't report it).
+     * @return Bytes or -1 if the payload doesn't say.
+     */
+    public long size() {
+        final JsonValue repo = this.json.get("repository");
+        long size = -1;
+        if (repo != null && repo.getValueType() == JsonValue.ValueType.OBJECT) {
+            final JsonValue kbytes = repo.asJsonObject().get("size");
+            if (kbytes != null
+                && kbytes.getValueType() == JsonValue.ValueType.NUMBER) {
+                size = ((JsonNumber) kbytes).longValue() * 1024L;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Paths of the files added, modified or removed by the push, relative
+     * to the root of the repository.
+     * @return Paths.
+     */
+    public Set<String> paths() {
+        final Set<String> paths = new TreeSet<>();
+        for(final JsonValue commit : Push.commits(this.json)) {
+            for(final String key : new String[]{
+                "added", "modified", "removed",
+            }) {
+                Push.files(commit.asJsonObject().get(key), paths);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Text attribute of an object of the payload.
+     * @param json Payload.
+     * @param object Name of the object.
+     * @param name Name of the attribute.
+     * @return Text or null if there is none.
+     */
+    private static String text(
+        final JsonObject json, final String object, final String name
+    ) {
+        final JsonValue value = json.get(object);
+        String text = null;
+        if (value != null
+            && value.getValueType() == JsonValue.ValueType.OBJECT) {
+            text = value.asJsonObject().getString(name, null);
+        }
+        return text;
+    }
+
+    /**
+     * Add the files listed in an array of the payload.
+     * @param files Array of files.
+     * @param paths Where to add them.
+     */
+    private static void files(final JsonValue files, final Set<String> paths) {
+        if(files instanceof JsonArray) {
+            for(final JsonValue file : (JsonArray) files) {
+                paths.add(((JsonString) file).getString());
+            }
+        }
+    }
+
+    /**
+     * Are all the commits of the push listed in the payload?
+     * @param json Payload.
+     * @param commits Listed commits.
+     * @return True or false.
+     */
+    private static boolean complete(
+        final JsonObject json, final JsonArray commits
+    ) {
+        final boolean complete;
+        if(json.containsKey("total_commits_count")) {
+            complete = json.getInt("total_commits_count") == commits.size();
+        } else {
+            complete = commits.size() < Push.MAX_COMMITS;
+        }
+        return complete;
+    }
+
+    /**
+     * Parse the payload.
+     * @param payload Payload of the push event.
+     * @return JsonObject, empty if the payload is not a JSON object.
+     */
+    private static JsonObject parse(final String payload) {
+        JsonObject json;
+        try (JsonReader reader = Json.createReader(
+            new StringReader(payload)
+        )) {
+            json = reader.readObject();
+        } catch (final JsonException | IllegalStateException ex) {
+            json = JsonValue.EMPTY_JSON_OBJECT;
+        }
+        return json;
+    }
+
+    /**
+     * Commits listed in the payload.
+     * @param json Payload.
+     * @return Commits.
+     */
+    private static JsonArray commits(final JsonObject json) {
+        final JsonArray commits;
+        if(json.get("commits") instanceof JsonArray) {
+            commits = json.getJsonArray("commits");
+        } else {
+            commits = JsonValue.EMPTY_JSON_ARRAY;
+        }
+        return commits;
+    }
+}
@@ -0,0 +1,497 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Which Issue belongs to which puzzle, for each Project. With it, a
+ * review only compares the puzzles with what it knows and contacts the
+ * provider to open or close Issues; a push which doesn't add or remove
+ * puzzles makes no calls at all. The Issues are still searched, and the
+ * mapping verified, once it is older than the verification interval,
+ * which also picks up Issues closed or reopened by hand. The mappings are
+ * saved as JSON lines, loaded at startup: each change is appended to the
+ * file right away, so a restart never trusts an outdated mapping, and the
+ * file is compacted from time to time.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+@Component
+public class PuzzleIssues {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        PuzzleIssues.class
+    );
+
+    /**
+     * File where the mappings are saved.
+     */
+    private final Path file;
+
+    /**
+     * How long a mapping is trusted before the Issues are searched again.
+     */
+    private final Duration verify;
+
+    /**
+     * Mappings by Project (provider/owner/name).
+     */
+    private final Map<String, Mapping> projects;
+
+    /**
+     * Were lines appended since it was loaded or compacted?
+     */
+    private boolean dirty;
+
+    /**
+     * Ctor. The file is read from {@link TodosEnv#PUZZLE_ISSUES} (defaults
+     * to self-todos-issues.jsonl in the temporary directory) and the
+     * verification interval from {@link TodosEnv#PUZZLE_ISSUES_VERIFY}
+     * (hours, defaults to 24).
+     */
+    public PuzzleIssues() {
+        this(
+            Path.of(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.PUZZLE_ISSUES),
+                    Path.of(
+                        System.getProperty("java.io.tmpdir"),
+                        "self-todos-issues.jsonl"
+                    ).toString()
+                )
+            ),
+            Duration.ofHours(
+                Long.parseLong(
+                    Objects.requireNonNullElse(
+                        System.getenv(TodosEnv.PUZZLE_ISSUES_VERIFY), "24"
+                    )
+                )
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param file File where the mappings are saved, null to keep them
+     *  in memory only.
+     * @param verify How long a mapping is trusted; zero disables the
+     *  mappings, every review searches the Issues.
+     */
+    public PuzzleIssues(final Path file, final Duration verify) {
+        this.file = file;
+        this.verify = verify;
+        this.projects = new LinkedHashMap<>();
+    }
+
+    /**
+     * Are the mappings used at all?
+     * @return True or false.
+     */
+    public boolean enabled() {
+        return !this.verify.isZero();
+    }
+
+    /**
+     * Load the saved mappings, if any. Lines which cannot be read are
+     * skipped.
+     */
+    @PostConstruct
+    public void load() {
+        if(this.enabled() && this.file != null
+            && Files.isRegularFile(this.file)) {
+            try (BufferedReader reader = Files.newBufferedReader(
+                this.file, StandardCharsets.UTF_8
+            )) {
+                String line = reader.readLine();
+                while (line != null) {
+                    this.load(line);
+                    line = reader.readLine();
+                }
+            } catch (final IOException ex) {
+                LOG.warn("Could not load the puzzle Issues.", ex);
+            }
+        }
+    }
+
+    /**
+     * Compact the file, if lines were appended to it: it's replaced
+     * atomically with the last mapping of each Project.
+     * @throws IOException If it cannot be written.
+     */
+    @Scheduled(fixedDelay = 300_000)
+    @PreDestroy
+    public void save() throws IOException {
+        synchronized (this.projects) {
+            if(this.dirty && this.file != null) {
+                final Path temp = this.file.resolveSibling(
+                    this.file.getFileName() + ".tmp"
+                );
+                try (BufferedWriter writer = Files.newBufferedWriter(
+                    temp, StandardCharsets.UTF_8
+                )) {
+                    for(final Map.Entry<String, Mapping> project
+                        : this.projects.entrySet()) {
+                        writer.write(
+                            project.getValue().json(project.getKey())
+                                .toString()
+                        );
+                        writer.newLine();
+                    }
+                }
+                Files.move(
+                    temp,
+                    this.file,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE
+                );
+                this.dirty = false;
+            }
+        }
+    }
+
+    /**
+     * The Issue of each puzzle of a Project, if they can be trusted.
+     * @param project Project (provider/owner/name).
+     * @return Issues by puzzle id, a copy, or null if the Project is not
+     *  known or its Issues have to be verified.
+     */
+    Map<String, Link> known(final String project) {
+        Map<String, Link> links = null;
+        if(this.enabled()) {
+            synchronized (this.projects) {
+                final Mapping mapping = this.projects.get(project);
+                if(mapping != null && mapping.verified.plus(this.verify)
+                    .isAfter(Instant.now())) {
+                    links = new LinkedHashMap<>(mapping.links);
+                }
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Remember the Issues of a Project, as found in the provider.
+     * @param project Project (provider/owner/name).
+     * @param links Issues by puzzle id.
+     */
+    void verified(final String project, final Map<String, Link> links) {
+        this.put(project, new Mapping(links, Instant.now()));
+    }
+
+    /**
+     * Remember the Issues of a Project, after a review which didn't
+     * search them. If each puzzle still has the same Issue, nothing is
+     * appended to the file; the commits where the puzzles were last seen
+     * are only saved when it's compacted.
+     * @param project Project (provider/owner/name).
+     * @param links Issues by puzzle id.
+     */
+    void update(final String project, final Map<String, Link> links) {
+        if(this.enabled()) {
+            synchronized (this.projects) {
+                final Mapping mapping = this.projects.get(project);
+                if(mapping == null) {
+                    this.put(project, new Mapping(links, Instant.EPOCH));
+                } else if(mapping.same(links)) {
+                    this.projects.put(
+                        project, new Mapping(links, mapping.verified)
+                    );
+                    this.dirty = this.file != null;
+                } else {
+                    this.put(project, new Mapping(links, mapping.verified));
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget the Issues of a Project, the next review searches them.
+     * @param project Project (provider/owner/name).
+     */
+    void forget(final String project) {
+        synchronized (this.projects) {
+            if(this.projects.containsKey(project)) {
+                this.put(project, new Mapping(Map.of(), Instant.EPOCH));
+            }
+        }
+    }
+
+    /**
+     * Remember a mapping and append it to the file; when loading, the
+     * last line of each Project wins.
+     * @param project Project (provider/owner/name).
+     * @param mapping Mapping.
+     */
+    private void put(final String project, final Mapping mapping) {
+        if(this.enabled()) {
+            synchronized (this.projects) {
+                this.projects.put(project, mapping);
+                if(this.file != null) {
+                    this.dirty = true;
+                    try {
+                        Files.writeString(
+                            this.file,
+                            mapping.json(project).toString() + "\n",
+                            StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.APPEND
+                        );
+                    } catch (final IOException ex) {
+                        LOG.warn(
+                            "Could not save the puzzle Issues of "
+                            + project, ex
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the mapping saved in a line.
+     * @param line Line of the file.
+     */
+    private void load(final String line) {
+        try {
+            final JsonObject json = Json.createReader(
+                new StringReader(line)
+            ).readObject();
+            final Map<String, Link> links = new LinkedHashMap<>();
+            final JsonObject puzzles = json.getJsonObject("puzzles");
+            for(final String id : puzzles.keySet()) {
+                links.put(id, new Link(puzzles.getJsonObject(id)));
+            }
+            synchronized (this.projects) {
+                this.projects.put(
+                    json.getString("project"),
+                    new Mapping(
+                        links,
+                        Instant.ofEpochMilli(
+                            json.getJsonNumber("verified").longValue()
+                        )
+                    )
+                );
+            }
+        } catch (final JsonException | ClassCastException
+            | NullPointerException ex) {
+            LOG.warn("Skipping unreadable puzzle Issues: " + line);
+        }
+    }
+
+    /**
+     * The Issue of a puzzle.
+     */
+    static final class Link {
+
+        /**
+         * Id of the Issue.
+         */
+        private final String issue;
+
+        /**
+         * Is the Issue closed?
+         */
+        private final boolean closed;
+
+        /**
+         * Last commit where the puzzle was seen.
+         */
+        private final String commit;
+
+        /**
+         * Ctor.
+         * @param issue Id of the Issue.
+         * @param closed Is the Issue closed?
+         * @param commit Last commit where the puzzle was seen.
+         */
+        Link(final String issue, final boolean closed, final String commit) {
+            this.issue = issue;
+            this.closed = closed;
+            this.commit = commit;
+        }
+
+        /**
+         * Ctor.
+         * @param json Link as saved.
+         */
+        Link(final JsonObject json) {
+            this(
+                json.getString("issue"),
+                json.getBoolean("closed"),
+                json.getString("commit", "")
+            );
+        }
+
+        /**
+         * Id of the Issue.
+         * @return Id.
+         */
+        String issueId() {
+            return this.issue;
+        }
+
+        /**
+         * Is the Issue closed?
+         * @return True or false.
+         */
+        boolean isClosed() {
+            return this.closed;
+        }
+
+        /**
+         * Last commit where the puzzle was seen.
+         * @return SHA of the commit.
+         */
+        String commit() {
+            return this.commit;
+        }
+
+        /**
+         * Is it the same Issue, in the same state?
+         * @param other Other link.
+         * @return True or false.
+         */
+        boolean same(final Link other) {
+            return other != null && this.issue.equals(other.issue)
+                && this.closed == other.closed;
+        }
+
+        /**
+         * The puzzle was seen in a commit.
+         * @param sha SHA of the commit.
+         * @return Link.
+         */
+        Link seen(final String sha) {
+            return new Link(this.issue, this.closed, sha);
+        }
+
+        /**
+         * The Issue was closed.
+         * @return Link.
+         */
+        Link close() {
+            return new Link(this.issue, true, this.commit);
+        }
+
+        /**
+         * This link as JSON.
+         * @return JsonObject.
+         */
+        JsonObject json() {
+            return Json.createObjectBuilder()
+                .add("issue", this.issue)
+                .add("closed", this.closed)
+                .add("commit", Objects.requireNonNullElse(this.commit, ""))
+                .build();
+        }
+    }
+
+    /**
+     * The Issues of a Project and when they were last verified.
+     */
+    private static final class Mapping {
+
+        /**
+         * Issues by puzzle id.
+         */
+        private final Map<String, Link> links;
+
+        /**
+         * When the Issues were last searched.
+         */
+        private final Instant verified;
+
+        /**
+         * Ctor.
+         * @param links Issues by puzzle id.
+         * @param verified When the Issues were last searched.
+         */
+        Mapping(final Map<String, Link> links, final Instant verified) {
+            this.links = Collections.unmodifiableMap(
+                new LinkedHashMap<>(links)
+            );
+            this.verified = verified;
+        }
+
+        /**
+         * Does it link the same puzzles to the same Issues?
+         * @param others Issues by puzzle id.
+         * @return True or false.
+         */
+        boolean same(final Map<String, Link> others) {
+            boolean same = this.links.size() == others.size();
+            for(final Map.Entry<String, Link> link : others.entrySet()) {
+                same = same
+                    && link.getValue().same(this.links.get(link.getKey()));
+            }
+            return same;
+        }
+
+        /**
+         * This mapping as JSON.
+         * @param project Project (provider/owner/name).
+         * @return JsonObject.
+         */
+        JsonObject json(final String project) {
+            final JsonObjectBuilder puzzles = Json.createObjectBuilder();
+            for(final Map.Entry<String, Link> link : this.links.entrySet()) {
+                puzzles.add(link.getKey(), link.getValue().json());
+            }
+            return Json.createObjectBuilder()
+                .add("project", project)
+                .add("verified", this.verified.toEpochMilli())
+                .add("puzzles", puzzles)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The puzzles found by the last review of each Project and branch, kept
+ * in memory so the next review of the branch can only rescan the files
+ * changed in between. Only the most recently reviewed branches are kept.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+@Component
+public class PuzzleSnapshots {
+
+    /**
+     * Snapshots, from the least to the most recently used.
+     */
+    private final Map<String, Snapshot> snapshots;
+
+    /**
+     * Ctor. The number of branches is read from
+     * {@link TodosEnv#SNAPSHOTS}, 1000 by default.
+     */
+    public PuzzleSnapshots() {
+        this(
+            Integer.parseInt(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.SNAPSHOTS), "1000"
+                )
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param max Maximum number of branches to keep.
+     */
+    public PuzzleSnapshots(final int max) {
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, Snapshot> eldest
+            ) {
+                return this.size() > max;
+            }
+        };
+    }
+
+    /**
+     * Last snapshot of the pushed branch.
+     * @param project Project.
+     * @param push Push.
+     * @return Snapshot or null if there is none.
+     */
+    public Snapshot get(final Project project, final Push push) {
+        synchronized (this.snapshots) {
+            return this.snapshots.get(PuzzleSnapshots.key(project, push));
+        }
+    }
+
+    /**
+     * Remember the puzzles of the pushed branch, at the commit after the
+     * push.
+     * @param project Project.
+     * @param push Push.
+     * @param puzzles Puzzles.
+     */
+    public void put(
+        final Project project,
+        final Push push,
+        final List<Puzzle> puzzles
+    ) {
+        final List<Stored> stored = new ArrayList<>(puzzles.size());
+        for(final Puzzle puzzle : puzzles) {
+            stored.add(new Stored(puzzle));
+        }
+        synchronized (this.snapshots) {
+            this.snapshots.put(
+                PuzzleSnapshots.key(project, push),
+                new Snapshot(push.after(), List.copyOf(stored))
+            );
+        }
+    }
+
+    /**
+     * Key of the pushed branch.
+     * @param project Project.
+     * @param push Push.
+     * @return Provider, full name of the repository and ref.
+     */
+    private static String key(final Project project, final Push push) {
+        return project.provider() + "/" + project.repoFullName() + " "
+            + push.ref();
+    }
+
+    /**
+     * Puzzles of a Project at a given commit.
+     */
+    public static final class Snapshot {
+
+        /**
+         * Commit.
+         */
+        private final String sha;
+
+        /**
+         * Puzzles.
+         */
+        private final List<Stored> puzzles;
+
+        /**
+         * Ctor.
+         * @param sha Commit.
+         * @param puzzles Puzzles.
+         */
+        Snapshot(final String sha, final List<Stored> puzzles) {
+            this.sha = sha;
+            this.puzzles = puzzles;
+        }
+
+        /**
+         * Commit.
+         * @return Sha.
+         */
+        public String sha() {
+            return this.sha;
+        }
+
+        /**
+         * Puzzles, rebuilt for the given review.
+         * @param project Project of the review.
+         * @param head Commit the puzzles' Issues will link to.
+         * @return Puzzles.
+         */
+        public List<Puzzle> puzzles(final Project project, final Commit head) {
+            final List<Puzzle> rebuilt = new ArrayList<>(this.puzzles.size());
+            for(final Stored puzzle : this.puzzles) {
+                rebuilt.add(puzzle.rebuild(project, head));
+            }
+            return rebuilt;
+        }
+    }
+
+    /**
+     * What is kept of a puzzle.
+     */
+    private static final class Stored {
+
+        /**
+         * Id.
+         */
+        private final String id;
+
+        /**
+         * Ticket.
+         */
+        private final int ticket;
+
+        /**
+         * Body.
+         */
+        private final String body;
+
+        /**
+         * Estimate in minutes.
+         */
+        private final int estimate;
+
+        /**
+         * File.
+         */
+        private final String file;
+
+        /**
+         * Start line.
+         */
+        private final int start;
+
+        /**
+         * End line.
+         */
+        private final int end;
+
+        /**
+         * Role.
+         */
+        private final String role;
+
+        /**
+         * Author.
+         */
+        private final String author;
+
+        /**
+         * Author's email.
+         */
+        private final String email;
+
+        /**
+         * Time.
+         */
+        private final String time;
+
+        /**
+         * Ctor.
+         * @param puzzle Puzzle to keep.
+         */
+        Stored(final Puzzle puzzle) {
+            this.id = puzzle.getId();
+            this.ticket = puzzle.getTicket();
+            this.body = puzzle.getBody();
+            this.estimate = puzzle.getEstimate();
+            this.file = puzzle.getFile();
+            this.start = puzzle.getStart();
+            this.end = puzzle.getEnd();
+            this.role = puzzle.getRole();
+            this.author = puzzle.getAuthor();
+            this.email = puzzle.getEmail();
+            this.time = puzzle.getTime();
+        }
+
+        /**
+         * Puzzle of the given review.
+         * @param project Project.
+         * @param head Commit.
+         * @return Puzzle.
+         */
+        Puzzle rebuild(final Project project, final Commit head) {
+            return new Puzzle.Builder()
+                .setProject(project)
+                .setCommit(head)
+                .setId(this.id)
+                .setTicket(this.ticket)
+                .setBody(this.body)
+                .setEstimate(this.estimate)
+                .setFile(this.file)
+                .setStart(this.start)
+                .setEnd(this.end)
+                .setRole(this.role)
+                .setAuthor(this.author)
+                .setEmail(this.email)
+                .setTime(this.time)
+                .build();
+        }
+    }
+}
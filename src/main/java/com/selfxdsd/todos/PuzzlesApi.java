@@ -27,13 +27,18 @@ import com.selfxdsd.api.Provider;
 import com.selfxdsd.api.Self;
 import com.selfxdsd.core.projects.WebhookEvents;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+
 /**
  * Puzzles REST Controller.
  *
@@ -54,19 +59,36 @@ public class PuzzlesApi {
      */
     private final PuzzlesComponent puzzlesComponent;
 
+    /**
+     * Queue of the reviews done in the background.
+     */
+    private final ReviewQueue reviews;
+
+    /**
+     * Admission control of the reviews.
+     */
+    private final Admission admission;
+
     /**
      * Ctor.
      *
      * @param selfCode Self Core, injected by Spring automatically.
      * @param puzzlesComponent Puzzles Component.
+     * @param reviews Queue of the reviews done in the background.
+     * @param admission Admission control of the reviews.
+     * @checkstyle ParameterNumber (20 lines)
      */
     @Autowired
     public PuzzlesApi(
         final Self selfCode,
-        final PuzzlesComponent puzzlesComponent
+        final PuzzlesComponent puzzlesComponent,
+        final ReviewQueue reviews,
+        final Admission admission
     ) {
         this.selfCore = selfCode;
         this.puzzlesComponent = puzzlesComponent;
+        this.reviews = reviews;
+        this.admission = admission;
     }
 
     /**
@@ -74,6 +96,17 @@ public class PuzzlesApi {
      * This endpoint should be called internally by self-pm, which should
      * forward the "push" event to it.<br><br>
      *
+     * If the reviews are done in the background (see
+     * {@link TodosEnv#REVIEW_THREADS}), the review is only enqueued and
+     * the response is 202 Accepted, with the job's status and its location.
+     * If the queue is full, the response is 503 Service Unavailable.<br><br>
+     *
+     * The review must also be admitted by the {@link Admission} control:
+     * if too many reviews are in flight, the response is 429 Too Many
+     * Requests; if there is not enough disk or heap for the repository, it
+     * is 503 Service Unavailable. Both say when to retry, in the
+     * Retry-After header.
+     *
      * @param provider Provider name (github, gitlab etc).
      * @param owner Owner login (user or organization name).
      * @param name Simple name of the repository.
@@ -96,20 +129,135 @@ public class PuzzlesApi {
         final Project project = this.selfCore.projects().getProjectById(
             owner + "/" + name, provider
         );
+        final String type = PuzzlesApi.eventType(provider);
         if (project == null) {
             resp = ResponseEntity.badRequest().build();
+        } else if (type == null) {
+            resp = ResponseEntity.ok().build();
         } else {
-            if (provider.equalsIgnoreCase(Provider.Names.GITHUB)) {
-                this.puzzlesComponent.review(
-                    WebhookEvents.create(project, "push", payload)
-                );
-            } else if (provider.equalsIgnoreCase(Provider.Names.GITLAB)) {
-                this.puzzlesComponent.review(
-                    WebhookEvents.create(project, "Push Hook", payload)
-                );
+            final Admission.Ticket ticket = this.admission.admit(
+                new Push(payload)
+            );
+            if (ticket.refusal() != null) {
+                resp = this.refused(ticket.refusal());
+            } else if (this.reviews.enabled()) {
+                resp = this.enqueue(project, type, payload, ticket);
+            } else {
+                try (ticket) {
+                    this.puzzlesComponent.review(
+                        WebhookEvents.create(project, type, payload),
+                        new Push(payload)
+                    );
+                }
+                resp = ResponseEntity.ok().build();
             }
-            resp = ResponseEntity.ok().build();
         }
         return resp;
     }
+
+    /**
+     * Status and timing of a review done in the background.
+     * @param id Id of the review job.
+     * @return Response OK with the job as JSON or NOT FOUND if the job
+     *  is unknown (or too old).
+     */
+    @GetMapping(
+        value = "/pdd/jobs/{id}",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<String> reviewJob(@PathVariable final String id) {
+        final ResponseEntity<String> resp;
+        final ReviewJob job = this.reviews.job(id);
+        if (job == null) {
+            resp = ResponseEntity.notFound().build();
+        } else {
+            resp = ResponseEntity.ok(job.json().toString());
+        }
+        return resp;
+    }
+
+    /**
+     * Statistics of the reviews done in the background: for each
+     * repository, how many reviews are waiting and for how long.
+     * @return Response OK with the statistics as JSON.
+     */
+    @GetMapping(
+        value = "/pdd/queue",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<String> reviewQueue() {
+        return ResponseEntity.ok(this.reviews.json().toString());
+    }
+
+    /**
+     * Enqueue the review of a push.
+     * @param project Project.
+     * @param type Type of the webhook event.
+     * @param payload Payload of the push.
+     * @param ticket Admission of the review, held until it's over.
+     * @return Response ACCEPTED or SERVICE UNAVAILABLE if the queue is full.
+     * @checkstyle ParameterNumber (40 lines)
+     */
+    private ResponseEntity<String> enqueue(
+        final Project project,
+        final String type,
+        final String payload,
+        final Admission.Ticket ticket
+    ) {
+        final ResponseEntity<String> resp;
+        final ReviewJob job = this.reviews.submit(project, type, payload);
+        if (job == null) {
+            ticket.close();
+            resp = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(
+                    HttpHeaders.RETRY_AFTER,
+                    String.valueOf(this.admission.retryAfter())
+                )
+                .build();
+        } else {
+            job.hold(ticket);
+            resp = ResponseEntity
+                .accepted()
+                .location(URI.create("/pdd/jobs/" + job.jobId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(job.json().toString());
+        }
+        return resp;
+    }
+
+    /**
+     * Response to a review which was not admitted.
+     * @param budget Budget which would be exceeded.
+     * @return Response TOO MANY REQUESTS if too many reviews are in flight,
+     *  SERVICE UNAVAILABLE if there is not enough disk or heap.
+     */
+    private ResponseEntity<String> refused(final Admission.Budget budget) {
+        final HttpStatus status;
+        if (budget == Admission.Budget.REVIEWS) {
+            status = HttpStatus.TOO_MANY_REQUESTS;
+        } else {
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return ResponseEntity.status(status)
+            .header(
+                HttpHeaders.RETRY_AFTER,
+                String.valueOf(this.admission.retryAfter())
+            )
+            .build();
+    }
+
+    /**
+     * Type of the push event sent by the provider.
+     * @param provider Provider name.
+     * @return Event type or null if the provider is not supported.
+     */
+    private static String eventType(final String provider) {
+        String type = null;
+        if (provider.equalsIgnoreCase(Provider.Names.GITHUB)) {
+            type = "push";
+        } else if (provider.equalsIgnoreCase(Provider.Names.GITLAB)) {
+            type = "Push Hook";
+        }
+        return type;
+    }
 }
@@ -23,23 +23,22 @@
 package com.selfxdsd.todos;
 
 import com.jcabi.ssh.Shell;
-import com.jcabi.ssh.Ssh;
 import com.selfxdsd.api.Commit;
 import com.selfxdsd.api.Event;
 import com.selfxdsd.api.Issue;
 import com.selfxdsd.api.Issues;
 import com.selfxdsd.api.Project;
-import com.selfxdsd.core.Env;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.RequestScope;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -72,37 +71,50 @@ public class PuzzlesComponent {
      */
     private final ShellProjectPuzzlesProvider puzzlesProvider;
 
+    /**
+     * The Issue of each puzzle, as remembered.
+     */
+    private final PuzzleIssues mappings;
+
     /**
      * Ctor.
-     * @throws IOException If any IO problems occur while connecting
-     *  to the SSH server.
-     */
-    public PuzzlesComponent() throws IOException {
-        this(new Ssh(
-                System.getenv(Env.PDD_HOST),
-                Integer.valueOf(System.getenv(Env.PDD_PORT)),
-                System.getenv(Env.PDD_USERNAME),
-                Files.readString(
-                    Path.of(System.getenv(Env.PDD_PRIVATE_KEY))
-                )
-            ),
-            shell -> (project, commit) -> new SshPuzzles(
-                shell,
-                new JsonPuzzles(project, commit)
-            )
-        );
+     * @param configured Puzzles as configured for each Project.
+     * @param pool Pooled SSH connection to the PDD host.
+     * @param mappings The Issue of each puzzle, as remembered.
+     */
+    @Autowired
+    PuzzlesComponent(
+        final ConfiguredPuzzlesProvider configured,
+        final SshPool pool,
+        final PuzzleIssues mappings
+    ) {
+        this((Shell) pool, configured, mappings);
     }
 
     /**
-     * Ctor used in tests.
+     * Ctor used in tests. The Issues are searched in every review.
      * @param shell Shell.
      * @param puzzlesProvider ShellProjectPuzzlesProvider.
      */
     PuzzlesComponent(
         final Shell shell,
         final ShellProjectPuzzlesProvider puzzlesProvider){
+        this(shell, puzzlesProvider, new PuzzleIssues(null, Duration.ZERO));
+    }
+
+    /**
+     * Ctor.
+     * @param shell Shell.
+     * @param puzzlesProvider ShellProjectPuzzlesProvider.
+     * @param mappings The Issue of each puzzle, as remembered.
+     */
+    PuzzlesComponent(
+        final Shell shell,
+        final ShellProjectPuzzlesProvider puzzlesProvider,
+        final PuzzleIssues mappings){
         this.ssh = shell;
         this.puzzlesProvider = puzzlesProvider;
+        this.mappings = mappings;
     }
 
     /**
@@ -113,24 +125,40 @@ public class PuzzlesComponent {
      * processing the puzzles.
      */
     public void review(final Event event) {
+        this.review(event, new Push(""));
+    }
+
+    /**
+     * Review the puzzles of the given Project, knowing what the push
+     * changed.
+     * @param event Event that triggered it.
+     * @param push Changes brought by the push.
+     * @return True if the puzzles were reviewed, false if they could not
+     *  be read.
+     */
+    public boolean review(final Event event, final Push push) {
         final Project project = event.project();
         final Commit commit = event.commit();
+        final RepoContext context = new RepoContext(project, commit, push);
         final Puzzles<Project> puzzles = this.puzzlesProvider
+            .with(context)
             .apply(this.ssh)
             .apply(project, commit);
+        boolean reviewed = false;
         try {
             puzzles.process(project);
-            final String owner = project.repoFullName().split("/")[0];
-            final String name = project.repoFullName().split("/")[1];
-
-            final Issues issues = project
-                .projectManager()
-                .provider()
-                .repo(owner, name)
-                .issues()
-                .search("", Puzzle.PUZZLE_LABEL);
-            this.openNewTickets(puzzles, issues, commit);
-            this.closeRemovedPuzzles(puzzles, issues, commit);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new PuzzlesProcessingException(
+                    "Review interrupted, the Issues were not changed."
+                );
+            }
+            final Map<String, PuzzleIssues.Link> known = this.mappings.known(
+                project.provider() + "/" + project.repoFullName()
+            );
+            if (known == null || !this.follow(context, puzzles, known)) {
+                this.reconcile(context, puzzles);
+            }
+            reviewed = true;
         } catch (final PuzzlesProcessingException ex) {
             LOG.error(
                 "Exception while reviewing puzzles for Project "
@@ -138,40 +166,190 @@ public class PuzzlesComponent {
                 ex
             );
         }
+        return reviewed;
+    }
+
+    /**
+     * Search the puzzle Issues and reconcile them with the puzzles, then
+     * remember the Issue of each puzzle.
+     * @param context Repository of the review.
+     * @param puzzles Puzzles found in the code.
+     * @throws PuzzlesProcessingException If the Issues cannot be read.
+     */
+    private void reconcile(
+        final RepoContext context,
+        final Puzzles<Project> puzzles
+    ) throws PuzzlesProcessingException {
+        final Project project = context.project();
+        final Commit commit = context.commit();
+        final Issues issues = context.repo().issues()
+            .search("", Puzzle.PUZZLE_LABEL);
+        final Reconciliation diff = new Reconciliation(
+            puzzles,
+            new IssuesSnapshot(issues, IssuesSnapshot.IN_FLIGHT)
+        );
+        final Map<String, Issue> removed = new LinkedHashMap<>();
+        for(final IssuesSnapshot.Entry entry : diff.removed()) {
+            removed.put(entry.issueId(), entry.issue());
+        }
+        final Map<String, PuzzleIssues.Link> known = new LinkedHashMap<>();
+        for(final Map.Entry<String, IssuesSnapshot.Entry> link
+            : diff.linked().entrySet()) {
+            final IssuesSnapshot.Entry issue = link.getValue();
+            if(!removed.containsKey(issue.issueId())) {
+                known.put(
+                    link.getKey(),
+                    new PuzzleIssues.Link(
+                        issue.issueId(), issue.isClosed(), ""
+                    )
+                );
+            }
+        }
+        final Map<String, PuzzleIssues.Link> links = new MappedReconciliation(
+            puzzles, known, commit.shaRef()
+        ).links();
+        links.putAll(this.openNewTickets(diff.added(), issues, commit));
+        this.closeRemovedPuzzles(removed, commit);
+        this.mappings.verified(
+            project.provider() + "/" + project.repoFullName(), links
+        );
+    }
+
+    /**
+     * Reconcile the puzzles with the Issues remembered for them, without
+     * searching the Issues; the provider is only called to open or close
+     * Issues. The mapping is only updated once all of them were opened
+     * and closed; if one fails, it's forgotten, so the next review
+     * searches the Issues instead of opening duplicates.
+     * @param context Repository of the review.
+     * @param puzzles Puzzles found in the code.
+     * @param known Issues by puzzle id, as remembered.
+     * @return False if an Issue to close was not found, the Issues have
+     *  to be searched.
+     */
+    private boolean follow(
+        final RepoContext context,
+        final Puzzles<Project> puzzles,
+        final Map<String, PuzzleIssues.Link> known
+    ) {
+        final Project project = context.project();
+        final Commit commit = context.commit();
+        final String key = project.provider() + "/" + project.repoFullName();
+        final MappedReconciliation diff = new MappedReconciliation(
+            puzzles, known, commit.shaRef()
+        );
+        final Map<String, PuzzleIssues.Link> links = diff.links();
+        boolean followed = false;
+        try {
+            Map<String, Issue> removed = Map.of();
+            if(!diff.added().isEmpty() || !diff.gone().isEmpty()) {
+                final Issues issues = context.repo().issues();
+                removed = PuzzlesComponent.resolve(issues, diff.gone());
+                if(removed != null) {
+                    diff.relink(removed);
+                    PuzzlesComponent.unlink(links, diff.gone(), removed);
+                    links.putAll(
+                        this.openNewTickets(diff.added(), issues, commit)
+                    );
+                    this.closeRemovedPuzzles(removed, commit);
+                }
+            }
+            if(removed != null) {
+                this.mappings.update(key, links);
+                followed = true;
+            }
+        } finally {
+            if(!followed) {
+                this.mappings.forget(key);
+            }
+        }
+        return followed;
+    }
+
+    /**
+     * Update the links of the puzzles which are gone. The Issues about to
+     * be closed lose their "puzzle" label, so they are forgotten: if the
+     * to-do comes back, it gets a new Issue, like when the Issues are
+     * searched. The Issues closed by hand keep a closed link.
+     * @param links Links after the review.
+     * @param gone Links of the puzzles which are gone.
+     * @param removed Issues to close, by id.
+     */
+    private static void unlink(
+        final Map<String, PuzzleIssues.Link> links,
+        final Map<String, PuzzleIssues.Link> gone,
+        final Map<String, Issue> removed
+    ) {
+        for(final Map.Entry<String, PuzzleIssues.Link> link
+            : gone.entrySet()) {
+            if(removed.containsKey(link.getValue().issueId())) {
+                links.remove(link.getKey());
+            } else {
+                links.put(link.getKey(), link.getValue().close());
+            }
+        }
+    }
+
+    /**
+     * The open Issues of the puzzles which are gone. Those closed by hand
+     * in the meantime are left alone.
+     * @param issues Issues API.
+     * @param gone Links of the puzzles which are gone.
+     * @return Issues by id, or null if one of them was not found.
+     */
+    private static Map<String, Issue> resolve(
+        final Issues issues,
+        final Map<String, PuzzleIssues.Link> gone
+    ) {
+        Map<String, Issue> resolved = new LinkedHashMap<>();
+        for(final PuzzleIssues.Link link : gone.values()) {
+            final Issue issue = issues.getById(link.issueId());
+            if(issue == null) {
+                LOG.warn(
+                    "Issue " + link.issueId() + " not found, searching "
+                    + "the puzzle Issues instead."
+                );
+                resolved = null;
+                break;
+            }
+            if(!issue.isClosed()) {
+                resolved.put(link.issueId(), issue);
+            }
+        }
+        return resolved;
     }
 
     /**
      * Open new issues for puzzles which don't already have a correspondent.
-     * @param puzzles Puzzles found in the repo.
+     * @param added Puzzles without an Issue.
      * @param issues Issues API.
      * @param commit Commit which triggered everything.
+     * @return Links of the opened Issues, by puzzle id.
      */
-    private void openNewTickets(
-        final Puzzles<Project> puzzles,
+    private Map<String, PuzzleIssues.Link> openNewTickets(
+        final List<Puzzle> added,
         final Issues issues,
         final Commit commit
     ) {
         final List<String> opened = new ArrayList<>();
-        for(final Puzzle puzzle : puzzles) {
-            boolean foundIssue = false;
-            for(final Issue issue : issues) {
-                if(issue.body().contains(puzzle.getId())) {
-                    foundIssue = true;
-                    break;
-                }
-            }
-            if(!foundIssue) {
-                final Issue newIssue = issues.open(
-                    puzzle.issueTitle(),
-                    puzzle.issueBody(),
-                    Puzzle.PUZZLE_LABEL,
-                    String.format(
-                        Puzzle.ESTIMATION_LABEL,
-                        puzzle.getEstimate()
-                    )
-                );
-                opened.add("#" + newIssue.issueId());
-            }
+        final Map<String, PuzzleIssues.Link> links = new LinkedHashMap<>();
+        for(final Puzzle puzzle : added) {
+            final Issue newIssue = issues.open(
+                puzzle.issueTitle(),
+                puzzle.issueBody(),
+                Puzzle.PUZZLE_LABEL,
+                String.format(
+                    Puzzle.ESTIMATION_LABEL,
+                    puzzle.getEstimate()
+                )
+            );
+            opened.add("#" + newIssue.issueId());
+            links.put(
+                puzzle.getId(),
+                new PuzzleIssues.Link(
+                    newIssue.issueId(), false, commit.shaRef()
+                )
+            );
         }
         if(opened.size() > 0) {
             String author = commit.author();
@@ -187,38 +365,29 @@ public class PuzzlesComponent {
                 + "but I've found them just now."
             );
         }
+        return links;
     }
 
     /**
      * Close issues which don't have a corresponding puzzle
      * (puzzle has been removed from code).
-     * @param puzzles Puzzles found in the repo.
-     * @param issues Issues API.
+     * @param removed Open Issues without a puzzle, by id.
      * @param commit Commit which triggered everything.
      */
     private void closeRemovedPuzzles(
-        final Puzzles<Project> puzzles,
-        final Issues issues,
+        final Map<String, Issue> removed,
         final Commit commit
     ) {
         final List<String> closed = new ArrayList<>();
-        for(final Issue issue : issues) {
-            boolean foundPuzzle = false;
-            for(final Puzzle puzzle : puzzles) {
-                if(issue.body().contains(puzzle.getId())) {
-                    foundPuzzle = true;
-                    break;
-                }
-            }
-            if(!foundPuzzle && !issue.isClosed()) {
-                issue.close();
-                issue.comments().post(
-                    "Puzzle disappeared from the code, "
-                    + "that's why I closed this ticket."
-                );
-                issue.labels().remove("puzzle");
-                closed.add("#" + issue.issueId());
-            }
+        for(final Map.Entry<String, Issue> entry : removed.entrySet()) {
+            final Issue issue = entry.getValue();
+            issue.close();
+            issue.comments().post(
+                "Puzzle disappeared from the code, "
+                + "that's why I closed this ticket."
+            );
+            issue.labels().remove("puzzle");
+            closed.add("#" + entry.getKey());
         }
         if(closed.size() > 0) {
             String author = commit.author();
@@ -243,5 +412,15 @@ public class PuzzlesComponent {
     @FunctionalInterface
     interface ShellProjectPuzzlesProvider
         extends Function<Shell, BiFunction<Project, Commit, Puzzles<Project>>> {
+
+        /**
+         * Provider for the review of the given push, sharing its
+         * repository. By default, the push is ignored.
+         * @param context Repository of the review, with the push.
+         * @return ShellProjectPuzzlesProvider.
+         */
+        default ShellProjectPuzzlesProvider with(final RepoContext context) {
+            return this;
+        }
     }
 }
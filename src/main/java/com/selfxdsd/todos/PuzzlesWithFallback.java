@@ -27,6 +27,9 @@ import java.util.Iterator;
 
 /**
  * Processes the "fallback" puzzle strategy when the "original" fails.
+ * Both strategies are tried, so any problem the original reports is
+ * reported even if the fallback succeeds. To pick the one parser for
+ * JSON or XML input, use {@link SniffingPuzzles}.
  * @param <I> The type of input used for processing.
  * @author criske
  * @version $Id$
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reconciliation of the puzzles found in the code with the puzzle Issues,
+ * in one pass over each: the puzzle id is read once from each Issue's
+ * body (where {@link Puzzle#issueBody()} wrote it) and looked up in a
+ * hash index, so ids are matched exactly, "12" never matches the Issue
+ * of "123". The bodies of older Issues, which don't follow the template,
+ * are split in words and each word is looked up instead. Open Issues
+ * whose puzzle id is gone are matched by ticket and body with the new
+ * puzzles before being closed, see {@link Relink}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class Reconciliation {
+
+    /**
+     * Puzzle id in an Issue's body.
+     */
+    private static final Pattern ID = Pattern.compile(
+        "The puzzle ``([^`\\s]+)``"
+    );
+
+    /**
+     * Words of an Issue's body which may be puzzle ids.
+     */
+    private static final Pattern WORD = Pattern.compile("[\\w#-]+");
+
+    /**
+     * Puzzles without an Issue, to be opened.
+     */
+    private final List<Puzzle> added;
+
+    /**
+     * Open Issues without a puzzle, to be closed.
+     */
+    private final List<IssuesSnapshot.Entry> removed;
+
+    /**
+     * Issues which still have their puzzle.
+     */
+    private final List<IssuesSnapshot.Entry> kept;
+
+    /**
+     * Issues by the id of their puzzle.
+     */
+    private final Map<String, IssuesSnapshot.Entry> linked;
+
+    /**
+     * Ctor.
+     * @param puzzles Puzzles found in the code.
+     * @param issues Puzzle Issues, open and closed, as they were read.
+     */
+    Reconciliation(
+        final Iterable<Puzzle> puzzles,
+        final Iterable<IssuesSnapshot.Entry> issues
+    ) {
+        this.added = new ArrayList<>();
+        this.removed = new ArrayList<>();
+        this.kept = new ArrayList<>();
+        this.linked = new LinkedHashMap<>();
+        final Map<String, Puzzle> index = new LinkedHashMap<>();
+        for (final Puzzle puzzle : puzzles) {
+            index.putIfAbsent(puzzle.getId(), puzzle);
+        }
+        final Set<String> found = new HashSet<>();
+        for (final IssuesSnapshot.Entry issue : issues) {
+            this.place(issue, index, found);
+        }
+        for (final Map.Entry<String, Puzzle> entry : index.entrySet()) {
+            if (!found.contains(entry.getKey())) {
+                this.added.add(entry.getValue());
+            }
+        }
+        this.relink();
+    }
+
+    /**
+     * Puzzles without an Issue, to be opened.
+     * @return Puzzles, in the order they were found.
+     */
+    List<Puzzle> added() {
+        return this.added;
+    }
+
+    /**
+     * Open Issues without a puzzle, to be closed.
+     * @return Issues.
+     */
+    List<IssuesSnapshot.Entry> removed() {
+        return this.removed;
+    }
+
+    /**
+     * Issues which still have their puzzle.
+     * @return Issues.
+     */
+    List<IssuesSnapshot.Entry> kept() {
+        return this.kept;
+    }
+
+    /**
+     * Issues by the id of their puzzle, for all the Issues which name
+     * one, including those whose puzzle is gone.
+     * @return Issues by puzzle id.
+     */
+    Map<String, IssuesSnapshot.Entry> linked() {
+        return this.linked;
+    }
+
+    /**
+     * Place an Issue in kept or removed.
+     * @param issue Issue as read.
+     * @param index Puzzles by id.
+     * @param found Ids of the puzzles which have an Issue.
+     */
+    private void place(
+        final IssuesSnapshot.Entry issue,
+        final Map<String, Puzzle> index,
+        final Set<String> found
+    ) {
+        final String id = Reconciliation.match(issue.body(), index);
+        if (id != null) {
+            this.linked.putIfAbsent(id, issue);
+        }
+        if (id != null && index.containsKey(id)) {
+            found.add(id);
+            this.kept.add(issue);
+        } else if (!issue.isClosed()) {
+            this.removed.add(issue);
+        }
+    }
+
+    /**
+     * Keep the open Issues whose puzzle id changed but whose to-do is
+     * still there, see {@link Relink}.
+     */
+    private void relink() {
+        final Relink relink = new Relink(this.added);
+        final Iterator<IssuesSnapshot.Entry> open = this.removed.iterator();
+        while (open.hasNext()) {
+            final IssuesSnapshot.Entry issue = open.next();
+            final Puzzle puzzle = relink.take(issue.body());
+            if (puzzle != null) {
+                open.remove();
+                this.added.remove(puzzle);
+                this.kept.add(issue);
+                this.linked.values().removeIf(other -> other == issue);
+                this.linked.put(puzzle.getId(), issue);
+            }
+        }
+    }
+
+    /**
+     * Id of the puzzle an Issue's body is about: the one written by the
+     * template, or else the first word which is the id of a puzzle.
+     * @param body Body of the Issue.
+     * @param index Puzzles by id.
+     * @return Id or null if the body doesn't name a puzzle.
+     */
+    private static String match(
+        final String body,
+        final Map<String, Puzzle> index
+    ) {
+        String id = null;
+        final Matcher template = Reconciliation.ID.matcher(body);
+        if (template.find()) {
+            id = template.group(1);
+        } else {
+            final Matcher words = Reconciliation.WORD.matcher(body);
+            while (id == null && words.find()) {
+                if (index.containsKey(words.group())) {
+                    id = words.group();
+                }
+            }
+        }
+        return id;
+    }
+}
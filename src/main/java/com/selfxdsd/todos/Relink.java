@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Puzzles whose to-do already has an Issue under another puzzle id. The
+ * id of a to-do depends on the scanner (`todo-finder-cli` and the
+ * {@link TodoTree} don't give the same ids), so when a Project changes
+ * scanners, or the {@link ScanDaemon} falls back to `todo-finder-cli`,
+ * the Issues are matched to the new puzzles by the ticket and body written
+ * in them, instead of being closed and opened again.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class Relink {
+
+    /**
+     * Ticket and body of the to-do in an Issue's body, as written by
+     * {@link Puzzle#issueBody()}.
+     */
+    private static final Pattern TODO = Pattern.compile(
+        "originating from #(\\d+) has to be resolved:.*?\"(.*)\"\\.",
+        Pattern.DOTALL
+    );
+
+    /**
+     * Puzzles without an Issue under their id.
+     */
+    private final Iterable<Puzzle> added;
+
+    /**
+     * Puzzles by ticket and body, indexed when the first Issue is matched.
+     */
+    private Map<String, Deque<Puzzle>> puzzles;
+
+    /**
+     * Ctor.
+     * @param added Puzzles without an Issue under their id.
+     */
+    Relink(final Iterable<Puzzle> added) {
+        this.added = added;
+    }
+
+    /**
+     * Take the puzzle whose to-do the Issue is about.
+     * @param body Body of the Issue.
+     * @return Puzzle, which is not given again, or null if there is none.
+     */
+    Puzzle take(final String body) {
+        Puzzle taken = null;
+        final Matcher matcher = Relink.TODO.matcher(body);
+        if(matcher.find()) {
+            final Deque<Puzzle> same = this.index().get(
+                Relink.key(matcher.group(1), matcher.group(2))
+            );
+            if(same != null) {
+                taken = same.poll();
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Puzzles by ticket and body.
+     * @return Index.
+     */
+    private Map<String, Deque<Puzzle>> index() {
+        if(this.puzzles == null) {
+            this.puzzles = new HashMap<>();
+            for(final Puzzle puzzle : this.added) {
+                if(puzzle.getBody() != null) {
+                    this.puzzles.computeIfAbsent(
+                        Relink.key(
+                            String.valueOf(puzzle.getTicket()),
+                            puzzle.getBody()
+                        ),
+                        key -> new ArrayDeque<>()
+                    ).add(puzzle);
+                }
+            }
+        }
+        return this.puzzles;
+    }
+
+    /**
+     * Key of a to-do: ticket and body, without the differences in
+     * whitespace between the scanners.
+     * @param ticket Ticket.
+     * @param body Body.
+     * @return Key.
+     */
+    private static String key(final String ticket, final String body) {
+        return ticket + "\n" + body.replaceAll("\\s+", " ").trim();
+    }
+}
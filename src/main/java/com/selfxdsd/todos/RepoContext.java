@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Repo;
+
+/**
+ * What a review needs from the Project's repository, resolved once and
+ * shared by everything taking part in the review: the owner and name, the
+ * repo handle and the head commit. The head commit is the one of the event
+ * if the push says it's its head, otherwise the latest commit is fetched
+ * from the provider, only the first time it's needed.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class RepoContext {
+
+    /**
+     * Project.
+     */
+    private final Project project;
+
+    /**
+     * Commit which triggered everything.
+     */
+    private final Commit commit;
+
+    /**
+     * Changes brought by the reviewed push.
+     */
+    private final Push push;
+
+    /**
+     * Owner and name of the repository, split once.
+     */
+    private String[] names;
+
+    /**
+     * Repository, resolved once.
+     */
+    private Repo repo;
+
+    /**
+     * Head commit, resolved once.
+     */
+    private Commit head;
+
+    /**
+     * Ctor, for reviews which don't know the push.
+     * @param project Project.
+     * @param commit Commit which triggered everything.
+     */
+    RepoContext(final Project project, final Commit commit) {
+        this(project, commit, new Push(""));
+    }
+
+    /**
+     * Ctor.
+     * @param project Project.
+     * @param commit Commit which triggered everything.
+     * @param push Changes brought by the reviewed push.
+     */
+    RepoContext(final Project project, final Commit commit, final Push push) {
+        this.project = project;
+        this.commit = commit;
+        this.push = push;
+    }
+
+    /**
+     * The Project.
+     * @return Project.
+     */
+    Project project() {
+        return this.project;
+    }
+
+    /**
+     * Commit which triggered everything.
+     * @return Commit.
+     */
+    Commit commit() {
+        return this.commit;
+    }
+
+    /**
+     * Changes brought by the reviewed push.
+     * @return Push.
+     */
+    Push push() {
+        return this.push;
+    }
+
+    /**
+     * Owner of the repository.
+     * @return Owner.
+     */
+    synchronized String owner() {
+        return this.names()[0];
+    }
+
+    /**
+     * Name of the repository.
+     * @return Name.
+     */
+    synchronized String name() {
+        return this.names()[1];
+    }
+
+    /**
+     * The repository, as seen by the provider.
+     * @return Repo.
+     */
+    synchronized Repo repo() {
+        if(this.repo == null) {
+            this.repo = this.project
+                .projectManager()
+                .provider()
+                .repo(this.names()[0], this.names()[1]);
+        }
+        return this.repo;
+    }
+
+    /**
+     * Head commit of the repository.
+     * @return Commit.
+     */
+    synchronized Commit head() {
+        if(this.head == null) {
+            final String after = this.push.after();
+            if(after != null && this.commit != null
+                && after.equals(this.commit.shaRef())) {
+                this.head = this.commit;
+            } else {
+                this.head = this.repo().commits().latest();
+            }
+        }
+        return this.head;
+    }
+
+    /**
+     * Owner and name of the repository.
+     * @return Owner and name.
+     */
+    private String[] names() {
+        if(this.names == null) {
+            this.names = this.project.repoFullName().split("/");
+        }
+        return this.names;
+    }
+}
@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Review of a push, waiting for or running on the {@link ReviewQueue}.
+ * It only keeps the names of the Project, since the Project itself
+ * belongs to the request which enqueued the review.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ParameterNumber (200 lines)
+ */
+public final class ReviewJob {
+
+    /**
+     * Id.
+     */
+    private final String id;
+
+    /**
+     * Provider of the Project.
+     */
+    private final String provider;
+
+    /**
+     * Full name of the Project's repository.
+     */
+    private final String repo;
+
+    /**
+     * Username of the Project's manager.
+     */
+    private final String manager;
+
+    /**
+     * Type of the webhook event.
+     */
+    private final String type;
+
+    /**
+     * Payload of the push.
+     */
+    private final String payload;
+
+    /**
+     * When it was enqueued.
+     */
+    private final Instant queued;
+
+    /**
+     * When it was started, null if it's still waiting.
+     */
+    private volatile Instant started;
+
+    /**
+     * When it was finished, null if it's still waiting or running.
+     */
+    private volatile Instant finished;
+
+    /**
+     * Status.
+     */
+    private volatile Status status;
+
+    /**
+     * Thread running the review, null if it's not running.
+     */
+    private Thread worker;
+
+    /**
+     * Admission of the review, released when it's over.
+     */
+    private Admission.Ticket ticket;
+
+    /**
+     * Ctor.
+     * @param provider Provider of the Project.
+     * @param repo Full name of the Project's repository.
+     * @param manager Username of the Project's manager.
+     * @param type Type of the webhook event.
+     * @param payload Payload of the push.
+     */
+    ReviewJob(
+        final String provider,
+        final String repo,
+        final String manager,
+        final String type,
+        final String payload
+    ) {
+        this.id = UUID.randomUUID().toString();
+        this.provider = provider;
+        this.repo = repo;
+        this.manager = manager;
+        this.type = type;
+        this.payload = payload;
+        this.queued = Instant.now();
+        this.status = Status.QUEUED;
+    }
+
+    /**
+     * Ctor, restoring a job from its record in the {@link ReviewJournal}.
+     * @param record Record, see {@link #record()}.
+     */
+    ReviewJob(final JsonObject record) {
+        this.id = record.getString("id");
+        this.provider = record.getString("provider");
+        this.repo = record.getString("repo");
+        this.manager = record.getString("manager", "");
+        this.type = record.getString("type");
+        this.payload = record.getString("payload");
+        this.queued = Instant.parse(record.getString("queued"));
+        this.status = Status.QUEUED;
+    }
+
+    /**
+     * Id of this job.
+     * @return String.
+     */
+    public String jobId() {
+        return this.id;
+    }
+
+    /**
+     * Provider of the Project.
+     * @return String.
+     */
+    public String provider() {
+        return this.provider;
+    }
+
+    /**
+     * Full name of the Project's repository.
+     * @return String.
+     */
+    public String repoFullName() {
+        return this.repo;
+    }
+
+    /**
+     * Username of the Project's manager.
+     * @return String.
+     */
+    public String manager() {
+        return this.manager;
+    }
+
+    /**
+     * Type of the webhook event.
+     * @return String.
+     */
+    public String type() {
+        return this.type;
+    }
+
+    /**
+     * Payload of the push.
+     * @return String.
+     */
+    public String payload() {
+        return this.payload;
+    }
+
+    /**
+     * Status of this job.
+     * @return Status.
+     */
+    public Status status() {
+        return this.status;
+    }
+
+    /**
+     * Status and timing of this job, as JSON.
+     * @return JsonObject.
+     */
+    public JsonObject json() {
+        final JsonObjectBuilder json = Json.createObjectBuilder()
+            .add("id", this.id)
+            .add("provider", this.provider)
+            .add("repo", this.repo)
+            .add("manager", this.manager)
+            .add("status", this.status.name())
+            .add("queued", this.queued.toString());
+        final String commit = new Push(this.payload).after();
+        if (commit != null) {
+            json.add("commit", commit);
+        }
+        json.add("waitMs", this.waited().toMillis());
+        final Instant start = this.started;
+        final Instant end = this.finished;
+        if (start != null) {
+            json.add("started", start.toString())
+                .add("runMs", this.ran().toMillis());
+        }
+        if (end != null) {
+            json.add("finished", end.toString());
+        }
+        return json.build();
+    }
+
+    /**
+     * Everything needed to enqueue this job again, as JSON.
+     * @return JsonObject.
+     */
+    public JsonObject record() {
+        return Json.createObjectBuilder()
+            .add("op", "enqueue")
+            .add("id", this.id)
+            .add("provider", this.provider)
+            .add("repo", this.repo)
+            .add("manager", this.manager)
+            .add("type", this.type)
+            .add("payload", this.payload)
+            .add("queued", this.queued.toString())
+            .build();
+    }
+
+    /**
+     * How long it waited before being started, or until now.
+     * @return Duration.
+     */
+    Duration waited() {
+        final Instant start = this.started;
+        final Duration waited;
+        if (start == null) {
+            waited = Duration.between(this.queued, Instant.now());
+        } else {
+            waited = Duration.between(this.queued, start);
+        }
+        return waited;
+    }
+
+    /**
+     * How long it ran, or has been running until now.
+     * @return Duration, zero if it wasn't started.
+     */
+    Duration ran() {
+        final Instant start = this.started;
+        final Instant end = this.finished;
+        final Duration ran;
+        if (start == null) {
+            ran = Duration.ZERO;
+        } else if (end == null) {
+            ran = Duration.between(start, Instant.now());
+        } else {
+            ran = Duration.between(start, end);
+        }
+        return ran;
+    }
+
+    /**
+     * The review was started on the current thread. Unless it was
+     * superseded already, then it must not run.
+     * @return True if it was started.
+     */
+    synchronized boolean start() {
+        final boolean start = this.status == Status.QUEUED;
+        if (start) {
+            this.started = Instant.now();
+            this.worker = Thread.currentThread();
+            this.status = Status.RUNNING;
+        }
+        return start;
+    }
+
+    /**
+     * The review was finished, or it could not be started.
+     * @param reviewed Whether the puzzles were reviewed.
+     */
+    synchronized void finish(final boolean reviewed) {
+        this.finished = Instant.now();
+        this.worker = null;
+        this.release();
+        if (this.status == Status.RUNNING || this.status == Status.QUEUED) {
+            if (reviewed) {
+                this.status = Status.DONE;
+            } else {
+                this.status = Status.FAILED;
+            }
+        }
+        this.notifyAll();
+    }
+
+    /**
+     * A later push replaced this one. If it's waiting, it will never run;
+     * if it's running, its thread is interrupted, so it stops early.
+     */
+    synchronized void supersede() {
+        if (this.status == Status.QUEUED || this.status == Status.RUNNING) {
+            this.status = Status.SUPERSEDED;
+            if (this.worker == null) {
+                this.release();
+            } else {
+                this.worker.interrupt();
+            }
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Wait until the review is over: finished, or superseded before it
+     * started.
+     * @param timeout Longest time to wait.
+     * @return True if it's over.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    synchronized boolean await(final Duration timeout)
+        throws InterruptedException {
+        final long end = System.nanoTime() + timeout.toNanos();
+        long left = timeout.toNanos();
+        while (!this.over() && left > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+            left = end - System.nanoTime();
+        }
+        return this.over();
+    }
+
+    /**
+     * Hold the admission of the review until it's over.
+     * @param admitted Ticket.
+     */
+    synchronized void hold(final Admission.Ticket admitted) {
+        this.ticket = admitted;
+        if (this.finished != null || this.status == Status.SUPERSEDED) {
+            this.release();
+        }
+    }
+
+    /**
+     * Is the review over? Must be called holding the monitor.
+     * @return True or false.
+     */
+    private boolean over() {
+        return this.finished != null
+            || this.status == Status.SUPERSEDED && this.worker == null;
+    }
+
+    /**
+     * Release the admission of the review, if it holds one.
+     */
+    private void release() {
+        if (this.ticket != null) {
+            this.ticket.close();
+            this.ticket = null;
+        }
+    }
+
+    /**
+     * Status of a review.
+     */
+    public enum Status {
+
+        /**
+         * Waiting for a thread.
+         */
+        QUEUED,
+
+        /**
+         * Running.
+         */
+        RUNNING,
+
+        /**
+         * The puzzles were reviewed.
+         */
+        DONE,
+
+        /**
+         * The puzzles could not be reviewed.
+         */
+        FAILED,
+
+        /**
+         * A later push to the same repository replaced it.
+         */
+        SUPERSEDED
+    }
+}
@@ -0,0 +1,460 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of the {@link ReviewQueue}: one JSON line when a
+ * review is enqueued, started and completed. At startup, the reviews
+ * which were enqueued but not completed are replayed.<br><br>
+ *
+ * Lines are written and fsync'ed by one thread, in batches: everything
+ * appended while the previous batch was being synced goes in the next
+ * one, so enqueuing waits for at most two fsyncs however many pushes
+ * arrive at the same time. When the file has many more lines than
+ * reviews left to complete, it's rewritten with only those.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class ReviewJournal {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ReviewJournal.class
+    );
+
+    /**
+     * Lines after which the file is compacted.
+     */
+    private static final int COMPACT = 10_000;
+
+    /**
+     * File, null if the journal is disabled.
+     */
+    private final Path file;
+
+    /**
+     * Lines waiting to be written. It's also the lock of the journal.
+     */
+    private final List<String> batch;
+
+    /**
+     * Enqueue records of the reviews not completed yet, by job id.
+     */
+    private final Map<String, JsonObject> live;
+
+    /**
+     * Thread writing the batches.
+     */
+    private Thread writer;
+
+    /**
+     * The file, opened for appending; only used by the writer.
+     */
+    private FileChannel channel;
+
+    /**
+     * Is the journal accepting records?
+     */
+    private boolean open;
+
+    /**
+     * Number of records appended so far.
+     */
+    private long appended;
+
+    /**
+     * Number of records written and synced so far.
+     */
+    private long synced;
+
+    /**
+     * Number of lines in the file.
+     */
+    private long lines;
+
+    /**
+     * Why the writer stopped, null if it didn't fail.
+     */
+    private IOException failure;
+
+    /**
+     * Ctor.
+     * @param file File of the journal, null disables it.
+     */
+    public ReviewJournal(final Path file) {
+        this.file = file;
+        this.batch = new ArrayList<>();
+        this.live = new LinkedHashMap<>();
+    }
+
+    /**
+     * Read the journal, compact it and start accepting records.
+     * @return Enqueue records of the reviews which were not completed,
+     *  in the order they were enqueued.
+     * @throws IOException If the journal cannot be read or written.
+     */
+    public List<JsonObject> open() throws IOException {
+        final List<JsonObject> pending;
+        if (this.file == null) {
+            pending = List.of();
+        } else {
+            if (Files.isRegularFile(this.file)) {
+                this.load();
+            }
+            synchronized (this.batch) {
+                pending = new ArrayList<>(this.live.values());
+                this.rewrite(ReviewJournal.lines(pending));
+                this.lines = pending.size();
+                this.open = true;
+            }
+            this.writer = new Thread(this::write, "self-todos-journal");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+        return pending;
+    }
+
+    /**
+     * Record that a review was enqueued.
+     * @param job Job.
+     * @return Sequence number of the record, to wait for with
+     *  {@link #sync(long)}.
+     */
+    public long enqueued(final ReviewJob job) {
+        final JsonObject record = job.record();
+        synchronized (this.batch) {
+            if (this.open && this.failure == null) {
+                this.live.put(job.jobId(), record);
+            }
+            return this.append(record);
+        }
+    }
+
+    /**
+     * Record that a review was started.
+     * @param job Job.
+     */
+    public void started(final ReviewJob job) {
+        synchronized (this.batch) {
+            this.append(
+                Json.createObjectBuilder()
+                    .add("op", "start")
+                    .add("id", job.jobId())
+                    .build()
+            );
+        }
+    }
+
+    /**
+     * Record that a review was completed (or superseded), so it won't be
+     * replayed.
+     * @param job Job.
+     */
+    public void completed(final ReviewJob job) {
+        synchronized (this.batch) {
+            this.live.remove(job.jobId());
+            this.append(
+                Json.createObjectBuilder()
+                    .add("op", "complete")
+                    .add("id", job.jobId())
+                    .add("status", job.status().name())
+                    .build()
+            );
+        }
+    }
+
+    /**
+     * Wait until the given record, and all the ones before it, are
+     * synced to the disk.
+     * @param seq Sequence number of the record.
+     * @throws IOException If the journal cannot be written.
+     */
+    public void sync(final long seq) throws IOException {
+        synchronized (this.batch) {
+            while (this.open && this.failure == null && this.synced < seq) {
+                try {
+                    this.batch.wait();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while syncing.", ex);
+                }
+            }
+            if (this.failure != null) {
+                throw new IOException("Journal failed.", this.failure);
+            }
+        }
+    }
+
+    /**
+     * State of the journal, as JSON: whether it's accepting records, how
+     * many wait to be written and why the writer failed, if it did.
+     * @return JsonObject.
+     */
+    public JsonObject json() {
+        synchronized (this.batch) {
+            final JsonObjectBuilder json = Json.createObjectBuilder()
+                .add("open", this.open && this.failure == null)
+                .add("waiting", this.batch.size());
+            if (this.failure != null) {
+                json.add("failure", this.failure.toString());
+            }
+            return json.build();
+        }
+    }
+
+    /**
+     * Write the remaining records and stop accepting new ones. The
+     * reviews which were not completed will be replayed at the next
+     * start.
+     */
+    public void close() {
+        synchronized (this.batch) {
+            this.open = false;
+            this.batch.notifyAll();
+        }
+        if (this.writer != null) {
+            try {
+                this.writer.join();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Append a record to the next batch. Must be called while holding
+     * the lock. Once the writer failed, nothing is appended anymore.
+     * @param record Record.
+     * @return Sequence number of the record, 0 if the journal is closed
+     *  or failed.
+     */
+    private long append(final JsonObject record) {
+        long seq = 0;
+        if (this.open && this.failure == null) {
+            this.batch.add(record.toString() + "\n");
+            this.appended = this.appended + 1;
+            seq = this.appended;
+            this.batch.notifyAll();
+        }
+        return seq;
+    }
+
+    /**
+     * Write the batches until the journal is closed and the last batch
+     * is written.
+     */
+    private void write() {
+        try {
+            boolean more = true;
+            while (more) {
+                more = this.next();
+            }
+            this.channel.close();
+        } catch (final IOException ex) {
+            LOG.error("Could not write the review journal " + this.file, ex);
+            synchronized (this.batch) {
+                this.failure = ex;
+                this.batch.clear();
+                this.live.clear();
+                this.batch.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wait for the next batch and write it, or the whole compacted file.
+     * @return False if the journal is closed and there is nothing left.
+     * @throws IOException If the file cannot be written.
+     */
+    private boolean next() throws IOException {
+        final List<String> next;
+        final long upto;
+        final boolean compact;
+        synchronized (this.batch) {
+            while (this.open && this.batch.isEmpty()) {
+                this.idle();
+            }
+            upto = this.appended;
+            this.lines = this.lines + this.batch.size();
+            compact = this.lines > ReviewJournal.COMPACT
+                && this.lines > 2L * this.live.size();
+            if (compact) {
+                next = ReviewJournal.lines(this.live.values());
+                this.lines = next.size();
+            } else {
+                next = new ArrayList<>(this.batch);
+            }
+            this.batch.clear();
+        }
+        if (compact) {
+            this.rewrite(next);
+        } else {
+            this.flush(next);
+        }
+        synchronized (this.batch) {
+            this.synced = upto;
+            this.batch.notifyAll();
+            return this.open || !this.batch.isEmpty();
+        }
+    }
+
+    /**
+     * Append the lines to the file and sync it.
+     * @param content Lines.
+     * @throws IOException If the file cannot be written.
+     */
+    private void flush(final List<String> content) throws IOException {
+        if (!content.isEmpty()) {
+            for (final String line : content) {
+                this.channel.write(
+                    ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8))
+                );
+            }
+            this.channel.force(false);
+        }
+    }
+
+    /**
+     * Wait for records, while holding the lock.
+     */
+    private void idle() {
+        try {
+            this.batch.wait();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.open = false;
+        }
+    }
+
+    /**
+     * Replace the file with the given lines and reopen it for appending.
+     * @param content Lines.
+     * @throws IOException If the file cannot be written.
+     */
+    private void rewrite(final List<String> content) throws IOException {
+        final Path temp = this.file.resolveSibling(
+            this.file.getFileName() + ".tmp"
+        );
+        try (FileChannel out = FileChannel.open(
+            temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            for (final String line : content) {
+                out.write(
+                    ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8))
+                );
+            }
+            out.force(false);
+        }
+        Files.move(
+            temp, this.file,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE
+        );
+        if (this.channel != null) {
+            this.channel.close();
+        }
+        this.channel = FileChannel.open(
+            this.file, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+        );
+    }
+
+    /**
+     * Read the file, keeping the reviews which were not completed. A line
+     * which cannot be parsed (the last one, if the service died while
+     * writing it) is skipped.
+     * @throws IOException If the file cannot be read.
+     */
+    private void load() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(
+            this.file, StandardCharsets.UTF_8
+        )) {
+            String line = reader.readLine();
+            while (line != null) {
+                try {
+                    this.replay(
+                        Json.createReader(new StringReader(line)).readObject()
+                    );
+                } catch (final JsonException ex) {
+                    LOG.warn("Skipping corrupt journal line: " + line);
+                }
+                line = reader.readLine();
+            }
+        }
+    }
+
+    /**
+     * Replay a record read from the file.
+     * @param record Record.
+     */
+    private void replay(final JsonObject record) {
+        final String operation = record.getString("op", "");
+        synchronized (this.batch) {
+            if ("enqueue".equals(operation)) {
+                this.live.put(record.getString("id"), record);
+            } else if ("complete".equals(operation)) {
+                this.live.remove(record.getString("id"));
+            }
+        }
+    }
+
+    /**
+     * Lines of the given records.
+     * @param records Records.
+     * @return Lines, with their line separators.
+     */
+    private static List<String> lines(
+        final Iterable<JsonObject> records
+    ) {
+        final List<String> result = new ArrayList<>();
+        for (final JsonObject record : records) {
+            result.add(record.toString() + "\n");
+        }
+        return result;
+    }
+}
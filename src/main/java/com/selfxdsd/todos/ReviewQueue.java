@@ -0,0 +1,571 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reviews the pushes in the background, on a bounded pool of threads,
+ * so self-pm doesn't wait for the clone and scan. The last jobs are
+ * remembered, so their status can be checked.<br><br>
+ *
+ * The pushes to the same repository are reviewed one after the other,
+ * so two reviews never open or close the same Issues at the same time,
+ * while the pushes to different repositories are reviewed in parallel.
+ * <br><br>
+ * Bursts of pushes to one repository are coalesced: a review starts
+ * after a debounce window and, until it starts, the next pushes only
+ * replace the commit to review. A push also supersedes the review
+ * which is running for the same repository: its thread is interrupted,
+ * which kills the process group of the scan on the PDD host (see
+ * {@link SshPool}), and the Issues are not touched.
+ * Only the puzzles at the latest commit matter.<br><br>
+ *
+ * When all the threads are busy, the waiting reviews are ordered by
+ * {@link FairShare}, so the small repositories don't wait for the
+ * monorepos and no Project Manager takes all the threads.<br><br>
+ *
+ * The jobs are recorded in a {@link ReviewJournal}, so the reviews which
+ * were waiting or running when the service stopped are done after it
+ * starts again.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ParameterNumber (300 lines)
+ */
+@Component
+public class ReviewQueue {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ReviewQueue.class
+    );
+
+    /**
+     * How many jobs are remembered.
+     */
+    private static final int HISTORY = 10_000;
+
+    /**
+     * Reviews the puzzles of a job.
+     */
+    private final Reviewer reviewer;
+
+    /**
+     * Number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * Worker threads, one review at a time for each repository; null if
+     * the reviews are not done in the background.
+     */
+    private final KeyedExecutor workers;
+
+    /**
+     * How long a review waits for more pushes before being dispatched.
+     */
+    private final Duration debounce;
+
+    /**
+     * Dispatches the reviews after the debounce window.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * How many reviews (of different repositories) can wait. It's checked
+     * when a push is submitted, not when the journal is replayed.
+     */
+    private final int capacity;
+
+    /**
+     * Journal of the jobs.
+     */
+    private final ReviewJournal journal;
+
+    /**
+     * Order in which the waiting reviews get a thread.
+     */
+    private final FairShare fair;
+
+    /**
+     * Last jobs, by id.
+     */
+    private final Map<String, ReviewJob> jobs;
+
+    /**
+     * Jobs not started yet, by repository. There is at most one for
+     * each repository, since a push replaces the waiting job.
+     */
+    private final Map<String, ReviewJob> pending;
+
+    /**
+     * Running jobs, by repository.
+     */
+    private final Map<String, ReviewJob> running;
+
+    /**
+     * Ctor. The number of threads is read from
+     * {@link TodosEnv#REVIEW_THREADS}, the number of waiting jobs
+     * from {@link TodosEnv#REVIEW_QUEUE}, the debounce window from
+     * {@link TodosEnv#REVIEW_DEBOUNCE} and the journal's file from
+     * {@link TodosEnv#REVIEW_JOURNAL} (defaults to
+     * self-todos-reviews.jsonl in the temporary directory).
+     * @param configured Puzzles as configured for each Project.
+     * @param pool Pooled SSH connection to the PDD host.
+     * @param settings Per-Project settings, with their weights.
+     * @param links The Issue of each puzzle, as remembered.
+     */
+    @Autowired
+    ReviewQueue(
+        final ConfiguredPuzzlesProvider configured,
+        final SshPool pool,
+        final ProjectSettings settings,
+        final PuzzleIssues links
+    ) {
+        this(
+            new SelfReviewer(configured, pool, links),
+            Integer.parseInt(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.REVIEW_THREADS), "0"
+                )
+            ),
+            Integer.parseInt(
+                Objects.requireNonNullElse(
+                    System.getenv(TodosEnv.REVIEW_QUEUE), "100"
+                )
+            ),
+            Duration.ofSeconds(
+                Long.parseLong(
+                    Objects.requireNonNullElse(
+                        System.getenv(TodosEnv.REVIEW_DEBOUNCE), "5"
+                    )
+                )
+            ),
+            new ReviewJournal(
+                Path.of(
+                    Objects.requireNonNullElse(
+                        System.getenv(TodosEnv.REVIEW_JOURNAL),
+                        Path.of(
+                            System.getProperty("java.io.tmpdir"),
+                            "self-todos-reviews.jsonl"
+                        ).toString()
+                    )
+                )
+            ),
+            new FairShare(settings)
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param reviewer Reviews the puzzles of a job.
+     * @param threads Number of worker threads, 0 disables the queue.
+     * @param capacity How many jobs can wait for a thread.
+     */
+    public ReviewQueue(
+        final Reviewer reviewer,
+        final int threads,
+        final int capacity
+    ) {
+        this(reviewer, threads, capacity, Duration.ZERO);
+    }
+
+    /**
+     * Ctor.
+     * @param reviewer Reviews the puzzles of a job.
+     * @param threads Number of worker threads, 0 disables the queue.
+     * @param capacity How many jobs can wait for a thread.
+     * @param debounce How long a review waits for more pushes.
+     */
+    public ReviewQueue(
+        final Reviewer reviewer,
+        final int threads,
+        final int capacity,
+        final Duration debounce
+    ) {
+        this(reviewer, threads, capacity, debounce, new ReviewJournal(null));
+    }
+
+    /**
+     * Ctor.
+     * @param reviewer Reviews the puzzles of a job.
+     * @param threads Number of worker threads, 0 disables the queue.
+     * @param capacity How many jobs can wait for a thread.
+     * @param debounce How long a review waits for more pushes.
+     * @param journal Journal of the jobs.
+     */
+    public ReviewQueue(
+        final Reviewer reviewer,
+        final int threads,
+        final int capacity,
+        final Duration debounce,
+        final ReviewJournal journal
+    ) {
+        this(
+            reviewer, threads, capacity, debounce, journal,
+            new FairShare(new ProjectSettings(new Properties()))
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param reviewer Reviews the puzzles of a job.
+     * @param threads Number of worker threads, 0 disables the queue.
+     * @param capacity How many jobs can wait for a thread.
+     * @param debounce How long a review waits for more pushes.
+     * @param journal Journal of the jobs.
+     * @param fair Order in which the waiting reviews get a thread.
+     */
+    ReviewQueue(
+        final Reviewer reviewer,
+        final int threads,
+        final int capacity,
+        final Duration debounce,
+        final ReviewJournal journal,
+        final FairShare fair
+    ) {
+        this.reviewer = reviewer;
+        this.journal = journal;
+        this.fair = fair;
+        this.threads = threads;
+        this.capacity = capacity;
+        this.debounce = debounce;
+        if (threads > 0) {
+            this.workers = new KeyedExecutor(threads, Integer.MAX_VALUE);
+            this.timer = Executors.newSingleThreadScheduledExecutor();
+        } else {
+            this.workers = null;
+            this.timer = null;
+        }
+        this.pending = new HashMap<>();
+        this.running = new HashMap<>();
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, ReviewJob> eldest
+            ) {
+                return this.size() > ReviewQueue.HISTORY;
+            }
+        };
+    }
+
+    /**
+     * Are the pushes reviewed in the background?
+     * @return True or false.
+     */
+    public boolean enabled() {
+        return this.workers != null;
+    }
+
+    /**
+     * Start the queue, replaying the jobs of the journal which were not
+     * completed.
+     * @throws IOException If the journal cannot be read or written.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (this.workers != null) {
+            final List<JsonObject> replayed = this.journal.open();
+            if (!replayed.isEmpty()) {
+                LOG.info("Replaying " + replayed.size() + " reviews.");
+            }
+            for (final JsonObject record : replayed) {
+                final ReviewJob job = new ReviewJob(record);
+                synchronized (this.jobs) {
+                    this.enqueue(job);
+                }
+            }
+        }
+    }
+
+    /**
+     * Enqueue the review of a push. If a review of the same repository
+     * is waiting, the push replaces it; if one is running, it's superseded.
+     * The job is synced to the journal before this method returns.
+     * @param project Project.
+     * @param type Type of the webhook event.
+     * @param payload Payload of the push.
+     * @return The job or null if the queue is full.
+     */
+    public ReviewJob submit(
+        final Project project,
+        final String type,
+        final String payload
+    ) {
+        ReviewJob job = new ReviewJob(
+            project.provider(), project.repoFullName(),
+            project.projectManager().username(), type, payload
+        );
+        long seq = 0;
+        synchronized (this.jobs) {
+            if (this.pending.containsKey(ReviewQueue.key(job))
+                || this.pending.size() < this.capacity) {
+                seq = this.journal.enqueued(job);
+                this.enqueue(job);
+            } else {
+                LOG.warn(
+                    "Review queue is full, refusing the push to "
+                    + project.repoFullName() + " at " + project.provider()
+                );
+                job = null;
+            }
+        }
+        try {
+            this.journal.sync(seq);
+        } catch (final IOException ex) {
+            LOG.error("Review not journaled, it won't survive a restart.", ex);
+        }
+        return job;
+    }
+
+    /**
+     * One of the last jobs.
+     * @param id Id of the job.
+     * @return The job or null if it's unknown.
+     */
+    public ReviewJob job(final String id) {
+        synchronized (this.jobs) {
+            return this.jobs.get(id);
+        }
+    }
+
+    /**
+     * Statistics of the queue: number of threads, of waiting jobs, for
+     * each repository its queue depth and wait times, for each Project
+     * Manager its waiting reviews, wait times and latencies, and the state
+     * of the journal, with its failure if its writer stopped.
+     * @return JsonObject.
+     */
+    public JsonObject json() {
+        final JsonObject json;
+        if (this.workers == null) {
+            json = Json.createObjectBuilder()
+                .add("threads", 0)
+                .add("journal", this.journal.json())
+                .build();
+        } else {
+            json = Json.createObjectBuilder()
+                .add("threads", this.threads)
+                .add("waiting", this.waiting())
+                .add("repos", this.workers.json())
+                .add("managers", this.fair.json())
+                .add("journal", this.journal.json())
+                .build();
+        }
+        return json;
+    }
+
+    /**
+     * Number of jobs waiting, in all the repositories.
+     * @return Integer.
+     */
+    private int waiting() {
+        synchronized (this.jobs) {
+            return this.pending.size();
+        }
+    }
+
+    /**
+     * Stop the workers, interrupting the running reviews. The journal
+     * is closed first, so the interrupted reviews are not recorded as
+     * completed and will be replayed.
+     */
+    @PreDestroy
+    public void close() {
+        synchronized (this.jobs) {
+            this.journal.close();
+        }
+        if (this.workers != null) {
+            this.timer.shutdownNow();
+            this.workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Enqueue the job, replacing the waiting one of the same repository
+     * and superseding the running one. Must be called while holding the
+     * lock on the jobs.
+     * @param job Job.
+     */
+    private void enqueue(final ReviewJob job) {
+        final String key = ReviewQueue.key(job);
+        this.jobs.put(job.jobId(), job);
+        final ReviewJob previous = this.pending.put(key, job);
+        final ReviewJob current = this.running.get(key);
+        if (current != null) {
+            current.supersede();
+        }
+        if (previous == null) {
+            this.dispatch(key);
+        } else {
+            previous.supersede();
+            this.journal.completed(previous);
+        }
+    }
+
+    /**
+     * Give the waiting review of the repository to the workers, after the
+     * debounce window. Must be called while holding the lock on the jobs.
+     * If it can't be dispatched, it fails, so the next push to the
+     * repository is dispatched instead of replacing it forever.
+     * @param key Repository.
+     * @checkstyle IllegalCatch (30 lines)
+     */
+    private void dispatch(final String key) {
+        final Runnable task = () -> {
+            try {
+                final double tag;
+                synchronized (this.jobs) {
+                    tag = this.fair.tag(this.pending.get(key));
+                }
+                this.workers.execute(key, tag, () -> this.run(key, tag));
+            } catch (final RuntimeException ex) {
+                LOG.error("Could not dispatch the review of " + key, ex);
+                this.drop(key);
+            }
+        };
+        if (this.debounce.isZero()) {
+            task.run();
+        } else {
+            this.timer.schedule(
+                task, this.debounce.toMillis(), TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Fail the waiting job of a repository, which could not be dispatched.
+     * @param key Repository.
+     */
+    private void drop(final String key) {
+        synchronized (this.jobs) {
+            final ReviewJob job = this.pending.remove(key);
+            if (job != null) {
+                job.finish(false);
+                this.journal.completed(job);
+            }
+        }
+    }
+
+    /**
+     * Run the waiting job of a repository. It's started while holding the
+     * lock on the jobs, so a push can't supersede it before its thread is
+     * known and can be interrupted.
+     * @param key Repository.
+     * @param tag Tag given to the job by the fair share.
+     */
+    private void run(final String key, final double tag) {
+        final ReviewJob job;
+        final boolean started;
+        synchronized (this.jobs) {
+            job = this.pending.remove(key);
+            this.running.put(key, job);
+            started = job.start();
+        }
+        this.fair.started(job, tag);
+        boolean reviewed = false;
+        if (started) {
+            this.journal.started(job);
+            reviewed = this.review(job);
+        }
+        synchronized (this.jobs) {
+            this.running.remove(key);
+            job.finish(reviewed);
+            this.journal.completed(job);
+        }
+        this.fair.finished(job);
+    }
+
+    /**
+     * Review the puzzles of a started job.
+     * @param job Job.
+     * @return True if the puzzles were reviewed.
+     * @checkstyle IllegalCatch (30 lines)
+     */
+    private boolean review(final ReviewJob job) {
+        boolean reviewed = false;
+        try {
+            reviewed = this.reviewer.review(job);
+        } catch (final InterruptedException ex) {
+            LOG.warn(
+                "Review of Project " + job.repoFullName() + " at "
+                + job.provider() + " was interrupted."
+            );
+        } catch (final RuntimeException ex) {
+            LOG.error(
+                "Exception while reviewing puzzles for Project "
+                + job.repoFullName() + " at " + job.provider() + ": ",
+                ex
+            );
+        }
+        return reviewed;
+    }
+
+    /**
+     * Key of the job's repository.
+     * @param job Job.
+     * @return Provider and full name of the repository.
+     */
+    private static String key(final ReviewJob job) {
+        return job.provider() + "/" + job.repoFullName();
+    }
+
+    /**
+     * Reviews the puzzles of a job.
+     */
+    @FunctionalInterface
+    public interface Reviewer {
+
+        /**
+         * Review the puzzles of the job's Project.
+         * @param job Job.
+         * @return True if the puzzles were reviewed.
+         * @throws InterruptedException If the review was interrupted.
+         */
+        boolean review(ReviewJob job) throws InterruptedException;
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonWriter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanner meant to stay resident on the PDD host, so the reviews don't pay
+ * for a JVM start and warm-up each time. It listens on the loopback
+ * interface; a client sends the absolute path of a checked out repository
+ * on one line, the daemon writes the to-dos in its todos.json (with a
+ * {@link TodoTree}, in the format of `todo-finder-cli`) and answers with
+ * "OK" or "ERR message" on one line. Only directories inside the workspace
+ * root (the home directory of the PDD user, where the repositories are
+ * checked out) are scanned, so other local users cannot make it write
+ * anywhere else.<br><br>
+ * The ids of the puzzles are not the ones `todo-finder-cli` gives, see
+ * {@link DaemonScan}. Since self-todos is a Spring Boot jar, run it with:
+ * <pre>
+ * java -cp self-todos.jar -Dloader.main=com.selfxdsd.todos.ScanDaemon \
+ *   org.springframework.boot.loader.PropertiesLauncher port [root]
+ * </pre>
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ClassDataAbstractionCoupling (300 lines)
+ */
+public final class ScanDaemon implements Runnable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ScanDaemon.class
+    );
+
+    /**
+     * Server socket.
+     */
+    private final ServerSocket server;
+
+    /**
+     * Scanner of the checked out trees.
+     */
+    private final TodoTree tree;
+
+    /**
+     * To-dos of the already scanned blobs.
+     */
+    private final BlobCache cache;
+
+    /**
+     * Only the directories inside it are scanned.
+     */
+    private final Path root;
+
+    /**
+     * Threads serving the clients.
+     */
+    private final ExecutorService clients;
+
+    /**
+     * Ctor.
+     * @param server Server socket.
+     * @param cache To-dos of the already scanned blobs.
+     * @param root Only the directories inside it are scanned.
+     */
+    public ScanDaemon(
+        final ServerSocket server,
+        final BlobCache cache,
+        final Path root
+    ) {
+        this.server = server;
+        this.cache = cache;
+        this.root = root;
+        this.tree = new TodoTree(
+            ForkJoinPool.commonPool(), cache, new PathRules("", "")
+        );
+        this.clients = Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Start the daemon on the given port, with the {@link BlobCache}
+     * configured through the environment.
+     * @param args Port and, optionally, the workspace root (defaults to
+     *  the home directory).
+     * @throws IOException If something goes wrong.
+     */
+    public static void main(final String... args) throws IOException {
+        final BlobCache cache = new BlobCache();
+        cache.load();
+        String root = System.getProperty("user.home");
+        if(args.length > 1) {
+            root = args[1];
+        }
+        new ScanDaemon(
+            new ServerSocket(
+                Integer.parseInt(args[0]),
+                50,
+                InetAddress.getLoopbackAddress()
+            ),
+            cache,
+            Path.of(root)
+        ).run();
+    }
+
+    @Override
+    public void run() {
+        final ScheduledExecutorService saver = Executors
+            .newSingleThreadScheduledExecutor();
+        saver.scheduleWithFixedDelay(
+            this::save, 5, 5, TimeUnit.MINUTES
+        );
+        final Thread hook = new Thread(this::save);
+        Runtime.getRuntime().addShutdownHook(hook);
+        while (!this.server.isClosed()) {
+            try {
+                final Socket client = this.server.accept();
+                this.clients.execute(() -> this.serve(client));
+            } catch (final IOException ex) {
+                if(!this.server.isClosed()) {
+                    LOG.warn("Could not accept a client.", ex);
+                }
+            }
+        }
+        this.clients.shutdownNow();
+        saver.shutdownNow();
+        Runtime.getRuntime().removeShutdownHook(hook);
+        this.save();
+    }
+
+    /**
+     * Save the blob cache.
+     */
+    private void save() {
+        try {
+            this.cache.save();
+        } catch (final IOException ex) {
+            LOG.warn("Could not save the blob cache.", ex);
+        }
+    }
+
+    /**
+     * Serve one client.
+     * @param client Client.
+     */
+    private void serve(final Socket client) {
+        try (
+            Socket socket = client;
+            BufferedReader input = new BufferedReader(
+                new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8
+                )
+            );
+            Writer output = new OutputStreamWriter(
+                socket.getOutputStream(), StandardCharsets.UTF_8
+            )
+        ) {
+            final String directory = input.readLine();
+            String reply = "OK";
+            try {
+                this.scan(this.inside(directory));
+            } catch (final IOException | InvalidPathException
+                | NullPointerException ex) {
+                LOG.warn("Could not scan " + directory, ex);
+                reply = "ERR " + ex.getMessage();
+            }
+            output.write(reply.replace('\n', ' ') + "\n");
+            output.flush();
+        } catch (final IOException ex) {
+            LOG.warn("Could not answer a client.", ex);
+        }
+    }
+
+    /**
+     * The directory to scan, if it is inside the workspace root.
+     * @param directory Directory sent by the client.
+     * @return Real path of the directory.
+     * @throws IOException If it doesn't exist or is not inside the root.
+     */
+    private Path inside(final String directory) throws IOException {
+        final Path real = Path.of(directory).toRealPath();
+        if(!real.startsWith(this.root.toRealPath())
+            || real.equals(this.root.toRealPath())
+            || !Files.isDirectory(real)) {
+            throw new IOException(
+                directory + " is not a directory inside " + this.root
+            );
+        }
+        return real;
+    }
+
+    /**
+     * Scan a directory and write the to-dos in its todos.json.
+     * @param directory Directory.
+     * @throws IOException If it cannot be scanned or todos.json cannot be
+     *  written.
+     */
+    private void scan(final Path directory) throws IOException {
+        final JsonArrayBuilder todos = Json.createArrayBuilder();
+        for(final TodoTree.Found found : this.tree.scan(directory)) {
+            final Todo todo = found.todo();
+            todos.add(
+                Json.createObjectBuilder()
+                    .add("id", todo.puzzleId(found.file()))
+                    .add("start", todo.start())
+                    .add("end", todo.end())
+                    .add("originatingTicket", "#" + todo.ticket())
+                    .add("estimatedTime", todo.estimate())
+                    .add("body", todo.body())
+                    .add("file", found.file())
+            );
+        }
+        final Path temp = Files.createTempFile(directory, "todos", ".json");
+        try (
+            OutputStream out = Files.newOutputStream(temp);
+            JsonWriter writer = Json.createWriter(out)
+        ) {
+            writer.writeArray(todos.build());
+        }
+        Files.move(
+            temp,
+            directory.resolve("todos.json"),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE
+        );
+    }
+}
@@ -0,0 +1,312 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The PDD schemas, compiled once for the whole application and kept by
+ * version, with one XML reader and one validator per version for each
+ * thread. The schema of version X is the resource X.xsd, so a new PDD
+ * version only needs its XSD on the classpath; documents of an unknown
+ * version are validated with the default schema.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class Schemas {
+
+    /**
+     * The PDD schemas.
+     */
+    static final Schemas PDD = new Schemas("0.20.5");
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        Schemas.class
+    );
+
+    /**
+     * What a version looks like.
+     */
+    private static final Pattern VERSION = Pattern.compile("[0-9.]+");
+
+    /**
+     * Version used for documents which don't say theirs or whose schema
+     * is unknown.
+     */
+    private final String fallback;
+
+    /**
+     * Compiled schemas, by version.
+     */
+    private final Map<String, Schema> compiled;
+
+    /**
+     * XML reader of each thread.
+     */
+    private final ThreadLocal<XMLReader> readers;
+
+    /**
+     * Validators of each thread, by version.
+     */
+    private final ThreadLocal<Map<String, ValidatorHandler>> validators;
+
+    /**
+     * Ctor.
+     * @param fallback Version used for documents which don't say theirs
+     *  or whose schema is unknown.
+     */
+    Schemas(final String fallback) {
+        this.fallback = fallback;
+        this.compiled = new ConcurrentHashMap<>();
+        this.readers = new ThreadLocal<>();
+        this.validators = ThreadLocal.withInitial(HashMap::new);
+    }
+
+    /**
+     * The namespace aware XML reader of this thread.
+     * @return XMLReader.
+     * @throws SAXException If the reader cannot be configured.
+     * @throws ParserConfigurationException If the reader cannot be created.
+     */
+    XMLReader reader() throws SAXException, ParserConfigurationException {
+        XMLReader reader = this.readers.get();
+        if(reader == null) {
+            final SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            reader = factory.newSAXParser().getXMLReader();
+            this.readers.set(reader);
+        }
+        return reader;
+    }
+
+    /**
+     * Content handler validating the document, with the schema of the
+     * version named by its root element, before the events reach next.
+     * @param next Handler of the validated events.
+     * @return ContentHandler.
+     */
+    ContentHandler validating(final ContentHandler next) {
+        return new Validating(next);
+    }
+
+    /**
+     * The compiled schema of a version.
+     * @param version Version, may be null.
+     * @return Schema.
+     * @throws SAXException If the schema cannot be compiled.
+     */
+    Schema schema(final String version) throws SAXException {
+        String known = this.fallback;
+        if(version != null && Schemas.VERSION.matcher(version).matches()
+            && Schemas.class.getClassLoader()
+                .getResource(version + ".xsd") != null) {
+            known = version;
+        }
+        Schema schema = this.compiled.get(known);
+        if(schema == null) {
+            schema = this.compile(known);
+        }
+        return schema;
+    }
+
+    /**
+     * The validator of a version, for this thread.
+     * @param version Version, may be null.
+     * @return ValidatorHandler.
+     * @throws SAXException If the schema cannot be compiled.
+     */
+    private ValidatorHandler validator(final String version)
+        throws SAXException {
+        final Map<String, ValidatorHandler> mine = this.validators.get();
+        final String key = String.valueOf(version);
+        ValidatorHandler validator = mine.get(key);
+        if(validator == null) {
+            validator = this.schema(version).newValidatorHandler();
+            mine.put(key, validator);
+        }
+        return validator;
+    }
+
+    /**
+     * Compile the schema of a version, once.
+     * @param version Known version.
+     * @return Schema.
+     * @throws SAXException If the schema cannot be compiled.
+     */
+    private synchronized Schema compile(final String version)
+        throws SAXException {
+        Schema schema = this.compiled.get(version);
+        if(schema == null) {
+            final URL xsd = Schemas.class.getClassLoader()
+                .getResource(version + ".xsd");
+            schema = SchemaFactory
+                .newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                .newSchema(xsd);
+            this.compiled.put(version, schema);
+            LOG.info("Compiled the PDD schema " + version + " from " + xsd);
+        }
+        return schema;
+    }
+
+    /**
+     * Validates with the schema of the document's version: the events
+     * before the root element are kept until the version is known, then
+     * everything goes through the validator of that version.
+     * @checkstyle ParameterNumber (150 lines)
+     */
+    private final class Validating extends DefaultHandler {
+
+        /**
+         * Handler of the validated events.
+         */
+        private final ContentHandler next;
+
+        /**
+         * Prefix mappings before the root element, prefix and uri.
+         */
+        private final List<String[]> prefixes;
+
+        /**
+         * Locator of the document.
+         */
+        private Locator locator;
+
+        /**
+         * Validator, once the root element is read.
+         */
+        private ValidatorHandler validator;
+
+        /**
+         * Ctor.
+         * @param next Handler of the validated events.
+         */
+        Validating(final ContentHandler next) {
+            this.next = next;
+            this.prefixes = new ArrayList<>();
+        }
+
+        @Override
+        public void setDocumentLocator(final Locator where) {
+            this.locator = where;
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri)
+            throws SAXException {
+            if(this.validator == null) {
+                this.prefixes.add(new String[] {prefix, uri});
+            } else {
+                this.validator.startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix)
+            throws SAXException {
+            this.validator.endPrefixMapping(prefix);
+        }
+
+        @Override
+        public void startElement(
+            final String uri,
+            final String localName,
+            final String qName,
+            final Attributes attributes
+        ) throws SAXException {
+            if(this.validator == null) {
+                this.validator = Schemas.this.validator(
+                    attributes.getValue("version")
+                );
+                this.validator.setContentHandler(this.next);
+                if(this.locator != null) {
+                    this.validator.setDocumentLocator(this.locator);
+                }
+                this.validator.startDocument();
+                for(final String[] prefix : this.prefixes) {
+                    this.validator.startPrefixMapping(prefix[0], prefix[1]);
+                }
+            }
+            this.validator.startElement(uri, localName, qName, attributes);
+        }
+
+        @Override
+        public void endElement(
+            final String uri,
+            final String localName,
+            final String qName
+        ) throws SAXException {
+            this.validator.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void characters(
+            final char[] chars,
+            final int start,
+            final int length
+        ) throws SAXException {
+            this.validator.characters(chars, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(
+            final char[] chars,
+            final int start,
+            final int length
+        ) throws SAXException {
+            this.validator.ignorableWhitespace(chars, start, length);
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            if(this.validator != null) {
+                this.validator.endDocument();
+            }
+        }
+    }
+}
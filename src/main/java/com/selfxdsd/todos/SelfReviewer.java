@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Self;
+import com.selfxdsd.core.projects.WebhookEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reviews the jobs of the {@link ReviewQueue}. The Self Core and
+ * Puzzles components are request scoped, so each job opens its own
+ * Self Core and looks the Project up again.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class SelfReviewer implements ReviewQueue.Reviewer {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        SelfReviewer.class
+    );
+
+    /**
+     * Puzzles as configured for each Project.
+     */
+    private final ConfiguredPuzzlesProvider configured;
+
+    /**
+     * Pooled SSH connection to the PDD host.
+     */
+    private final SshPool pool;
+
+    /**
+     * The Issue of each puzzle, as remembered.
+     */
+    private final PuzzleIssues links;
+
+    /**
+     * Ctor.
+     * @param configured Puzzles as configured for each Project.
+     * @param pool Pooled SSH connection to the PDD host.
+     * @param links The Issue of each puzzle, as remembered.
+     */
+    SelfReviewer(
+        final ConfiguredPuzzlesProvider configured,
+        final SshPool pool,
+        final PuzzleIssues links
+    ) {
+        this.configured = configured;
+        this.pool = pool;
+        this.links = links;
+    }
+
+    @Override
+    public boolean review(final ReviewJob job) {
+        final Self self = new SelfCoreComponent();
+        boolean reviewed = false;
+        try {
+            final Project project = self.projects().getProjectById(
+                job.repoFullName(), job.provider()
+            );
+            if (project == null) {
+                LOG.warn(
+                    "Project " + job.repoFullName() + " at "
+                    + job.provider() + " not found, skipping its review."
+                );
+            } else {
+                reviewed = new PuzzlesComponent(
+                    this.configured, this.pool, this.links
+                ).review(
+                    WebhookEvents.create(
+                        project, job.type(), job.payload()
+                    ),
+                    new Push(job.payload())
+                );
+            }
+        } finally {
+            SelfReviewer.close(self);
+        }
+        return reviewed;
+    }
+
+    /**
+     * Close the Self Core of a job.
+     * @param self Self Core.
+     * @checkstyle IllegalCatch (10 lines)
+     */
+    private static void close(final Self self) {
+        try {
+            self.close();
+        } catch (final Exception ex) {
+            LOG.warn("Could not close Self Core: ", ex);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Puzzles in JSON (todo-finder-cli) or XML (PDD), parsed by the one parser
+ * the first non-whitespace character of the input points to: '[' or '{'
+ * for JSON, '&lt;' for XML. Input which looks like neither is given to
+ * each parser in turn. The parsers are quiet, the problem is reported
+ * once, after every candidate failed.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class SniffingPuzzles implements Puzzles<String> {
+
+    /**
+     * JSON puzzles.
+     */
+    private final Puzzles<String> json;
+
+    /**
+     * XML puzzles.
+     */
+    private final Puzzles<String> xml;
+
+    /**
+     * What happens when no parser could read the input.
+     */
+    private final ParseReport report;
+
+    /**
+     * Parser which read the input; its puzzles can be iterated any
+     * number of times.
+     */
+    private Iterable<Puzzle> puzzles;
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     */
+    SniffingPuzzles(final RepoContext context) {
+        this(
+            new JsonPuzzles(context, ParseReport.QUIET),
+            new XmlPuzzles(context, ParseReport.QUIET),
+            new CommentReport(context.commit())
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param json JSON puzzles, which don't report problems.
+     * @param xml XML puzzles, which don't report problems.
+     * @param report What happens when no parser could read the input.
+     */
+    SniffingPuzzles(
+        final Puzzles<String> json,
+        final Puzzles<String> xml,
+        final ParseReport report
+    ) {
+        this.json = json;
+        this.xml = xml;
+        this.report = report;
+        this.puzzles = Collections.emptyList();
+    }
+
+    @Override
+    public void process(final String input) throws PuzzlesProcessingException {
+        PuzzlesProcessingException failure = null;
+        boolean parsed = false;
+        for (final Puzzles<String> candidate : this.candidates(input)) {
+            if (!parsed) {
+                try {
+                    candidate.process(input);
+                    this.puzzles = candidate;
+                    parsed = true;
+                } catch (final PuzzlesProcessingException ex) {
+                    if (failure == null) {
+                        failure = ex;
+                    } else {
+                        failure.addSuppressed(ex);
+                    }
+                }
+            }
+        }
+        if (!parsed) {
+            this.report.failed(input, failure);
+            throw failure;
+        }
+    }
+
+    @Override
+    public Iterator<Puzzle> iterator() {
+        return this.puzzles.iterator();
+    }
+
+    /**
+     * Parsers which may read the input, in the order they are tried.
+     * @param input Input.
+     * @return Puzzles.
+     */
+    private List<Puzzles<String>> candidates(final String input) {
+        int idx = 0;
+        while (idx < input.length()
+            && (Character.isWhitespace(input.charAt(idx))
+                || input.charAt(idx) == '\uFEFF')) {
+            idx = idx + 1;
+        }
+        final List<Puzzles<String>> candidates;
+        if (idx == input.length()) {
+            candidates = List.of(this.json, this.xml);
+        } else if (input.charAt(idx) == '[' || input.charAt(idx) == '{') {
+            candidates = List.of(this.json);
+        } else if (input.charAt(idx) == '<') {
+            candidates = List.of(this.xml);
+        } else {
+            candidates = List.of(this.json, this.xml);
+        }
+        return candidates;
+    }
+}
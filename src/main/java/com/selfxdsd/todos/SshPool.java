@@ -0,0 +1,575 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.jcabi.ssh.Shell;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.selfxdsd.core.Env;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Application-wide pool of authenticated SSH sessions to the PDD host.
+ * Every {@link #exec(String, InputStream, OutputStream, OutputStream)}
+ * opens a new channel on one of the pooled sessions, so the handshake is
+ * paid once per session, not once per command. Each session multiplexes
+ * up to a number of channels; idle sessions are checked and evicted
+ * periodically.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ClassDataAbstractionCoupling (400 lines)
+ * @checkstyle ParameterNumber (500 lines)
+ */
+@Component
+@Lazy
+public class SshPool implements Shell, AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        SshPool.class
+    );
+
+    /**
+     * Milliseconds to wait for a session or channel to connect.
+     */
+    private static final int TIMEOUT = 30_000;
+
+    /**
+     * Creates new sessions.
+     */
+    private final Sessions factory;
+
+    /**
+     * Maximum number of open sessions.
+     */
+    private final int maxSessions;
+
+    /**
+     * Maximum number of channels open at the same time on one session.
+     */
+    private final int maxChannels;
+
+    /**
+     * Sessions without channels for longer than this are closed.
+     */
+    private final Duration idle;
+
+    /**
+     * Open sessions.
+     */
+    private final List<Pooled> sessions;
+
+    /**
+     * Sessions being connected, guarded by the monitor of the sessions.
+     */
+    private int connecting;
+
+    /**
+     * Default constructor for Spring. The private key is read only once.
+     * @throws IOException If the private key cannot be read.
+     */
+    public SshPool() throws IOException {
+        this(
+            SshPool.jsch(
+                System.getenv(Env.PDD_HOST),
+                Integer.parseInt(System.getenv(Env.PDD_PORT)),
+                System.getenv(Env.PDD_USERNAME),
+                Files.readString(
+                    Path.of(System.getenv(Env.PDD_PRIVATE_KEY))
+                )
+            ),
+            SshPool.intEnv(TodosEnv.SSH_MAX_SESSIONS, 4),
+            SshPool.intEnv(TodosEnv.SSH_MAX_CHANNELS, 8),
+            Duration.ofMinutes(SshPool.intEnv(TodosEnv.SSH_IDLE_MINUTES, 10))
+        );
+    }
+
+    /**
+     * Constructor.
+     * @param factory Creates new, connected sessions.
+     * @param maxSessions Maximum number of open sessions.
+     * @param maxChannels Maximum number of channels per session.
+     * @param idle Sessions idle for longer than this are closed.
+     */
+    public SshPool(
+        final Sessions factory,
+        final int maxSessions,
+        final int maxChannels,
+        final Duration idle
+    ) {
+        this.factory = factory;
+        this.maxSessions = maxSessions;
+        this.maxChannels = maxChannels;
+        this.idle = idle;
+        this.sessions = new ArrayList<>();
+    }
+
+    @Override
+    public int exec(
+        final String command,
+        final InputStream stdin,
+        final OutputStream stdout,
+        final OutputStream stderr
+    ) throws IOException {
+        final Pooled pooled = this.borrow();
+        try {
+            final ChannelExec channel;
+            try {
+                channel = (ChannelExec) pooled.session.openChannel("exec");
+            } catch (final JSchException ex) {
+                pooled.session.disconnect();
+                throw new IOException(ex);
+            }
+            return SshPool.run(channel, command, stdin, stdout, stderr);
+        } finally {
+            this.release(pooled);
+        }
+    }
+
+    /**
+     * Number of sessions currently open.
+     * @return Integer.
+     */
+    public int size() {
+        synchronized (this.sessions) {
+            return this.sessions.size();
+        }
+    }
+
+    /**
+     * Health check: sessions which are disconnected, idle for too long or
+     * don't answer a keep-alive are removed from the pool. The keep-alives
+     * are sent without holding the pool, so a slow host doesn't block the
+     * other commands.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evict() {
+        final List<Pooled> gone = new ArrayList<>();
+        final List<Pooled> probed = this.sweep(gone);
+        for(final Pooled pooled : probed) {
+            if(!SshPool.alive(pooled.session)) {
+                gone.add(pooled);
+            }
+        }
+        synchronized (this.sessions) {
+            for(final Pooled pooled : probed) {
+                pooled.probing = false;
+            }
+            this.sessions.removeAll(gone);
+            this.sessions.notifyAll();
+        }
+        for(final Pooled pooled : gone) {
+            pooled.session.disconnect();
+        }
+    }
+
+    /**
+     * Remove the disconnected or expired sessions without channels from
+     * the pool and mark the other ones without channels as probed.
+     * @param gone Removed sessions are added here.
+     * @return Sessions to probe with a keep-alive.
+     */
+    private List<Pooled> sweep(final List<Pooled> gone) {
+        final List<Pooled> probed = new ArrayList<>();
+        synchronized (this.sessions) {
+            final long now = System.currentTimeMillis();
+            final Iterator<Pooled> iterator = this.sessions.iterator();
+            while (iterator.hasNext()) {
+                final Pooled pooled = iterator.next();
+                if(pooled.channels == 0 && !pooled.probing) {
+                    if(pooled.session.isConnected()
+                        && now - pooled.since < this.idle.toMillis()) {
+                        pooled.probing = true;
+                        probed.add(pooled);
+                    } else {
+                        gone.add(pooled);
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        return probed;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this.sessions) {
+            for(final Pooled pooled : this.sessions) {
+                pooled.session.disconnect();
+            }
+            this.sessions.clear();
+        }
+    }
+
+    /**
+     * Take a session with a free channel, opening a new one if needed and
+     * allowed, or waiting for one to be released.
+     * @return Pooled session.
+     * @throws IOException If a new session cannot be opened.
+     */
+    private Pooled borrow() throws IOException {
+        Pooled chosen = this.reserve();
+        if(chosen == null) {
+            chosen = this.open();
+        }
+        return chosen;
+    }
+
+    /**
+     * Take a channel of an open session, waiting while the pool is full.
+     * If there is room for a new session, a slot is reserved for it
+     * instead, to be connected outside of the pool's monitor.
+     * @return Pooled session or null if a new session should be opened.
+     * @throws IOException If interrupted while waiting.
+     */
+    private Pooled reserve() throws IOException {
+        synchronized (this.sessions) {
+            Pooled chosen = null;
+            boolean reserved = false;
+            while (chosen == null && !reserved) {
+                this.sessions.removeIf(
+                    pooled -> pooled.channels == 0 && !pooled.probing
+                        && !pooled.session.isConnected()
+                );
+                chosen = this.freest();
+                if(chosen == null) {
+                    if(this.sessions.size() + this.connecting
+                        < this.maxSessions) {
+                        this.connecting = this.connecting + 1;
+                        reserved = true;
+                    } else {
+                        SshPool.await(this.sessions);
+                    }
+                }
+            }
+            if(chosen != null) {
+                chosen.channels = chosen.channels + 1;
+            }
+            return chosen;
+        }
+    }
+
+    /**
+     * Connect a new session in the slot reserved by {@link #reserve()}
+     * and take one of its channels.
+     * @return Pooled session.
+     * @throws IOException If it cannot connect.
+     */
+    private Pooled open() throws IOException {
+        Pooled opened = null;
+        try {
+            opened = new Pooled(this.connect());
+            opened.channels = 1;
+        } finally {
+            synchronized (this.sessions) {
+                this.connecting = this.connecting - 1;
+                if(opened != null) {
+                    this.sessions.add(opened);
+                }
+                this.sessions.notifyAll();
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * The connected session with the fewest channels, if it has a free one.
+     * Must be called holding the pool's monitor.
+     * @return Pooled session or null.
+     */
+    private Pooled freest() {
+        Pooled chosen = null;
+        for(final Pooled pooled : this.sessions) {
+            final boolean free = pooled.channels < this.maxChannels
+                && !pooled.probing && pooled.session.isConnected();
+            if(free && (chosen == null
+                || pooled.channels < chosen.channels)) {
+                chosen = pooled;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Give a session back to the pool.
+     * @param pooled Pooled session.
+     */
+    private void release(final Pooled pooled) {
+        synchronized (this.sessions) {
+            pooled.channels = pooled.channels - 1;
+            if(pooled.channels == 0) {
+                pooled.since = System.currentTimeMillis();
+            }
+            this.sessions.notifyAll();
+        }
+    }
+
+    /**
+     * Open a new session.
+     * @return Connected session.
+     * @throws IOException If it cannot connect.
+     */
+    private Session connect() throws IOException {
+        try {
+            return this.factory.create();
+        } catch (final JSchException ex) {
+            throw new IOException("Could not connect to the PDD host.", ex);
+        }
+    }
+
+    /**
+     * Run a command on the given channel and wait for it to finish.
+     * The command first records the id of its process group on the PDD
+     * host, so if the waiting thread is interrupted, the whole group is
+     * killed: the shell and everything it started.
+     * @param channel Channel.
+     * @param command Command.
+     * @param stdin Stdin.
+     * @param stdout Stdout.
+     * @param stderr Stderr.
+     * @return Exit code.
+     * @throws IOException If something goes wrong.
+     */
+    private static int run(
+        final ChannelExec channel,
+        final String command,
+        final InputStream stdin,
+        final OutputStream stdout,
+        final OutputStream stderr
+    ) throws IOException {
+        final String pid = "\"$HOME/.self-todos-"
+            + UUID.randomUUID().toString().replace("-", "") + ".pid\"";
+        try {
+            channel.setCommand(
+                "echo $$ > " + pid + "\ntrap 'rm -f " + pid + "' EXIT\n"
+                + command
+            );
+            channel.setInputStream(stdin, false);
+            channel.setOutputStream(stdout, true);
+            channel.setErrStream(stderr, true);
+            channel.connect(SshPool.TIMEOUT);
+            while (!channel.isClosed()) {
+                Thread.sleep(100);
+            }
+            return channel.getExitStatus();
+        } catch (final JSchException ex) {
+            throw new IOException(ex);
+        } catch (final InterruptedException ex) {
+            SshPool.kill(channel, pid);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while running " + command
+            );
+        } finally {
+            channel.disconnect();
+        }
+    }
+
+    /**
+     * Send a keep-alive on the session.
+     * @param session Session.
+     * @return True if it was sent.
+     * @checkstyle IllegalCatch (15 lines)
+     */
+    private static boolean alive(final Session session) {
+        boolean alive;
+        try {
+            session.sendKeepAliveMsg();
+            alive = true;
+        } catch (final Exception ex) {
+            LOG.warn("SSH session failed keep-alive.", ex);
+            alive = false;
+        }
+        return alive;
+    }
+
+    /**
+     * Kill the command running on the channel. The signal sent on the
+     * channel only reaches the remote shell, so the process group recorded
+     * by the shell is killed from another channel of the same session.
+     * sshd starts every command in a new session, whose non-interactive
+     * shell keeps its children in the same group.
+     * @param channel Channel.
+     * @param pid File with the process group id on the PDD host.
+     * @checkstyle IllegalCatch (30 lines)
+     */
+    private static void kill(final ChannelExec channel, final String pid) {
+        try {
+            channel.sendSignal("KILL");
+            final ChannelExec killer = (ChannelExec) channel.getSession()
+                .openChannel("exec");
+            try {
+                killer.setCommand(
+                    "PGID=$(cat " + pid + ") && kill -KILL -- -$PGID; rm -f "
+                    + pid
+                );
+                killer.connect(SshPool.TIMEOUT);
+                final long end = System.currentTimeMillis() + SshPool.TIMEOUT;
+                while (!killer.isClosed()
+                    && System.currentTimeMillis() < end) {
+                    Thread.sleep(100);
+                }
+            } finally {
+                killer.disconnect();
+            }
+        } catch (final Exception ex) {
+            LOG.warn("Could not kill remote command.", ex);
+        }
+    }
+
+    /**
+     * Wait on the pool's monitor.
+     * @param monitor Monitor, already held.
+     * @throws InterruptedIOException If interrupted.
+     */
+    private static void await(final Object monitor)
+        throws InterruptedIOException {
+        try {
+            monitor.wait(SshPool.TIMEOUT);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while waiting for an SSH session."
+            );
+        }
+    }
+
+    /**
+     * Session factory based on JSch, holding the private key.
+     * @param host Host.
+     * @param port Port.
+     * @param user Username.
+     * @param key Private key.
+     * @return Sessions.
+     * @throws IOException If the key is not valid.
+     */
+    private static Sessions jsch(
+        final String host,
+        final int port,
+        final String user,
+        final String key
+    ) throws IOException {
+        final JSch jsch = new JSch();
+        try {
+            jsch.addIdentity(
+                "self-todos", key.getBytes(StandardCharsets.UTF_8),
+                null, null
+            );
+        } catch (final JSchException ex) {
+            throw new IOException("Invalid PDD private key.", ex);
+        }
+        return () -> {
+            final Session session = jsch.getSession(user, host, port);
+            session.setConfig("StrictHostKeyChecking", "no");
+            session.setServerAliveInterval(SshPool.TIMEOUT);
+            session.connect(SshPool.TIMEOUT);
+            return session;
+        };
+    }
+
+    /**
+     * Integer environment variable.
+     * @param name Name.
+     * @param def Default value.
+     * @return Value.
+     */
+    private static int intEnv(final String name, final int def) {
+        final String value = System.getenv(name);
+        int result = def;
+        if(value != null && !value.isEmpty()) {
+            result = Integer.parseInt(value);
+        }
+        return result;
+    }
+
+    /**
+     * Creates new, connected SSH sessions.
+     */
+    @FunctionalInterface
+    public interface Sessions {
+
+        /**
+         * Open a new session.
+         * @return Connected session.
+         * @throws JSchException If it cannot connect.
+         */
+        Session create() throws JSchException;
+    }
+
+    /**
+     * Session in the pool.
+     */
+    private static final class Pooled {
+
+        /**
+         * The session.
+         */
+        private final Session session;
+
+        /**
+         * Open channels.
+         */
+        private int channels;
+
+        /**
+         * Idle since, in millis.
+         */
+        private long since;
+
+        /**
+         * Whether the health check is sending it a keep-alive.
+         */
+        private boolean probing;
+
+        /**
+         * Ctor.
+         * @param session Session.
+         */
+        private Pooled(final Session session) {
+            this.session = session;
+            this.since = System.currentTimeMillis();
+        }
+    }
+}
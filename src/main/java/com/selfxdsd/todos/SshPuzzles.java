@@ -24,25 +24,22 @@ package com.selfxdsd.todos;
 
 import com.jcabi.ssh.Shell;
 import com.selfxdsd.api.Project;
-import com.selfxdsd.api.ProjectManager;
 import org.cactoos.io.DeadInput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Representation of pdd puzzles from processing a SSH command.
  * @author criske
  * @version $Id$
  * @since 0.0.1
+ * @checkstyle ParameterNumber (100 lines)
  */
 public final class SshPuzzles implements Puzzles<Project> {
 
@@ -63,14 +60,52 @@ public final class SshPuzzles implements Puzzles<Project> {
      */
     private final Shell ssh;
 
+    /**
+     * Where the repository is checked out on the PDD host.
+     */
+    private final Workspace workspace;
+
+    /**
+     * How the to-dos are found on the PDD host.
+     */
+    private final Scan scan;
+
+    /**
+     * Ctor.
+     * @param ssh SSH.
+     * @param next Next puzzles for processing.
+     */
+    public SshPuzzles(final Shell ssh,
+                      final Puzzles<String> next) {
+        this(ssh, new ClonedWorkspace(), next);
+    }
+
+    /**
+     * Ctor.
+     * @param ssh SSH.
+     * @param workspace Where the repository is checked out on the PDD host.
+     * @param next Next puzzles for processing.
+     */
+    public SshPuzzles(final Shell ssh,
+                      final Workspace workspace,
+                      final Puzzles<String> next) {
+        this(ssh, workspace, new TodoFinderScan(), next);
+    }
+
     /**
      * Ctor.
      * @param ssh SSH.
+     * @param workspace Where the repository is checked out on the PDD host.
+     * @param scan How the to-dos are found on the PDD host.
      * @param next Next puzzles for processing.
      */
     public SshPuzzles(final Shell ssh,
+                      final Workspace workspace,
+                      final Scan scan,
                       final Puzzles<String> next) {
         this.ssh = ssh;
+        this.workspace = workspace;
+        this.scan = scan;
         this.next = next;
     }
 
@@ -78,27 +113,14 @@ public final class SshPuzzles implements Puzzles<Project> {
     public void process(final Project project)
         throws PuzzlesProcessingException {
         try {
-            final ProjectManager manager = project.projectManager();
             final String id = UUID.randomUUID().toString().replace("-", "");
             this.exec(
-                String.format(
-                    new BufferedReader(
-                        new InputStreamReader(
-                            this.getClass().getClassLoader()
-                                .getResourceAsStream("cloneRepoAndPdd.sh"),
-                            StandardCharsets.UTF_8
-                        )
-                    ).lines().collect(Collectors.joining("\n")),
-                    id,
-                    id,
-                    project.provider() + "-" + manager.username(),
-                    project.repoFullName()
-                )
+                this.workspace.open(id, project) + "\n" + this.scan.command()
             );
             final String puzzles = this.exec(
                 "cd self-todos-tmp-" + id + "/repo"
                 + " && cat ./todos.json");
-            this.exec("rm -rf self-todos-tmp-" + id);
+            this.exec(this.workspace.close(id, project));
             this.next.process(puzzles);
         } catch (final IOException | IllegalStateException exception) {
             LOG.error(
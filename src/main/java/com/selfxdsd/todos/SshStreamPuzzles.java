@@ -0,0 +1,455 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.jcabi.ssh.Shell;
+import com.selfxdsd.api.Project;
+import org.cactoos.io.DeadInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Puzzles read from the PDD host in a single SSH command: checkout, scan,
+ * print todos.json and cleanup all happen in one remote invocation. The
+ * remote stdout is spooled into the next Puzzles, which parse it while it
+ * is still being received. The spool never blocks the writer: JSch writes
+ * the output of every channel of a session from the session's one I/O
+ * thread, so blocking it would stall the other channels of a pooled
+ * session. Instead, the spool holds at most {@link #LIMIT} bytes which
+ * the parser didn't read yet; past that, the review fails.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ParameterNumber (150 lines)
+ */
+public final class SshStreamPuzzles implements Puzzles<Project> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        SshStreamPuzzles.class
+    );
+
+    /**
+     * Most bytes of output spooled and not parsed yet, by default.
+     */
+    static final int LIMIT = 64 * 1024 * 1024;
+
+    /**
+     * Next puzzles for processing.
+     */
+    private final Puzzles<InputStream> next;
+
+    /**
+     * SSH.
+     */
+    private final Shell ssh;
+
+    /**
+     * Where the repository is checked out on the PDD host.
+     */
+    private final Workspace workspace;
+
+    /**
+     * How the to-dos are found on the PDD host.
+     */
+    private final Scan scan;
+
+    /**
+     * Most bytes of output spooled and not parsed yet.
+     */
+    private final int limit;
+
+    /**
+     * Ctor.
+     * @param ssh SSH.
+     * @param workspace Where the repository is checked out on the PDD host.
+     * @param next Next puzzles for processing.
+     */
+    public SshStreamPuzzles(
+        final Shell ssh,
+        final Workspace workspace,
+        final Puzzles<InputStream> next
+    ) {
+        this(ssh, workspace, new TodoFinderScan(), next);
+    }
+
+    /**
+     * Ctor.
+     * @param ssh SSH.
+     * @param workspace Where the repository is checked out on the PDD host.
+     * @param scan How the to-dos are found on the PDD host.
+     * @param next Next puzzles for processing.
+     */
+    public SshStreamPuzzles(
+        final Shell ssh,
+        final Workspace workspace,
+        final Scan scan,
+        final Puzzles<InputStream> next
+    ) {
+        this(ssh, workspace, scan, next, SshStreamPuzzles.LIMIT);
+    }
+
+    /**
+     * Ctor.
+     * @param ssh SSH.
+     * @param workspace Where the repository is checked out on the PDD host.
+     * @param scan How the to-dos are found on the PDD host.
+     * @param next Next puzzles for processing.
+     * @param limit Most bytes of output spooled and not parsed yet.
+     */
+    SshStreamPuzzles(
+        final Shell ssh,
+        final Workspace workspace,
+        final Scan scan,
+        final Puzzles<InputStream> next,
+        final int limit
+    ) {
+        this.ssh = ssh;
+        this.workspace = workspace;
+        this.scan = scan;
+        this.next = next;
+        this.limit = limit;
+    }
+
+    @Override
+    public void process(final Project project)
+        throws PuzzlesProcessingException {
+        final String id = UUID.randomUUID().toString().replace("-", "");
+        final String script = this.script(id, project);
+        final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        try (Spool stdout = new Spool(this.limit)) {
+            final OutputStream sink = stdout.sink();
+            final FutureTask<Integer> remote = SshStreamPuzzles.start(
+                id,
+                () -> {
+                    try (OutputStream out = sink) {
+                        return this.ssh.exec(
+                            script, new DeadInput().stream(), out, stderr
+                        );
+                    }
+                }
+            );
+            try {
+                final InputStream input = new BufferedInputStream(stdout);
+                input.mark(1);
+                if(input.read() == -1) {
+                    SshStreamPuzzles.check(remote, script, stderr);
+                }
+                input.reset();
+                this.next.process(input);
+                SshStreamPuzzles.check(remote, script, stderr);
+            } finally {
+                remote.cancel(true);
+            }
+        } catch (final IOException | IllegalStateException exception) {
+            LOG.error(
+                exception.getClass().getSimpleName()
+                + " while processing the puzzles for Project "
+                + project.repoFullName() + " at " + project.provider() + ": ",
+                exception
+            );
+            throw new PuzzlesProcessingException(exception);
+        }
+    }
+
+    @Override
+    public Iterator<Puzzle> iterator() {
+        return this.next.iterator();
+    }
+
+    /**
+     * The remote script. Everything except the content of todos.json
+     * goes to stderr. Checkout and scan run in a subshell which stops at
+     * the first failing command; todos.json is only printed if they
+     * succeeded. Cleanup always runs and the exit code is the one of the
+     * subshell or of printing todos.json.
+     * @param id Id of the review.
+     * @param project Project.
+     * @return Script.
+     */
+    private String script(final String id, final Project project) {
+        return String.join(
+            "\n",
+            "cd \"$HOME\"",
+            "(",
+            "set -e",
+            this.workspace.open(id, project),
+            this.scan.command(),
+            ") 1>&2",
+            "STATUS=$?",
+            "cd \"$HOME\"",
+            "if [ $STATUS -eq 0 ]; then",
+            "cat self-todos-tmp-" + id + "/repo/todos.json",
+            "STATUS=$?",
+            "fi",
+            "{",
+            this.workspace.close(id, project),
+            "} 1>&2",
+            "exit $STATUS"
+        );
+    }
+
+    /**
+     * Run the remote command in a thread of its own.
+     * @param id Id of the review.
+     * @param command Remote command.
+     * @return Remote command, to be cancelled if it's no longer needed.
+     */
+    private static FutureTask<Integer> start(
+        final String id,
+        final Callable<Integer> command
+    ) {
+        final FutureTask<Integer> remote = new FutureTask<>(command);
+        final Thread thread = new Thread(remote, "self-todos-ssh-" + id);
+        thread.setDaemon(true);
+        thread.start();
+        return remote;
+    }
+
+    /**
+     * Wait for the remote command and make sure it succeeded.
+     * @param remote Remote command.
+     * @param script Script which was executed.
+     * @param stderr Its stderr.
+     * @throws IOException If the command could not be run.
+     * @throws IllegalStateException If it exited with non-zero code.
+     */
+    private static void check(
+        final FutureTask<Integer> remote,
+        final String script,
+        final ByteArrayOutputStream stderr
+    ) throws IOException {
+        final int exit;
+        try {
+            exit = remote.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+        if (exit != 0) {
+            throw new IllegalStateException(String.format(
+                "%s exits with non-zero code %d\nOutput: %s",
+                script,
+                exit,
+                stderr.toString(StandardCharsets.UTF_8)
+            ));
+        }
+    }
+
+    /**
+     * Pipe between the SSH channel and the parser. Writing never blocks;
+     * once the parser closes it, what is still written is dropped instead
+     * of failing the channel. If more than the limit is waiting for the
+     * parser, what is spooled is dropped and the parser fails.
+     */
+    private static final class Spool extends InputStream {
+
+        /**
+         * Marks the end of the stream.
+         */
+        private static final byte[] END = new byte[0];
+
+        /**
+         * Chunks written and not read yet.
+         */
+        private final BlockingQueue<byte[]> chunks;
+
+        /**
+         * Most bytes written and not read yet.
+         */
+        private final int limit;
+
+        /**
+         * Bytes written and not read yet.
+         */
+        private final AtomicLong spooled;
+
+        /**
+         * Chunk being read.
+         */
+        private byte[] chunk;
+
+        /**
+         * Position in the chunk being read.
+         */
+        private int pos;
+
+        /**
+         * Whether the reading side was closed.
+         */
+        private volatile boolean closed;
+
+        /**
+         * Whether more than the limit was waiting.
+         */
+        private volatile boolean overflown;
+
+        /**
+         * Ctor.
+         * @param limit Most bytes written and not read yet.
+         */
+        private Spool(final int limit) {
+            this.chunks = new LinkedBlockingQueue<>();
+            this.limit = limit;
+            this.spooled = new AtomicLong();
+            this.chunk = new byte[0];
+        }
+
+        /**
+         * Writing side, to be closed at the end of the stream.
+         * @return OutputStream.
+         */
+        private OutputStream sink() {
+            return new Sink(this);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            int read = this.read(one, 0, 1);
+            if(read == 1) {
+                read = one[0] & 0xFF;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int off, final int len)
+            throws IOException {
+            while (this.chunk != Spool.END && this.pos == this.chunk.length) {
+                this.chunk = this.next();
+                this.pos = 0;
+            }
+            if(this.overflown) {
+                throw new IOException(
+                    "More than " + this.limit + " bytes of output were "
+                    + "waiting to be parsed."
+                );
+            }
+            int read = -1;
+            if(this.chunk != Spool.END) {
+                read = Math.min(len, this.chunk.length - this.pos);
+                System.arraycopy(this.chunk, this.pos, buffer, off, read);
+                this.pos = this.pos + read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+            this.chunks.clear();
+        }
+
+        /**
+         * Wait for the next chunk.
+         * @return Chunk.
+         * @throws InterruptedIOException If interrupted.
+         */
+        private byte[] next() throws InterruptedIOException {
+            try {
+                final byte[] next = this.chunks.take();
+                this.spooled.addAndGet(-next.length);
+                return next;
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(ex.getMessage());
+            }
+        }
+
+        /**
+         * Spool a chunk, unless the limit is exceeded: then everything
+         * spooled is dropped and the reader fails at the end of what it
+         * already took.
+         * @param data Chunk.
+         */
+        private void spool(final byte[] data) {
+            if(!this.closed && !this.overflown) {
+                if(this.spooled.addAndGet(data.length) > this.limit) {
+                    this.overflown = true;
+                    this.chunks.clear();
+                    this.chunks.add(Spool.END);
+                } else {
+                    this.chunks.add(data);
+                }
+            }
+        }
+
+        /**
+         * Writing side of the Spool.
+         */
+        private static final class Sink extends OutputStream {
+
+            /**
+             * Spool written to.
+             */
+            private final Spool spool;
+
+            /**
+             * Ctor.
+             * @param spool Spool written to.
+             */
+            private Sink(final Spool spool) {
+                this.spool = spool;
+            }
+
+            @Override
+            public void write(final int data) {
+                this.write(new byte[] {(byte) data}, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] data, final int off, final int len) {
+                if(len > 0) {
+                    this.spool.spool(Arrays.copyOfRange(data, off, off + len));
+                }
+            }
+
+            @Override
+            public void close() {
+                this.spool.chunks.add(Spool.END);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A to-do found in the content of a file, without anything that depends
+ * on where the file is: the same content always has the same to-dos.
+ * A to-do without a ticket or an estimate is not valid and has no puzzle.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class Todo {
+
+    /**
+     * Ticket which originated the to-do.
+     */
+    private final int ticket;
+
+    /**
+     * Estimation, in minutes.
+     */
+    private final int estimate;
+
+    /**
+     * First line.
+     */
+    private final int start;
+
+    /**
+     * Last line.
+     */
+    private final int end;
+
+    /**
+     * Body.
+     */
+    private final String body;
+
+    /**
+     * Ctor.
+     * @param ticket Ticket which originated the to-do.
+     * @param estimate Estimation, in minutes.
+     * @param start First line.
+     * @param end Last line.
+     * @param body Body.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    Todo(
+        final int ticket,
+        final int estimate,
+        final int start,
+        final int end,
+        final String body
+    ) {
+        this.ticket = ticket;
+        this.estimate = estimate;
+        this.start = start;
+        this.end = end;
+        this.body = body;
+    }
+
+    /**
+     * Ticket which originated the to-do.
+     * @return Ticket number.
+     */
+    int ticket() {
+        return this.ticket;
+    }
+
+    /**
+     * Estimation.
+     * @return Minutes.
+     */
+    int estimate() {
+        return this.estimate;
+    }
+
+    /**
+     * First line.
+     * @return Line number.
+     */
+    int start() {
+        return this.start;
+    }
+
+    /**
+     * Last line.
+     * @return Line number.
+     */
+    int end() {
+        return this.end;
+    }
+
+    /**
+     * Body.
+     * @return Text.
+     */
+    String body() {
+        return this.body;
+    }
+
+    /**
+     * Does this to-do have everything a puzzle needs?
+     * @return True or false.
+     */
+    boolean valid() {
+        return this.ticket > 0 && this.estimate > 0
+            && this.start > 0 && this.end >= this.start;
+    }
+
+    /**
+     * The puzzle of this to-do, in the given file. Its id depends on the
+     * ticket, the body and the file, not on the lines, so it doesn't
+     * change when the to-do moves inside the file.
+     * @param builder Builder with the fields common to all puzzles.
+     * @param file Path of the file, relative to the repository.
+     * @return Puzzle.
+     */
+    Puzzle puzzle(final Puzzle.Builder builder, final String file) {
+        return builder
+            .setId(this.puzzleId(file))
+            .setTicket(this.ticket)
+            .setEstimate(this.estimate)
+            .setBody(this.body)
+            .setFile(file)
+            .setStart(this.start)
+            .setEnd(this.end)
+            .build();
+    }
+
+    /**
+     * Id of the puzzle: the first 8 bytes of the SHA-1 of the ticket,
+     * the body and the file, in hex.
+     * @param file Path of the file, relative to the repository.
+     * @return Id.
+     */
+    String puzzleId(final String file) {
+        final MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        final byte[] digest = sha.digest(
+            (this.ticket + "\n" + this.body + "\n" + file)
+                .getBytes(StandardCharsets.UTF_8)
+        );
+        final StringBuilder id = new StringBuilder();
+        for(int idx = 0; idx < 8; idx = idx + 1) {
+            id.append(String.format("%02x", digest[idx]));
+        }
+        return id.toString();
+    }
+}
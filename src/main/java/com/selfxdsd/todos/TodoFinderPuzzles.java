@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.cactoos.io.DeadInput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Puzzles of a checked out tree, found by running `todo-finder-cli` (or
+ * another {@link Scan}) as a local process. The todos.json it writes is
+ * given to the next Puzzles.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class TodoFinderPuzzles implements Puzzles<Path> {
+
+    /**
+     * Scan writing todos.json.
+     */
+    private final Scan scan;
+
+    /**
+     * Next puzzles, parsing todos.json.
+     */
+    private final Puzzles<String> next;
+
+    /**
+     * Ctor.
+     * @param scan Scan writing todos.json.
+     * @param next Next puzzles, parsing todos.json.
+     */
+    public TodoFinderPuzzles(final Scan scan, final Puzzles<String> next) {
+        this.scan = scan;
+        this.next = next;
+    }
+
+    @Override
+    public void process(final Path input) throws PuzzlesProcessingException {
+        try {
+            final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            final int exit = new LocalShell(input).exec(
+                this.scan.command(),
+                new DeadInput().stream(),
+                new ByteArrayOutputStream(),
+                stderr
+            );
+            if(exit != 0) {
+                throw new PuzzlesProcessingException(
+                    "The scan exits with non-zero code " + exit
+                    + "\nOutput: " + stderr.toString(StandardCharsets.UTF_8)
+                );
+            }
+            this.next.process(
+                Files.readString(
+                    input.resolve("todos.json"), StandardCharsets.UTF_8
+                )
+            );
+        } catch (final IOException ex) {
+            throw new PuzzlesProcessingException(ex);
+        }
+    }
+
+    @Override
+    public Iterator<Puzzle> iterator() {
+        return this.next.iterator();
+    }
+}
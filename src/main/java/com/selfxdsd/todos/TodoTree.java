@@ -0,0 +1,622 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import org.cactoos.io.DeadInput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The to-dos of a checked out tree, found in this JVM: directories are
+ * walked in parallel with a ForkJoinPool and each file is searched for
+ * the to-do marker through a memory-mapped buffer; only the lines of the
+ * to-dos are ever decoded. It knows nothing about Projects or Issues, it
+ * is the scanner behind {@link TreePuzzles} and the {@link ScanDaemon}.
+ * See {@link TreePuzzles} for the format of the to-dos.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ClassDataAbstractionCoupling (600 lines)
+ */
+final class TodoTree {
+
+    /**
+     * The to-do marker. Written with \x40 so PDD doesn't read it
+     * as a to-do.
+     */
+    private static final Pattern MARKER = Pattern.compile(
+        "[\\[<]?\\x40todo[\\]>]?\\s+#(\\d+)(?::(\\d+)(min|m|h)?)?\\s+(.+)"
+    );
+
+    /**
+     * Estimation of a to-do which doesn't specify one, in minutes.
+     */
+    private static final int DEFAULT_ESTIMATE = 30;
+
+    /**
+     * Files larger than this are not scanned.
+     */
+    private static final long MAX_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Files of a directory are scanned in batches of this size.
+     */
+    private static final int BATCH = 32;
+
+    /**
+     * Pool which walks the tree.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * To-dos of the already scanned blobs.
+     */
+    private final BlobCache cache;
+
+    /**
+     * Which paths are scanned.
+     */
+    private final PathRules rules;
+
+    /**
+     * Ctor.
+     * @param pool Pool which walks the tree.
+     * @param cache To-dos of the already scanned blobs.
+     * @param rules Which paths are scanned.
+     */
+    TodoTree(
+        final ForkJoinPool pool,
+        final BlobCache cache,
+        final PathRules rules
+    ) {
+        this.pool = pool;
+        this.cache = cache;
+        this.rules = rules;
+    }
+
+    /**
+     * Find the valid to-dos of the tree.
+     * @param root Root of the checked out repository.
+     * @return To-dos, sorted by file and first line.
+     * @throws IOException If the tree cannot be read.
+     */
+    List<Found> scan(final Path root) throws IOException {
+        final List<Found> found;
+        try {
+            found = this.pool.invoke(
+                new Directory(new Checkout(root, this.blobs(root)), root)
+            );
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        found.sort(
+            Comparator.comparing(Found::file)
+                .thenComparingInt(item -> item.todo().start())
+        );
+        return found;
+    }
+
+    /**
+     * Blob SHAs of the files in HEAD, if the cache is enabled.
+     * @param root Root of the repository.
+     * @return Blob SHA by relative path, empty if they cannot be read.
+     */
+    private Map<String, String> blobs(final Path root) {
+        final Map<String, String> blobs = new HashMap<>();
+        if(this.cache.enabled()) {
+            final ByteArrayOutputStream tree = new ByteArrayOutputStream();
+            int exit;
+            try {
+                exit = new LocalShell(root).exec(
+                    "git ls-tree -r -z --full-tree HEAD",
+                    new DeadInput().stream(),
+                    tree,
+                    new ByteArrayOutputStream()
+                );
+            } catch (final IOException ex) {
+                exit = -1;
+            }
+            if(exit == 0) {
+                for(final String entry : tree.toString(
+                    StandardCharsets.UTF_8
+                ).split("\0")) {
+                    final int tab = entry.indexOf('\t');
+                    final String[] meta = entry.substring(0, Math.max(tab, 0))
+                        .split(" ");
+                    if(meta.length == 3 && "blob".equals(meta[1])) {
+                        blobs.put(entry.substring(tab + 1), meta[2]);
+                    }
+                }
+            }
+        }
+        return blobs;
+    }
+
+    /**
+     * Scan one file.
+     * @param checkout Checkout being scanned.
+     * @param file File.
+     * @return Valid to-dos found in it.
+     * @throws IOException If the file cannot be read.
+     */
+    private List<Found> scan(final Checkout checkout, final Path file)
+        throws IOException {
+        final String path = checkout.root.relativize(file).toString()
+            .replace('\\', '/');
+        final String sha = checkout.blobs.get(path);
+        List<Todo> todos = null;
+        if(sha != null) {
+            todos = this.cache.get(sha);
+        }
+        if(todos == null) {
+            todos = TodoTree.read(file);
+            if(sha != null) {
+                this.cache.put(sha, todos);
+            }
+        }
+        final List<Found> found = new ArrayList<>(todos.size());
+        for(final Todo todo : todos) {
+            if(todo.valid()) {
+                found.add(new Found(path, todo));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Should this directory be walked?
+     * @param dir Directory.
+     * @param path Its path relative to the root.
+     * @return True or false.
+     */
+    private boolean walks(final Path dir, final String path) {
+        return !".git".equals(dir.getFileName().toString())
+            && !this.rules.excluded(path);
+    }
+
+    /**
+     * Should this entry be scanned?
+     * @param entry Entry of a directory, which is not a directory.
+     * @param path Its path relative to the root.
+     * @return True or false.
+     */
+    private boolean scans(final Path entry, final String path) {
+        return Files.isRegularFile(entry, LinkOption.NOFOLLOW_LINKS)
+            && this.rules.accepts(path);
+    }
+
+    /**
+     * Read the to-dos of one file.
+     * @param file File.
+     * @return To-dos found in it.
+     * @throws IOException If the file cannot be read.
+     */
+    private static List<Todo> read(final Path file) throws IOException {
+        final List<Todo> found = new ArrayList<>();
+        final long size = Files.size(file);
+        if(size > 0 && size <= TodoTree.MAX_SIZE) {
+            try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.READ
+            )) {
+                final MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, size
+                );
+                if(!TodoTree.binary(buffer)) {
+                    new Lines(buffer).todos(found);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Is this a binary file? Same heuristic as git: a NUL byte in the
+     * first 8000 bytes.
+     * @param buffer Content.
+     * @return True or false.
+     */
+    private static boolean binary(final MappedByteBuffer buffer) {
+        boolean binary = false;
+        final int limit = Math.min(buffer.limit(), 8000);
+        for(int idx = 0; idx < limit && !binary; idx = idx + 1) {
+            binary = buffer.get(idx) == 0;
+        }
+        return binary;
+    }
+
+    /**
+     * Lines of a mapped file.
+     */
+    private static final class Lines {
+
+        /**
+         * Content.
+         */
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Ctor.
+         * @param buffer Content.
+         */
+        private Lines(final MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Find the to-dos.
+         * @param found Where to add the to-dos.
+         */
+        private void todos(final List<Todo> found) {
+            int line = 1;
+            int start = 0;
+            int idx = 0;
+            final int limit = this.buffer.limit();
+            while (idx < limit) {
+                final byte current = this.buffer.get(idx);
+                if(current == '\n') {
+                    line = line + 1;
+                    start = idx + 1;
+                    idx = idx + 1;
+                } else if(current == '@' && this.marker(idx)) {
+                    final int end = this.end(start);
+                    final int last = this.todo(line, start, found);
+                    idx = end;
+                    while (line < last) {
+                        idx = this.end(idx + 1);
+                        line = line + 1;
+                    }
+                } else {
+                    idx = idx + 1;
+                }
+            }
+        }
+
+        /**
+         * Parse the to-do starting on the given line.
+         * @param line Line number.
+         * @param start Offset where the line starts.
+         * @param found Where to add the to-do.
+         * @return Last line of the to-do.
+         */
+        private int todo(
+            final int line,
+            final int start,
+            final List<Todo> found
+        ) {
+            int last = line;
+            final String text = this.text(start, this.end(start));
+            final Matcher matcher = TodoTree.MARKER.matcher(text);
+            if(matcher.find()) {
+                final String prefix = text.substring(0, matcher.start())
+                    + " ";
+                final StringBuilder body = new StringBuilder(
+                    matcher.group(4).trim()
+                );
+                int next = this.end(start) + 1;
+                while (next < this.buffer.limit()) {
+                    final String continued = this.text(next, this.end(next));
+                    if(continued.startsWith(prefix)
+                        && !continued.substring(prefix.length()).isBlank()) {
+                        body.append(' ').append(
+                            continued.substring(prefix.length()).trim()
+                        );
+                        last = last + 1;
+                        next = this.end(next) + 1;
+                    } else {
+                        next = this.buffer.limit();
+                    }
+                }
+                Lines.add(found, matcher, line, last, body.toString());
+            }
+            return last;
+        }
+
+        /**
+         * Does the to-do marker start at this offset?
+         * @param idx Offset of an '@'.
+         * @return True or false.
+         */
+        private boolean marker(final int idx) {
+            final byte[] word = {'t', 'o', 'd', 'o'};
+            boolean marker = idx + word.length < this.buffer.limit();
+            for(int pos = 0; pos < word.length && marker; pos = pos + 1) {
+                marker = this.buffer.get(idx + 1 + pos) == word[pos];
+            }
+            return marker;
+        }
+
+        /**
+         * Offset of the end of the line starting at the given offset.
+         * @param from Offset.
+         * @return Offset of '\n' or limit.
+         */
+        private int end(final int from) {
+            int idx = from;
+            while (idx < this.buffer.limit() && this.buffer.get(idx) != '\n') {
+                idx = idx + 1;
+            }
+            return idx;
+        }
+
+        /**
+         * Decode a line.
+         * @param from Start offset.
+         * @param until End offset.
+         * @return Text without the line terminator.
+         */
+        private String text(final int from, final int until) {
+            final byte[] bytes = new byte[until - from];
+            for(int idx = 0; idx < bytes.length; idx = idx + 1) {
+                bytes[idx] = this.buffer.get(from + idx);
+            }
+            String text = new String(bytes, StandardCharsets.UTF_8);
+            if(text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            return text;
+        }
+
+        /**
+         * Add the to-do. If its ticket or estimate doesn't fit in an int,
+         * it is added without a ticket, so it is not valid.
+         * @param found Where to add the to-do.
+         * @param matcher Matched marker.
+         * @param start First line.
+         * @param end Last line.
+         * @param body Body.
+         * @checkstyle ParameterNumber (20 lines)
+         */
+        private static void add(
+            final List<Todo> found,
+            final Matcher matcher,
+            final int start,
+            final int end,
+            final String body
+        ) {
+            int ticket;
+            int estimate;
+            try {
+                ticket = Integer.parseInt(matcher.group(1));
+                estimate = Lines.estimate(matcher);
+            } catch (final NumberFormatException | ArithmeticException ex) {
+                ticket = 0;
+                estimate = 0;
+            }
+            found.add(new Todo(ticket, estimate, start, end, body));
+        }
+
+        /**
+         * Estimation, in minutes.
+         * @param matcher Matched marker.
+         * @return Minutes.
+         */
+        private static int estimate(final Matcher matcher) {
+            int estimate = TodoTree.DEFAULT_ESTIMATE;
+            if(matcher.group(2) != null) {
+                estimate = Integer.parseInt(matcher.group(2));
+                if("h".equals(matcher.group(3))) {
+                    estimate = Math.multiplyExact(estimate, 60);
+                }
+            }
+            return estimate;
+        }
+    }
+
+    /**
+     * A checked out tree being scanned.
+     */
+    private static final class Checkout {
+
+        /**
+         * Root of the repository.
+         */
+        private final Path root;
+
+        /**
+         * Blob SHA by relative path.
+         */
+        private final Map<String, String> blobs;
+
+        /**
+         * Ctor.
+         * @param root Root of the repository.
+         * @param blobs Blob SHA by relative path.
+         */
+        private Checkout(final Path root, final Map<String, String> blobs) {
+            this.root = root;
+            this.blobs = blobs;
+        }
+    }
+
+    /**
+     * Task scanning a directory: sub-directories are forked, files are
+     * scanned in batches.
+     */
+    private final class Directory extends RecursiveTask<List<Found>> {
+
+        /**
+         * Serial version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Checkout being scanned.
+         */
+        private final transient Checkout checkout;
+
+        /**
+         * Directory to scan.
+         */
+        private final transient Path dir;
+
+        /**
+         * Ctor.
+         * @param checkout Checkout being scanned.
+         * @param dir Directory to scan.
+         */
+        private Directory(final Checkout checkout, final Path dir) {
+            this.checkout = checkout;
+            this.dir = dir;
+        }
+
+        @Override
+        protected List<Found> compute() {
+            final List<RecursiveTask<List<Found>>> tasks = new ArrayList<>();
+            List<Path> batch = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(
+                this.dir
+            )) {
+                for(final Path entry : entries) {
+                    final String path = this.checkout.root.relativize(entry)
+                        .toString().replace('\\', '/');
+                    if(Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        if(TodoTree.this.walks(entry, path)) {
+                            tasks.add(new Directory(this.checkout, entry));
+                        }
+                    } else if(TodoTree.this.scans(entry, path)) {
+                        batch.add(entry);
+                        if(batch.size() == TodoTree.BATCH) {
+                            tasks.add(new Batch(this.checkout, batch));
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if(!batch.isEmpty()) {
+                tasks.add(new Batch(this.checkout, batch));
+            }
+            final List<Found> found = new ArrayList<>();
+            for(final RecursiveTask<List<Found>> task : invokeAll(tasks)) {
+                found.addAll(task.join());
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Task scanning a batch of files.
+     */
+    private final class Batch extends RecursiveTask<List<Found>> {
+
+        /**
+         * Serial version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Checkout being scanned.
+         */
+        private final transient Checkout checkout;
+
+        /**
+         * Files to scan.
+         */
+        private final transient List<Path> files;
+
+        /**
+         * Ctor.
+         * @param checkout Checkout being scanned.
+         * @param files Files to scan.
+         */
+        private Batch(final Checkout checkout, final List<Path> files) {
+            this.checkout = checkout;
+            this.files = files;
+        }
+
+        @Override
+        protected List<Found> compute() {
+            final List<Found> found = new ArrayList<>();
+            try {
+                for(final Path file : this.files) {
+                    found.addAll(TodoTree.this.scan(this.checkout, file));
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return found;
+        }
+    }
+
+    /**
+     * A valid to-do and the file where it was found.
+     */
+    static final class Found {
+
+        /**
+         * Path of the file, relative to the root.
+         */
+        private final String file;
+
+        /**
+         * The to-do.
+         */
+        private final Todo todo;
+
+        /**
+         * Ctor.
+         * @param file Path of the file, relative to the root.
+         * @param todo The to-do.
+         */
+        Found(final String file, final Todo todo) {
+            this.file = file;
+            this.todo = todo;
+        }
+
+        /**
+         * Path of the file, relative to the root.
+         * @return Path.
+         */
+        String file() {
+            return this.file;
+        }
+
+        /**
+         * The to-do.
+         * @return Todo.
+         */
+        Todo todo() {
+            return this.todo;
+        }
+    }
+}
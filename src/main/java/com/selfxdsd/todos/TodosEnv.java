@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+/**
+ * Names of the environment variables read by self-todos, on top of the
+ * ones defined in Self Core's Env.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class TodosEnv {
+
+    /**
+     * How the repositories are checked out on the PDD host: "clone"
+     * (default, fresh clone for each review) or "mirror" (persistent
+     * mirror + worktree).
+     */
+    public static final String WORKSPACE = "self_todos_workspace";
+
+    /**
+     * Days after which an unused mirror is removed from the PDD host.
+     * Defaults to 7.
+     */
+    public static final String MIRROR_TTL = "self_todos_mirror_ttl_days";
+
+    /**
+     * Path of the properties file with per-Project settings,
+     * see {@link ProjectSettings}.
+     */
+    public static final String PROJECT_SETTINGS =
+        "self_todos_project_settings";
+
+    /**
+     * Maximum number of SSH sessions kept open to the PDD host.
+     * Defaults to 4.
+     */
+    public static final String SSH_MAX_SESSIONS = "self_todos_ssh_sessions";
+
+    /**
+     * Maximum number of commands running at the same time on one SSH
+     * session. Defaults to 8 (sshd's MaxSessions is 10 by default).
+     */
+    public static final String SSH_MAX_CHANNELS = "self_todos_ssh_channels";
+
+    /**
+     * Minutes after which an idle SSH session is closed. Defaults to 10.
+     */
+    public static final String SSH_IDLE_MINUTES =
+        "self_todos_ssh_idle_minutes";
+
+    /**
+     * Directory where the repositories are checked out when the
+     * puzzles are read locally. Defaults to the temporary directory.
+     */
+    public static final String LOCAL_WORKSPACE =
+        "self_todos_local_workspace";
+
+    /**
+     * Location of todo-finder-cli's jar on this machine.
+     * Defaults to /usr/local/bin/todo-finder-cli.jar.
+     */
+    public static final String TODO_FINDER_JAR = "self_todos_finder_jar";
+
+    /**
+     * Port of the {@link ScanDaemon} on the PDD host. Defaults to 7007.
+     */
+    public static final String DAEMON_PORT = "self_todos_daemon_port";
+
+    /**
+     * Seconds a review waits for the {@link ScanDaemon} to answer before
+     * falling back to todo-finder-cli. Defaults to 300.
+     */
+    public static final String DAEMON_TIMEOUT = "self_todos_daemon_timeout";
+
+    /**
+     * Number of branches whose last puzzles are kept in memory for the
+     * incremental reviews. Defaults to 1000.
+     */
+    public static final String SNAPSHOTS = "self_todos_snapshots";
+
+    /**
+     * File where the to-dos of the scanned git blobs are saved. Defaults
+     * to self-todos-blobs.bin in the temporary directory.
+     */
+    public static final String BLOB_CACHE = "self_todos_blob_cache";
+
+    /**
+     * Number of git blobs whose to-dos are cached, 0 disables the cache.
+     * Defaults to 100000.
+     */
+    public static final String BLOB_CACHE_ENTRIES =
+        "self_todos_blob_cache_entries";
+
+    /**
+     * Number of threads reviewing the pushes in the background, see
+     * {@link ReviewQueue}. Defaults to 0: the pushes are reviewed while
+     * self-pm waits for the response.
+     */
+    public static final String REVIEW_THREADS = "self_todos_review_threads";
+
+    /**
+     * Number of reviews which can wait for a thread, the next pushes are
+     * refused. Defaults to 100.
+     */
+    public static final String REVIEW_QUEUE = "self_todos_review_queue";
+
+    /**
+     * Seconds a background review waits for more pushes to the same
+     * repository, which replace the commit to review. Defaults to 5.
+     */
+    public static final String REVIEW_DEBOUNCE =
+        "self_todos_review_debounce";
+
+    /**
+     * File of the background reviews' journal, see {@link ReviewJournal}.
+     * Defaults to self-todos-reviews.jsonl in the temporary directory.
+     */
+    public static final String REVIEW_JOURNAL = "self_todos_review_journal";
+
+    /**
+     * Maximum number of reviews in flight (running, or waiting in the
+     * background), see {@link Admission}. Defaults to 0, no limit.
+     */
+    public static final String MAX_REVIEWS = "self_todos_max_reviews";
+
+    /**
+     * Megabytes of disk the reviews in flight may use on the PDD host.
+     * Defaults to 0, no limit.
+     */
+    public static final String DISK_BUDGET = "self_todos_disk_budget_mb";
+
+    /**
+     * Megabytes of heap the reviews in flight may use. Defaults to 0, no
+     * limit.
+     */
+    public static final String HEAP_BUDGET = "self_todos_heap_budget_mb";
+
+    /**
+     * Number of puzzle Issues read at the same time from the provider,
+     * see {@link IssuesSnapshot}. Defaults to 8.
+     */
+    public static final String ISSUES_PREFETCH = "self_todos_issues_prefetch";
+
+    /**
+     * File where the Issue of each puzzle is remembered, see
+     * {@link PuzzleIssues}. Defaults to self-todos-issues.jsonl in the
+     * temporary directory.
+     */
+    public static final String PUZZLE_ISSUES = "self_todos_puzzle_issues";
+
+    /**
+     * Hours after which the Issues of a Project are searched again, to
+     * verify what {@link PuzzleIssues} remembers. Defaults to 24, 0
+     * searches them in every review.
+     */
+    public static final String PUZZLE_ISSUES_VERIFY =
+        "self_todos_puzzle_issues_verify_hours";
+
+    /**
+     * Hidden ctor.
+     */
+    private TodosEnv() {
+    }
+
+}
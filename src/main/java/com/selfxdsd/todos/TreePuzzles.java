@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Puzzles found by scanning a checked out repository directly in this JVM,
+ * with a {@link TodoTree}, as an alternative to running `todo-finder-cli`.
+ * Directories are walked in parallel with a ForkJoinPool and each file is
+ * searched for the to-do marker through a memory-mapped buffer; only the
+ * lines of the to-dos are ever decoded.<br><br>
+ * A to-do looks like "@ todo #ticket:estimate body" (without the space
+ * after @), the estimate being in minutes (30min, 30m, 30) or hours (1h).
+ * The body may continue on the next lines, as long as they start with the
+ * same prefix as the first line, followed by a space.<br><br>
+ * The id of a puzzle depends on its ticket, body and file, so it doesn't
+ * change when the to-do moves inside the file. It is not the id
+ * `todo-finder-cli` would give to the same to-do; when a Project switches
+ * engines, its open Issues are matched to the puzzles by ticket and body
+ * (see {@link Relink}). To-dos without a ticket or an estimate (#0,
+ * :0min) or with numbers too large are skipped.<br><br>
+ * With a {@link BlobCache}, the blob SHA of each file is read with
+ * `git ls-tree` and the files whose blob was already scanned are not
+ * read again. With {@link PathRules}, excluded directories are not walked
+ * and only the accepted files are scanned.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ * @checkstyle ParameterNumber (300 lines)
+ */
+public final class TreePuzzles implements Puzzles<Path> {
+
+    /**
+     * Project where these puzzles are coming from.
+     */
+    private final Project project;
+
+    /**
+     * Latest commit of the repository, set on the puzzles.
+     */
+    private final Supplier<Commit> head;
+
+    /**
+     * Scanner of the checked out tree.
+     */
+    private final TodoTree tree;
+
+    /**
+     * Processed puzzles.
+     */
+    private final List<Puzzle> puzzles;
+
+    /**
+     * Ctor.
+     * @param project Project where these puzzles are coming from.
+     * @param commit Commit which triggered everything.
+     */
+    public TreePuzzles(final Project project, final Commit commit) {
+        this(project, commit, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Ctor.
+     * @param project Project where these puzzles are coming from.
+     * @param commit Commit which triggered everything.
+     * @param cache To-dos of the already scanned blobs.
+     */
+    public TreePuzzles(
+        final Project project,
+        final Commit commit,
+        final BlobCache cache
+    ) {
+        this(project, commit, cache, new PathRules("", ""));
+    }
+
+    /**
+     * Ctor.
+     * @param project Project where these puzzles are coming from.
+     * @param commit Commit which triggered everything.
+     * @param cache To-dos of the already scanned blobs.
+     * @param rules Which paths are scanned.
+     */
+    public TreePuzzles(
+        final Project project,
+        final Commit commit,
+        final BlobCache cache,
+        final PathRules rules
+    ) {
+        this(new RepoContext(project, commit), cache, rules);
+    }
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     * @param cache To-dos of the already scanned blobs.
+     * @param rules Which paths are scanned.
+     */
+    TreePuzzles(
+        final RepoContext context,
+        final BlobCache cache,
+        final PathRules rules
+    ) {
+        this(
+            context.project(),
+            context::head,
+            ForkJoinPool.commonPool(),
+            cache,
+            rules
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param project Project where these puzzles are coming from.
+     * @param commit Commit which triggered everything.
+     * @param pool Pool which walks the tree.
+     */
+    public TreePuzzles(
+        final Project project,
+        final Commit commit,
+        final ForkJoinPool pool
+    ) {
+        this(
+            project,
+            new RepoContext(project, commit)::head,
+            pool,
+            new BlobCache(null, 0),
+            new PathRules("", "")
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param project Project where these puzzles are coming from.
+     * @param head Latest commit of the repository.
+     * @param pool Pool which walks the tree.
+     * @param cache To-dos of the already scanned blobs.
+     * @param rules Which paths are scanned.
+     */
+    TreePuzzles(
+        final Project project,
+        final Supplier<Commit> head,
+        final ForkJoinPool pool,
+        final BlobCache cache,
+        final PathRules rules
+    ) {
+        this.project = project;
+        this.head = head;
+        this.tree = new TodoTree(pool, cache, rules);
+        this.puzzles = new ArrayList<>();
+    }
+
+    @Override
+    public void process(final Path input) throws PuzzlesProcessingException {
+        try {
+            final List<TodoTree.Found> found = this.tree.scan(input);
+            final Commit latest = this.head.get();
+            for(final TodoTree.Found todo : found) {
+                this.puzzles.add(
+                    todo.todo().puzzle(this.builder(latest), todo.file())
+                );
+            }
+        } catch (final IOException | IllegalStateException ex) {
+            throw new PuzzlesProcessingException(ex);
+        }
+    }
+
+    @Override
+    public Iterator<Puzzle> iterator() {
+        return this.puzzles.iterator();
+    }
+
+    /**
+     * Builder with the fields common to every puzzle.
+     * @param latest Latest commit.
+     * @return Builder.
+     */
+    private Puzzle.Builder builder(final Commit latest) {
+        return new Puzzle.Builder()
+            .setProject(this.project)
+            .setCommit(latest)
+            .setRole("DEV")
+            .setAuthor("")
+            .setEmail("")
+            .setTime("");
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+
+/**
+ * Place on the PDD host where a Project's repository is checked out
+ * before the to-dos are read. Both methods only return shell commands,
+ * they are executed by {@link SshPuzzles}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public interface Workspace {
+
+    /**
+     * Commands which check out the repository in
+     * self-todos-tmp-{id}/repo (relative to the home directory) and leave
+     * the shell inside it. They run with "set -e", so the shell exits if
+     * any of them fails instead of scanning (or deleting) files in the
+     * home directory.
+     * @param id Unique id of the review.
+     * @param project Project whose repository is checked out.
+     * @return Shell commands.
+     */
+    String open(final String id, final Project project);
+
+    /**
+     * Commands which remove everything created by
+     * {@link #open(String, Project)}.
+     * @param id Unique id of the review.
+     * @param project Project whose repository was checked out.
+     * @return Shell commands.
+     */
+    String close(final String id, final Project project);
+
+}
@@ -24,18 +24,13 @@ package com.selfxdsd.todos;
 
 import com.selfxdsd.api.Commit;
 import com.selfxdsd.api.Project;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
 
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.validation.SchemaFactory;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -49,6 +44,7 @@ import java.util.List;
  * @since 0.0.2
  * @checkstyle LineLength (300 lines)
  * @checkstyle ExecutableStatementCount (300 lines)
+ * @checkstyle ParameterNumber (300 lines)
  */
 public final class XmlPuzzles implements Puzzles<String> {
 
@@ -58,9 +54,14 @@ public final class XmlPuzzles implements Puzzles<String> {
     private final Project project;
 
     /**
-     * Commit which triggered everything.
+     * What happens when the to-dos cannot be parsed.
      */
-    private final Commit commit;
+    private final ParseReport report;
+
+    /**
+     * Repository of the review.
+     */
+    private final RepoContext context;
 
     /**
      * Processed puzzles.
@@ -73,68 +74,41 @@ public final class XmlPuzzles implements Puzzles<String> {
      * @param commit Commit which triggered everything.
      */
     public XmlPuzzles(final Project project, final Commit commit) {
-        this.project = project;
-        this.commit = commit;
+        this(new RepoContext(project, commit));
+    }
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     */
+    XmlPuzzles(final RepoContext context) {
+        this(context, new CommentReport(context.commit()));
+    }
+
+    /**
+     * Ctor.
+     * @param context Repository of the review.
+     * @param report What happens when the to-dos cannot be parsed.
+     */
+    XmlPuzzles(final RepoContext context, final ParseReport report) {
+        this.project = context.project();
+        this.context = context;
+        this.report = report;
         this.puzzles = new ArrayList<>();
     }
 
     @Override
     public void process(final String input) throws PuzzlesProcessingException {
         try {
-            final String schemaLanguage =
-                "http://java.sun.com/xml/jaxp/properties/schemaLanguage";
-            final String schema = "http://www.w3.org/2001/XMLSchema";
-            DocumentBuilderFactory factory = DocumentBuilderFactory
-                .newInstance();
-            factory.setNamespaceAware(true);
-            factory.setAttribute(schemaLanguage, schema);
-            final Document document = factory
-                .newDocumentBuilder()
-                .parse(new InputSource(new StringReader(input)));
-            SchemaFactory
-                .newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
-                .newSchema(
-                    this.getClass()
-                        .getClassLoader()
-                        .getResource("0.20.5.xsd")
-                ).newValidator()
-                .validate(new DOMSource(document));
-            final Element root = document
-                .getDocumentElement();
-            final NodeList puzzleTags = root.getElementsByTagName("puzzle");
-            final Commit latest = this.project.repo().commits().latest();
-            for (int i = 0; i < puzzleTags.getLength(); i++) {
-                final Node node = puzzleTags.item(i);
-                puzzles.add(new PuzzleElement((Element) node, latest));
-            }
+            final XMLReader reader = Schemas.PDD.reader();
+            final PuzzleHandler handler = new PuzzleHandler();
+            reader.setContentHandler(Schemas.PDD.validating(handler));
+            reader.parse(new InputSource(new StringReader(input)));
+            this.puzzles.addAll(handler.found);
         } catch (final SAXException
             | IOException
             | ParserConfigurationException exception) {
-            final StringWriter stacktrace = new StringWriter();
-            exception.printStackTrace(new PrintWriter(stacktrace));
-            String author = this.commit.author();
-            if(author != null && !author.isEmpty()) {
-                author = "@" + author + " ";
-            } else {
-                author = "";
-            }
-            this.commit.comments().post(
-                author + "There's been a problem while "
-                + "parsing the to-dos in the code. Most likely, the format is "
-                + "not correct. Read more about the to-do format [here]"
-                + "(https://docs.self-xdsd.com/microtasking.html#anatomy-of-a-todo). "
-                + "If you can't understand the error, just open an Issue "
-                + "[here](https://github.com/self-xdsd/self-todos).\n\n"
-                + "Parse result:\n\n"
-                + "```\n"
-                + input
-                + "```\n\n"
-                + "Error:\n\n"
-                + "```java\n"
-                + exception.getMessage() + "\n\n"
-                + stacktrace.toString() + "\n"
-                + "```"
-            );
+            this.report.failed(input, exception);
             throw new PuzzlesProcessingException(exception);
         }
     }
@@ -145,122 +119,117 @@ public final class XmlPuzzles implements Puzzles<String> {
     }
 
     /**
-     * Puzzle representation from a DOM Element.
+     * Builds the puzzles from the SAX events which passed validation,
+     * each one as soon as its element closes.
      */
-    private final class PuzzleElement implements Puzzle{
+    private final class PuzzleHandler extends DefaultHandler {
 
         /**
-         * Delegate.
+         * Puzzles built so far.
          */
-        private final Puzzle delegate;
+        private final List<Puzzle> found = new ArrayList<>();
 
         /**
-         * Ctor.
-         * @param element DOM Element.
-         * @param latest Latest commit from the repo.
+         * Text of the current element.
          */
-        private PuzzleElement(final Element element, final Commit latest){
-            this.delegate = new Puzzle.Builder()
-                .setProject(XmlPuzzles.this.project)
-                .setCommit(latest)
-                .setId(this.textContext(element, "id"))
-                .setTicket(Integer
-                    .parseInt(this.textContext(element, "ticket")))
-                .setBody(this.textContext(element, "body"))
-                .setEstimate(Integer
-                    .parseInt(this.textContext(element, "estimate")))
-                .setFile(this.textContext(element, "file"))
-                .setStart(Integer.parseInt(this
-                    .textContext(element, "lines")
-                    .split("-")[0]))
-                .setEnd(Integer.parseInt(this
-                    .textContext(element, "lines")
-                    .split("-")[1]))
-                .setRole(this.textContext(element, "role"))
-                .setAuthor(this.textContext(element, "author"))
-                .setEmail(this.textContext(element, "email"))
-                .setTime(this.textContext(element, "time"))
-                .build();
-        }
+        private final StringBuilder text = new StringBuilder();
 
-        @Override
-        public String getId() {
-            return delegate.getId();
-        }
-
-        @Override
-        public int getTicket() {
-            return delegate.getTicket();
-        }
-
-        @Override
-        public String getBody() {
-            return delegate.getBody();
-        }
-
-        @Override
-        public int getEstimate() {
-            return delegate.getEstimate();
-        }
-
-        @Override
-        public String getFile() {
-            return delegate.getFile();
-        }
-
-        @Override
-        public int getStart() {
-            return delegate.getStart();
-        }
-
-        @Override
-        public int getEnd() {
-            return delegate.getEnd();
-        }
-
-        @Override
-        public String getRole() {
-            return delegate.getRole();
-        }
-
-        @Override
-        public String getAuthor() {
-            return delegate.getAuthor();
-        }
-
-        @Override
-        public String getEmail() {
-            return delegate.getEmail();
-        }
+        /**
+         * Builder of the current puzzle.
+         */
+        private Puzzle.Builder builder;
 
         @Override
-        public String getTime() {
-            return delegate.getTime();
+        public void startElement(
+            final String uri,
+            final String localName,
+            final String qName,
+            final Attributes attributes
+        ) {
+            if("puzzle".equals(localName)) {
+                this.builder = new Puzzle.Builder()
+                    .setProject(XmlPuzzles.this.project)
+                    .setAuthor("")
+                    .setEmail("")
+                    .setTime("");
+            }
+            this.text.setLength(0);
         }
 
         @Override
-        public String issueTitle() {
-            return delegate.issueTitle();
+        public void characters(
+            final char[] chars,
+            final int start,
+            final int length
+        ) {
+            this.text.append(chars, start, length);
         }
 
         @Override
-        public String issueBody() {
-            return delegate.issueBody();
+        public void endElement(
+            final String uri,
+            final String localName,
+            final String qName
+        ) {
+            final String value = this.text.toString();
+            switch (localName) {
+                case "puzzle":
+                    this.found.add(
+                        this.builder
+                            .setCommit(XmlPuzzles.this.context.head())
+                            .build()
+                    );
+                    break;
+                case "id":
+                    this.builder.setId(value);
+                    break;
+                case "ticket":
+                    this.builder.setTicket(Integer.parseInt(value));
+                    break;
+                case "estimate":
+                    this.builder.setEstimate(Integer.parseInt(value));
+                    break;
+                case "lines":
+                    final String[] lines = value.split("-");
+                    this.builder
+                        .setStart(Integer.parseInt(lines[0]))
+                        .setEnd(Integer.parseInt(lines[1]));
+                    break;
+                default:
+                    this.field(localName, value);
+                    break;
+            }
+            this.text.setLength(0);
         }
 
         /**
-         * Text content from an xml tag.
-         * @param parent Parent Node.
-         * @param tagName Tag name.
-         * @return Text content.
+         * Set a text field of the current puzzle.
+         * @param name Name of the element.
+         * @param value Its text.
          */
-        private String textContext(final Element parent, final String tagName){
-            return parent
-                .getElementsByTagName(tagName).item(0)
-                .getTextContent();
+        private void field(final String name, final String value) {
+            switch (name) {
+                case "body":
+                    this.builder.setBody(value);
+                    break;
+                case "file":
+                    this.builder.setFile(value);
+                    break;
+                case "role":
+                    this.builder.setRole(value);
+                    break;
+                case "author":
+                    this.builder.setAuthor(value);
+                    break;
+                case "email":
+                    this.builder.setEmail(value);
+                    break;
+                case "time":
+                    this.builder.setTime(value);
+                    break;
+                default:
+                    break;
+            }
         }
-
     }
-
-
 }
@@ -0,0 +1,7 @@
+set -e
+whoami
+pwd
+mkdir self-todos-tmp-%s
+cd self-todos-tmp-%s
+%s
+cd repo
@@ -0,0 +1,13 @@
+set -e
+whoami
+pwd
+MIRROR="%3$s"
+mkdir -p "$(dirname "$MIRROR")"
+exec 9>"$MIRROR.lock"
+flock 9
+if [ -d "$MIRROR" ]; then git --git-dir="$MIRROR" fetch --prune --quiet origin; else git clone --mirror --quiet git@%2$s:%4$s "$MIRROR"; fi
+touch "$MIRROR"
+mkdir self-todos-tmp-%1$s
+git --git-dir="$MIRROR" worktree add --detach %6$sself-todos-tmp-%1$s/repo %5$s
+exec 9>&-
+cd self-todos-tmp-%1$s/repo
@@ -0,0 +1,9 @@
+SCANNED=
+if { command exec 3<>/dev/tcp/127.0.0.1/%1$d; } 2>/dev/null; then
+  pwd >&3
+  read -r -t %3$d SCANNED <&3
+  exec 3<&-
+fi
+if [ "$SCANNED" != "OK" ]; then
+  %2$s
+fi
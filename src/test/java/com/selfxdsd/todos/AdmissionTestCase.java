@@ -0,0 +1,81 @@
+package com.selfxdsd.todos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link Admission}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class AdmissionTestCase {
+
+    /**
+     * Reviews are refused while too many are in flight, and admitted
+     * again once one of them is over.
+     */
+    @Test
+    public void refusesTooManyReviews() {
+        final Admission admission = new Admission(1, 0, 0);
+        final Admission.Ticket first = admission.admit(new Push("{}"));
+        MatcherAssert.assertThat(first.refusal(), Matchers.nullValue());
+        MatcherAssert.assertThat(
+            admission.admit(new Push("{}")).refusal(),
+            Matchers.is(Admission.Budget.REVIEWS)
+        );
+        first.close();
+        first.close();
+        MatcherAssert.assertThat(
+            admission.admit(new Push("{}")).refusal(),
+            Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            admission.admit(new Push("{}")).refusal(),
+            Matchers.is(Admission.Budget.REVIEWS)
+        );
+    }
+
+    /**
+     * The size of the repository reported in the push counts against
+     * the disk budget.
+     */
+    @Test
+    public void refusesWhenDiskIsExhausted() {
+        final Admission admission = new Admission(0, 300L << 20, 0);
+        final Push big = new Push("{\"repository\":{\"size\":102400}}");
+        MatcherAssert.assertThat(big.size(), Matchers.is(100L << 20));
+        MatcherAssert.assertThat(
+            admission.admit(big).refusal(), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            admission.admit(big).refusal(),
+            Matchers.is(Admission.Budget.DISK)
+        );
+        MatcherAssert.assertThat(
+            admission.admit(
+                new Push("{\"repository\":{\"size\":1024}}")
+            ).refusal(),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * A repository bigger than the whole budget is admitted when nothing
+     * else is in flight, otherwise it could never be reviewed.
+     */
+    @Test
+    public void admitsOversizedReviewAlone() {
+        final Admission admission = new Admission(0, 1L << 20, 1L << 20);
+        final Push huge = new Push("{\"repository\":{\"size\":1048576}}");
+        final Admission.Ticket ticket = admission.admit(huge);
+        MatcherAssert.assertThat(ticket.refusal(), Matchers.nullValue());
+        MatcherAssert.assertThat(
+            admission.admit(huge).refusal(),
+            Matchers.is(Admission.Budget.DISK)
+        );
+        ticket.close();
+        MatcherAssert.assertThat(admission.retryAfter(), Matchers.is(1L));
+    }
+}
@@ -0,0 +1,126 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Commits;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Repo;
+import org.cactoos.io.DeadInput;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Unit tests for {@link BlobCache}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class BlobCacheTestCase {
+
+    /**
+     * A cached blob is not read again: the to-dos of the committed content
+     * are returned even if the file was changed on disk.
+     * @param root Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void doesNotReadCachedBlobs(@TempDir final Path root)
+        throws Exception {
+        Files.writeString(
+            root.resolve("a.txt"),
+            "# " + TodoMarker.TODO + " #3:1h Cached body.\n"
+        );
+        final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        final int exit = new LocalShell(root).exec(
+            "git init -q && git add a.txt && git -c user.name=test"
+            + " -c user.email=test@example.com commit -q -m init",
+            new DeadInput().stream(),
+            new ByteArrayOutputStream(),
+            stderr
+        );
+        MatcherAssert.assertThat(stderr.toString(), exit, Matchers.is(0));
+        final BlobCache cache = new BlobCache(root.resolve("cache.bin"), 10);
+        new TreePuzzles(
+            this.mockProject(), Mockito.mock(Commit.class), cache
+        ).process(root);
+        Files.writeString(
+            root.resolve("a.txt"),
+            "# " + TodoMarker.TODO + " #3:1h Changed body.\n"
+        );
+        final Puzzles<Path> puzzles = new TreePuzzles(
+            this.mockProject(), Mockito.mock(Commit.class), cache
+        );
+        puzzles.process(root);
+        final Puzzle puzzle = puzzles.iterator().next();
+        MatcherAssert.assertThat(puzzle.getBody(), Matchers.is("Cached body."));
+        MatcherAssert.assertThat(puzzle.getFile(), Matchers.is("a.txt"));
+        MatcherAssert.assertThat(puzzle.getEstimate(), Matchers.is(60));
+    }
+
+    /**
+     * The cache can be saved and loaded again.
+     * @param dir Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void savesAndLoads(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("cache.bin");
+        final BlobCache cache = new BlobCache(file, 10);
+        cache.put("abc", List.of(new Todo(12, 45, 3, 4, "Some body.")));
+        cache.put("def", List.of());
+        cache.save();
+        final BlobCache loaded = new BlobCache(file, 10);
+        loaded.load();
+        final Todo todo = loaded.get("abc").get(0);
+        MatcherAssert.assertThat(todo.ticket(), Matchers.is(12));
+        MatcherAssert.assertThat(todo.estimate(), Matchers.is(45));
+        MatcherAssert.assertThat(todo.start(), Matchers.is(3));
+        MatcherAssert.assertThat(todo.end(), Matchers.is(4));
+        MatcherAssert.assertThat(todo.body(), Matchers.is("Some body."));
+        MatcherAssert.assertThat(loaded.get("def"), Matchers.empty());
+        MatcherAssert.assertThat(loaded.get("xyz"), Matchers.nullValue());
+    }
+
+    /**
+     * Only the most recently used blobs are kept.
+     */
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        final BlobCache cache = new BlobCache(null, 2);
+        cache.put("a", List.of());
+        cache.put("b", List.of());
+        cache.get("a");
+        cache.put("c", List.of());
+        MatcherAssert.assertThat(cache.get("a"), Matchers.notNullValue());
+        MatcherAssert.assertThat(cache.get("b"), Matchers.nullValue());
+        MatcherAssert.assertThat(cache.get("c"), Matchers.notNullValue());
+    }
+
+    /**
+     * Mock a Project.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final Commits commits = Mockito.mock(Commits.class);
+        Mockito.when(commits.latest()).thenReturn(Mockito.mock(Commit.class));
+        final Repo repo = Mockito.mock(Repo.class);
+        Mockito.when(repo.commits()).thenReturn(commits);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.repo("john", "test")).thenReturn(repo);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        return project;
+    }
+}
@@ -0,0 +1,53 @@
+package com.selfxdsd.todos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CloneStrategy}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class CloneStrategyTestCase {
+
+    /**
+     * The full strategy is a plain git clone.
+     */
+    @Test
+    public void clonesEverything() {
+        MatcherAssert.assertThat(
+            new CloneStrategy("full").command("git@github:john/test", "repo"),
+            Matchers.equalTo("git clone git@github:john/test repo")
+        );
+    }
+
+    /**
+     * Options can be combined.
+     */
+    @Test
+    public void combinesOptions() {
+        MatcherAssert.assertThat(
+            new CloneStrategy("shallow, blobless,single-branch,skip-lfs")
+                .command("git@github:john/test", "repo"),
+            Matchers.equalTo(
+                "GIT_LFS_SKIP_SMUDGE=1 git clone --depth 1"
+                + " --filter=blob:none --single-branch"
+                + " git@github:john/test repo"
+            )
+        );
+    }
+
+    /**
+     * Unknown options are rejected.
+     */
+    @Test
+    public void rejectsUnknownOption() {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new CloneStrategy("shallow,deep")
+        );
+    }
+}
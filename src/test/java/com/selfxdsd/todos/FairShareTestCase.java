@@ -0,0 +1,104 @@
+package com.selfxdsd.todos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+/**
+ * Unit tests for {@link FairShare}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class FairShareTestCase {
+
+    /**
+     * A Project Manager with many waiting reviews doesn't make the review
+     * of another Project Manager wait for all of them.
+     */
+    @Test
+    public void sharesBetweenProjectManagers() {
+        final FairShare fair = new FairShare(
+            new ProjectSettings(new Properties())
+        );
+        fair.tag(FairShareTestCase.job("one", "busy"));
+        final double second = fair.tag(FairShareTestCase.job("two", "busy"));
+        fair.tag(FairShareTestCase.job("three", "busy"));
+        final double other = fair.tag(FairShareTestCase.job("four", "calm"));
+        MatcherAssert.assertThat(other, Matchers.lessThan(second));
+    }
+
+    /**
+     * The review of a Project known to be quick goes before the review of
+     * a Project which costs the average, even if it came later.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void quickProjectJumpsAhead() throws Exception {
+        final FairShare fair = new FairShare(
+            new ProjectSettings(new Properties())
+        );
+        final ReviewJob quick = FairShareTestCase.job("small", "zoeself");
+        fair.started(quick, fair.tag(quick));
+        quick.finish(true);
+        fair.finished(quick);
+        final double big = fair.tag(
+            FairShareTestCase.job("monorepo", "zoeself")
+        );
+        final double small = fair.tag(
+            FairShareTestCase.job("small", "rultor")
+        );
+        MatcherAssert.assertThat(small, Matchers.lessThan(big));
+    }
+
+    /**
+     * A Project with a bigger weight advances its clock more slowly.
+     */
+    @Test
+    public void appliesWeights() {
+        final Properties settings = new Properties();
+        settings.setProperty("github/john/heavy.weight", "4");
+        final FairShare fair = new FairShare(new ProjectSettings(settings));
+        final ReviewJob heavy = FairShareTestCase.job("heavy", "zoeself");
+        fair.tag(heavy);
+        fair.tag(heavy);
+        final double third = fair.tag(heavy);
+        MatcherAssert.assertThat(
+            third,
+            Matchers.lessThan(
+                fair.tag(FairShareTestCase.job("light", "rultor"))
+            )
+        );
+    }
+
+    /**
+     * A weight which is not a positive number counts as 1.
+     */
+    @Test
+    public void ignoresInvalidWeights() {
+        final Properties settings = new Properties();
+        settings.setProperty("github/john/typo.weight", "heavy");
+        settings.setProperty("github/john/zero.weight", "0");
+        final FairShare fair = new FairShare(new ProjectSettings(settings));
+        MatcherAssert.assertThat(
+            fair.tag(FairShareTestCase.job("typo", "zoeself")),
+            Matchers.is(1.0)
+        );
+        MatcherAssert.assertThat(
+            fair.tag(FairShareTestCase.job("zero", "rultor")),
+            Matchers.is(1.0)
+        );
+    }
+
+    /**
+     * Review of a push.
+     * @param name Name of the repository.
+     * @param manager Project Manager.
+     * @return ReviewJob.
+     */
+    private static ReviewJob job(final String name, final String manager) {
+        return new ReviewJob("github", "john/" + name, manager, "push", "{}");
+    }
+}
@@ -0,0 +1,327 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Unit tests for {@link IncrementalPuzzles}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class IncrementalPuzzlesTestCase {
+
+    /**
+     * Without a snapshot, the whole repository is scanned and remembered.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void scansFullWithoutSnapshot() throws Exception {
+        final Project project = this.mockProject();
+        final PuzzleSnapshots snapshots = new PuzzleSnapshots(10);
+        final Listed full = new Listed(
+            this.puzzle(project, "a.txt", 1), this.puzzle(project, "b.txt", 2)
+        );
+        final Listed changed = new Listed();
+        final Puzzles<Project> puzzles = new IncrementalPuzzles(
+            full, changed, this.context(project, "000", "aaa", false),
+            snapshots
+        );
+        puzzles.process(project);
+        MatcherAssert.assertThat(puzzles, Matchers.iterableWithSize(2));
+        MatcherAssert.assertThat(full.processed, Matchers.is(true));
+        MatcherAssert.assertThat(changed.processed, Matchers.is(false));
+        MatcherAssert.assertThat(
+            snapshots.get(project, this.push("000", "aaa")).sha(),
+            Matchers.equalTo("aaa")
+        );
+    }
+
+    /**
+     * A push continuing the snapshot only rescans the changed files:
+     * puzzles of removed and modified files are replaced, added files
+     * are scanned.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void mergesChangedFiles() throws Exception {
+        final Project project = this.mockProject();
+        final PuzzleSnapshots snapshots = new PuzzleSnapshots(10);
+        snapshots.put(
+            project,
+            this.push("000", "aaa"),
+            List.of(
+                this.puzzle(project, "a.txt", 1),
+                this.puzzle(project, "b.txt", 2),
+                this.puzzle(project, "gone.txt", 3)
+            )
+        );
+        final Listed full = new Listed();
+        final Puzzles<Project> puzzles = new IncrementalPuzzles(
+            full,
+            new Listed(
+                this.puzzle(project, "./b.txt", 4),
+                this.puzzle(project, "c.txt", 5)
+            ),
+            this.context(project, "aaa", "bbb", false),
+            snapshots
+        );
+        puzzles.process(project);
+        final List<Integer> tickets = new ArrayList<>();
+        puzzles.forEach(puzzle -> tickets.add(puzzle.getTicket()));
+        MatcherAssert.assertThat(tickets, Matchers.contains(1, 4, 5));
+        MatcherAssert.assertThat(
+            puzzles.iterator().next().issueBody(),
+            Matchers.containsString("/blob/bbb/a.txt#L1-L1")
+        );
+        MatcherAssert.assertThat(full.processed, Matchers.is(false));
+        MatcherAssert.assertThat(
+            snapshots.get(project, this.push("aaa", "bbb")).sha(),
+            Matchers.equalTo("bbb")
+        );
+    }
+
+    /**
+     * A forced push is scanned fully.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void scansFullIfForced() throws Exception {
+        final Project project = this.mockProject();
+        final PuzzleSnapshots snapshots = new PuzzleSnapshots(10);
+        snapshots.put(project, this.push("000", "aaa"), List.of());
+        final Listed full = new Listed(this.puzzle(project, "a.txt", 1));
+        final Puzzles<Project> puzzles = new IncrementalPuzzles(
+            full, new Listed(), this.context(project, "aaa", "bbb", true),
+            snapshots
+        );
+        puzzles.process(project);
+        MatcherAssert.assertThat(full.processed, Matchers.is(true));
+        MatcherAssert.assertThat(puzzles, Matchers.iterableWithSize(1));
+    }
+
+    /**
+     * A push to another branch than the default one, which is the one
+     * scanned, is scanned fully and doesn't replace the snapshot.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void scansFullOnOtherBranch() throws Exception {
+        final Project project = this.mockProject();
+        final PuzzleSnapshots snapshots = new PuzzleSnapshots(10);
+        snapshots.put(project, this.push("000", "aaa"), List.of());
+        final Listed full = new Listed(this.puzzle(project, "a.txt", 1));
+        final Commit head = Mockito.mock(Commit.class);
+        Mockito.when(head.shaRef()).thenReturn("bbb");
+        final Push push = new Push(
+            this.payload("aaa", "bbb", false)
+                .replace("refs/heads/master", "refs/heads/feature")
+        );
+        final Puzzles<Project> puzzles = new IncrementalPuzzles(
+            full, new Listed(), new RepoContext(project, head, push),
+            snapshots
+        );
+        puzzles.process(project);
+        MatcherAssert.assertThat(full.processed, Matchers.is(true));
+        MatcherAssert.assertThat(
+            snapshots.get(project, push), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            snapshots.get(project, this.push("000", "aaa")).sha(),
+            Matchers.equalTo("aaa")
+        );
+    }
+
+    /**
+     * If the changed files cannot be rescanned, like when the commit
+     * before a GitLab push is not an ancestor of the pushed one, the
+     * whole repository is scanned.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void scansFullIfRescanFails() throws Exception {
+        final Project project = this.mockProject();
+        final PuzzleSnapshots snapshots = new PuzzleSnapshots(10);
+        snapshots.put(project, this.push("000", "aaa"), List.of());
+        final Listed full = new Listed(this.puzzle(project, "a.txt", 1));
+        final Puzzles<Project> changed = new Puzzles<>() {
+            @Override
+            public void process(final Project input)
+                throws PuzzlesProcessingException {
+                throw new PuzzlesProcessingException("Not an ancestor.");
+            }
+            @Override
+            public Iterator<Puzzle> iterator() {
+                return Collections.emptyIterator();
+            }
+        };
+        final Puzzles<Project> puzzles = new IncrementalPuzzles(
+            full, changed, this.context(project, "aaa", "bbb", false),
+            snapshots
+        );
+        puzzles.process(project);
+        MatcherAssert.assertThat(full.processed, Matchers.is(true));
+        MatcherAssert.assertThat(puzzles, Matchers.iterableWithSize(1));
+        MatcherAssert.assertThat(
+            snapshots.get(project, this.push("aaa", "bbb")).sha(),
+            Matchers.equalTo("bbb")
+        );
+    }
+
+    /**
+     * GitLab doesn't say whether a push was forced, so the commit before
+     * it must be checked to be an ancestor of the pushed one.
+     */
+    @Test
+    public void checksAncestorOfGitlabPush() {
+        final Workspace origin = Mockito.mock(Workspace.class);
+        Mockito.when(origin.open(Mockito.anyString(), Mockito.any()))
+            .thenReturn("cd repo");
+        MatcherAssert.assertThat(
+            new Push("{\"before\":\"aaa\",\"after\":\"bbb\"}").ancestor(),
+            Matchers.equalTo("aaa")
+        );
+        MatcherAssert.assertThat(
+            this.push("aaa", "bbb").ancestor(), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            new ChangedPathsWorkspace(
+                origin, List.of("a.txt"), "aaa"
+            ).open("id", this.mockProject()),
+            Matchers.containsString(
+                "git merge-base --is-ancestor aaa HEAD || exit 1"
+            )
+        );
+    }
+
+    /**
+     * Repository of a review whose head is the commit after the push.
+     * @param project Project.
+     * @param before Commit before.
+     * @param after Commit after.
+     * @param forced Forced push or not.
+     * @return RepoContext.
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    private RepoContext context(
+        final Project project, final String before,
+        final String after, final boolean forced
+    ) {
+        final Commit head = Mockito.mock(Commit.class);
+        Mockito.when(head.shaRef()).thenReturn(after);
+        return new RepoContext(
+            project, head, new Push(this.payload(before, after, forced))
+        );
+    }
+
+    /**
+     * GitHub push to the default branch.
+     * @param before Commit before.
+     * @param after Commit after.
+     * @return Push.
+     */
+    private Push push(final String before, final String after) {
+        return new Push(this.payload(before, after, false));
+    }
+
+    /**
+     * GitHub push payload to the default branch, modifying b.txt and
+     * removing gone.txt.
+     * @param before Commit before.
+     * @param after Commit after.
+     * @param forced Forced push or not.
+     * @return Payload.
+     */
+    private String payload(
+        final String before, final String after, final boolean forced
+    ) {
+        return "{\"ref\":\"refs/heads/master\","
+            + "\"repository\":{\"default_branch\":\"master\"},"
+            + "\"before\":\"" + before + "\",\"after\":\"" + after + "\","
+            + "\"forced\":" + forced + ",\"commits\":["
+            + "{\"added\":[],\"modified\":[\"b.txt\"],\"removed\":[]},"
+            + "{\"added\":[\"c.txt\"],\"modified\":[],"
+            + "\"removed\":[\"gone.txt\"]}]}";
+    }
+
+    /**
+     * Make a puzzle.
+     * @param project Project.
+     * @param file File.
+     * @param ticket Ticket.
+     * @return Puzzle.
+     */
+    private Puzzle puzzle(
+        final Project project, final String file, final int ticket
+    ) {
+        return new Puzzle.Builder()
+            .setProject(project)
+            .setCommit(Mockito.mock(Commit.class))
+            .setId("id-" + ticket)
+            .setTicket(ticket)
+            .setEstimate(30)
+            .setBody("Body " + ticket)
+            .setFile(file)
+            .setStart(1)
+            .setEnd(1)
+            .setRole("DEV")
+            .setAuthor("")
+            .setEmail("")
+            .setTime("")
+            .build();
+    }
+
+    /**
+     * Mock a Project.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        return project;
+    }
+
+    /**
+     * Puzzles given in advance.
+     */
+    private static final class Listed implements Puzzles<Project> {
+
+        /**
+         * Puzzles.
+         */
+        private final List<Puzzle> puzzles;
+
+        /**
+         * Was it processed?
+         */
+        private boolean processed;
+
+        /**
+         * Ctor.
+         * @param puzzles Puzzles.
+         */
+        Listed(final Puzzle... puzzles) {
+            this.puzzles = List.of(puzzles);
+        }
+
+        @Override
+        public void process(final Project input) {
+            this.processed = true;
+        }
+
+        @Override
+        public Iterator<Puzzle> iterator() {
+            return this.puzzles.iterator();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Issue;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link IssuesSnapshot}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class IssuesSnapshotTestCase {
+
+    /**
+     * Each Issue is read once, no matter how often the snapshot is used,
+     * and its labels are not read at all.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsEachIssueOnce() throws Exception {
+        final Issue issue = IssuesSnapshotTestCase.issue(
+            "1", new AtomicInteger(), new AtomicInteger()
+        );
+        final IssuesSnapshot snapshot = new IssuesSnapshot(List.of(issue), 2);
+        for (int idx = 0; idx < 3; idx = idx + 1) {
+            for (final IssuesSnapshot.Entry entry : snapshot) {
+                MatcherAssert.assertThat(
+                    entry.body(), Matchers.equalTo("body of 1")
+                );
+            }
+        }
+        Mockito.verify(issue, Mockito.times(1)).body();
+        Mockito.verify(issue, Mockito.times(1)).isClosed();
+        Mockito.verify(issue, Mockito.never()).labels();
+    }
+
+    /**
+     * No more than the given number of Issues are read at the same time,
+     * and they keep the provider's order.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void boundsReadsInFlight() throws Exception {
+        final AtomicInteger current = new AtomicInteger();
+        final AtomicInteger most = new AtomicInteger();
+        final List<Issue> issues = new ArrayList<>();
+        for (int idx = 0; idx < 20; idx = idx + 1) {
+            issues.add(
+                IssuesSnapshotTestCase.issue(
+                    String.valueOf(idx), current, most
+                )
+            );
+        }
+        final IssuesSnapshot snapshot = new IssuesSnapshot(issues, 3);
+        MatcherAssert.assertThat(snapshot.size(), Matchers.equalTo(20));
+        MatcherAssert.assertThat(most.get(), Matchers.lessThanOrEqualTo(3));
+        MatcherAssert.assertThat(
+            snapshot.iterator().next().issueId(), Matchers.equalTo("0")
+        );
+    }
+
+    /**
+     * An Issue which can't be read fails the snapshot.
+     */
+    @Test
+    public void failsIfAnIssueCannotBeRead() {
+        final Issue issue = Mockito.mock(Issue.class);
+        Mockito.when(issue.body()).thenThrow(
+            new IllegalStateException("provider down")
+        );
+        Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> new IssuesSnapshot(List.of(issue), 2)
+        );
+    }
+
+    /**
+     * Mock an Issue which takes a while to read its body.
+     * @param id Id.
+     * @param current Bodies being read now.
+     * @param most Most bodies read at the same time.
+     * @return Issue.
+     */
+    private static Issue issue(
+        final String id,
+        final AtomicInteger current,
+        final AtomicInteger most
+    ) {
+        final Issue issue = Mockito.mock(Issue.class);
+        Mockito.when(issue.issueId()).thenReturn(id);
+        Mockito.when(issue.body()).thenAnswer(
+            invocation -> {
+                most.accumulateAndGet(current.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                current.decrementAndGet();
+                return "body of " + id;
+            }
+        );
+        return issue;
+    }
+}
@@ -0,0 +1,125 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.json.JsonException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link JsonPuzzleStream}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class JsonPuzzleStreamTestCase {
+
+    /**
+     * A to-do.
+     */
+    private static final String TODO = "{\"id\": %d, \"start\": 1, "
+        + "\"end\": 2, \"originatingTicket\": \"#3\", \"estimatedTime\": 30,"
+        + " \"file\": \"A.java\", \"body\": \"Fix it.\"}";
+
+    /**
+     * Each puzzle is given to the sink as soon as its object is read,
+     * long before the end of a huge input.
+     */
+    @Test
+    public void emitsPuzzlesWhileReading() {
+        final int total = 100_000;
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicInteger first = new AtomicInteger(-1);
+        final AtomicInteger read = new AtomicInteger();
+        JsonPuzzleStreamTestCase.stream().read(
+            JsonPuzzleStreamTestCase.todos(total, written),
+            puzzle -> {
+                first.compareAndSet(-1, written.get());
+                read.incrementAndGet();
+            }
+        );
+        MatcherAssert.assertThat(read.get(), Matchers.equalTo(total));
+        MatcherAssert.assertThat(first.get(), Matchers.lessThan(1000));
+    }
+
+    /**
+     * Something else than an array of to-dos is rejected.
+     */
+    @Test
+    public void rejectsWhatIsNotAnArray() {
+        Assertions.assertThrows(
+            JsonException.class,
+            () -> JsonPuzzleStreamTestCase.stream().read(
+                new StringReader("{\"id\": 1}"), puzzle -> { }
+            )
+        );
+        Assertions.assertThrows(
+            JsonException.class,
+            () -> JsonPuzzleStreamTestCase.stream().read(
+                new StringReader("[1, 2]"), puzzle -> { }
+            )
+        );
+    }
+
+    /**
+     * JsonPuzzleStream with a mock repository.
+     * @return JsonPuzzleStream.
+     */
+    private static JsonPuzzleStream stream() {
+        final Commit commit = Mockito.mock(Commit.class);
+        Mockito.when(commit.shaRef()).thenReturn("abc");
+        return new JsonPuzzleStream(
+            new RepoContext(
+                Mockito.mock(Project.class),
+                commit,
+                new Push("{\"after\": \"abc\"}")
+            )
+        );
+    }
+
+    /**
+     * Reader of an array of to-dos, written as they are read.
+     * @param total Number of to-dos.
+     * @param written Number of to-dos written so far.
+     * @return Reader.
+     */
+    private static Reader todos(final int total, final AtomicInteger written) {
+        return new Reader() {
+            private final StringBuilder pending = new StringBuilder("[");
+            @Override
+            public int read(final char[] cbuf, final int off, final int len) {
+                if (this.pending.length() == 0) {
+                    final int idx = written.getAndIncrement();
+                    if (idx < total) {
+                        if (idx > 0) {
+                            this.pending.append(',');
+                        }
+                        this.pending.append(
+                            String.format(JsonPuzzleStreamTestCase.TODO, idx)
+                        );
+                    } else if (idx == total) {
+                        this.pending.append(']');
+                    }
+                }
+                int count = -1;
+                if (this.pending.length() > 0) {
+                    count = Math.min(len, this.pending.length());
+                    this.pending.getChars(0, count, cbuf, off);
+                    this.pending.delete(0, count);
+                }
+                return count;
+            }
+            @Override
+            public void close() {
+                this.pending.setLength(0);
+            }
+        };
+    }
+}
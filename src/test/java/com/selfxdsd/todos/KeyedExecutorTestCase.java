@@ -0,0 +1,179 @@
+package com.selfxdsd.todos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.json.JsonObject;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link KeyedExecutor}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class KeyedExecutorTestCase {
+
+    /**
+     * The tasks of one key run one after the other, even if there are
+     * free threads, and their stripe reports the waiting ones.
+     * @throws Exception If something goes wrong.
+     * @checkstyle ExecutableStatementCount (100 lines).
+     */
+    @Test
+    public void serializesTasksOfSameKey() throws Exception {
+        final KeyedExecutor executor = new KeyedExecutor(4, 10);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        try {
+            for (int idx = 1; idx <= 3; ++idx) {
+                final String name = "task" + idx;
+                executor.execute(
+                    "github/john/test",
+                    () -> {
+                        order.add(name + " started");
+                        started.countDown();
+                        KeyedExecutorTestCase.await(release);
+                        order.add(name + " finished");
+                        done.countDown();
+                    }
+                );
+            }
+            started.await(10, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(
+                order, Matchers.contains("task1 started")
+            );
+            final JsonObject stripe = executor.json().getJsonObject(0);
+            MatcherAssert.assertThat(
+                stripe.getString("key") + " " + stripe.getInt("depth"),
+                Matchers.equalTo("github/john/test 2")
+            );
+            release.countDown();
+            done.await(10, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(
+                order,
+                Matchers.contains(
+                    "task1 started", "task1 finished",
+                    "task2 started", "task2 finished",
+                    "task3 started", "task3 finished"
+                )
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The tasks of different keys run in parallel.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void runsKeysInParallel() throws Exception {
+        final KeyedExecutor executor = new KeyedExecutor(2, 10);
+        final CountDownLatch both = new CountDownLatch(2);
+        try {
+            executor.execute("github/john/one", () -> {
+                both.countDown();
+                KeyedExecutorTestCase.await(both);
+            });
+            executor.execute("github/john/two", () -> {
+                both.countDown();
+                KeyedExecutorTestCase.await(both);
+            });
+            MatcherAssert.assertThat(
+                both.await(10, TimeUnit.SECONDS), Matchers.is(true)
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * When the threads are busy, the heads of the stripes run in the order
+     * of their priorities.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void runsByPriority() throws Exception {
+        final KeyedExecutor executor = new KeyedExecutor(1, 10);
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        try {
+            executor.execute(
+                "busy",
+                () -> {
+                    busy.countDown();
+                    KeyedExecutorTestCase.await(release);
+                }
+            );
+            busy.await(10, TimeUnit.SECONDS);
+            for (final int priority : new int[] {5, 1, 3}) {
+                executor.execute(
+                    "repo" + priority, priority,
+                    () -> {
+                        order.add("repo" + priority);
+                        done.countDown();
+                    }
+                );
+            }
+            release.countDown();
+            done.await(10, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(
+                order, Matchers.contains("repo1", "repo3", "repo5")
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tasks are refused when too many are waiting.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void refusesWhenFull() throws Exception {
+        final KeyedExecutor executor = new KeyedExecutor(1, 1);
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(
+                "a",
+                () -> {
+                    busy.countDown();
+                    KeyedExecutorTestCase.await(release);
+                }
+            );
+            busy.await(10, TimeUnit.SECONDS);
+            executor.execute("a", () -> { });
+            Assertions.assertThrows(
+                RejectedExecutionException.class,
+                () -> executor.execute("b", () -> { })
+            );
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for the latch.
+     * @param latch Latch.
+     */
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Commits;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Repo;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for {@link LocalPuzzles}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class LocalPuzzlesTestCase {
+
+    /**
+     * LocalPuzzles checks out the repo locally, scans it and cleans up.
+     * @param dir Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void scansLocalCheckout(@TempDir final Path dir) throws Exception {
+        final Project project = this.mockProject();
+        final Puzzles<Project> puzzles = new LocalPuzzles(
+            dir,
+            new Workspace() {
+                @Override
+                public String open(final String id, final Project prj) {
+                    return "mkdir -p self-todos-tmp-" + id + "/repo"
+                        + " && printf '%s #5:30min Fix it.\\n' '@''todo'"
+                        + " > self-todos-tmp-" + id + "/repo/a.txt";
+                }
+
+                @Override
+                public String close(final String id, final Project prj) {
+                    return "rm -rf self-todos-tmp-" + id;
+                }
+            },
+            new TreePuzzles(project, Mockito.mock(Commit.class))
+        );
+        puzzles.process(project);
+        MatcherAssert.assertThat(puzzles, Matchers.iterableWithSize(1));
+        MatcherAssert.assertThat(
+            puzzles.iterator().next().getBody(), Matchers.is("Fix it.")
+        );
+        try (java.util.stream.Stream<Path> left = Files.list(dir)) {
+            MatcherAssert.assertThat(left.count(), Matchers.is(0L));
+        }
+    }
+
+    /**
+     * LocalPuzzles fails if the checkout fails.
+     * @param dir Temporary directory.
+     */
+    @Test
+    public void failsIfCheckoutFails(@TempDir final Path dir) {
+        Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> new LocalPuzzles(
+                dir,
+                new ClonedWorkspace(),
+                new TreePuzzles(
+                    this.mockProject(), Mockito.mock(Commit.class)
+                )
+            ).process(this.mockProject())
+        );
+    }
+
+    /**
+     * Mock a Project.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final Commits commits = Mockito.mock(Commits.class);
+        Mockito.when(commits.latest()).thenReturn(Mockito.mock(Commit.class));
+        final Repo repo = Mockito.mock(Repo.class);
+        Mockito.when(repo.commits()).thenReturn(commits);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.repo("john", "test")).thenReturn(repo);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        Mockito.when(manager.username()).thenReturn("zoeself");
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn("nowhere");
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        return project;
+    }
+}
@@ -0,0 +1,87 @@
+package com.selfxdsd.todos;
+
+import org.cactoos.io.DeadInput;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for {@link LocalShell}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class LocalShellTestCase {
+
+    /**
+     * It returns the output and the exit code of the command.
+     * @param root Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void runsCommand(@TempDir final Path root) throws Exception {
+        final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        final int exit = new LocalShell(root).exec(
+            "echo out; echo err >&2; exit 3",
+            new DeadInput().stream(),
+            stdout,
+            stderr
+        );
+        MatcherAssert.assertThat(exit, Matchers.is(3));
+        MatcherAssert.assertThat(stdout.toString(), Matchers.equalTo("out\n"));
+        MatcherAssert.assertThat(stderr.toString(), Matchers.equalTo("err\n"));
+    }
+
+    /**
+     * An interrupt kills the command, even while it keeps its output
+     * open without writing anything.
+     * @param root Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void killsCommandWhenInterrupted(@TempDir final Path root)
+        throws Exception {
+        final CountDownLatch output = new CountDownLatch(1);
+        final OutputStream stdout = new OutputStream() {
+            @Override
+            public void write(final int data) {
+                output.countDown();
+            }
+        };
+        final ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Integer> exec = thread.submit(
+                () -> new LocalShell(root).exec(
+                    "echo started; sleep 60",
+                    new DeadInput().stream(),
+                    stdout,
+                    new ByteArrayOutputStream()
+                )
+            );
+            output.await();
+            thread.shutdownNow();
+            final Throwable failure = Assertions.assertTimeoutPreemptively(
+                Duration.ofSeconds(10),
+                () -> Assertions.assertThrows(Exception.class, exec::get)
+            ).getCause();
+            MatcherAssert.assertThat(
+                failure, Matchers.instanceOf(InterruptedIOException.class)
+            );
+        } finally {
+            thread.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link MirrorWorkspace}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class MirrorWorkspaceTestCase {
+
+    /**
+     * MirrorWorkspace fetches into the mirror and checks out the pushed
+     * commit in a worktree.
+     */
+    @Test
+    public void checksOutPushedCommitFromMirror() {
+        final Commit commit = Mockito.mock(Commit.class);
+        Mockito.when(commit.shaRef()).thenReturn("abc123");
+        final String script = new MirrorWorkspace(commit, 7)
+            .open("id1", this.mockProject());
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString(
+                "MIRROR=\"$HOME/self-todos-mirrors/github/john/test.git\""
+            )
+        );
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString("fetch --prune --quiet origin")
+        );
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString(
+                "git clone --mirror --quiet git@github-zoeself:john/test"
+            )
+        );
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString(
+                "worktree add --detach self-todos-tmp-id1/repo abc123"
+            )
+        );
+        MatcherAssert.assertThat(
+            script,
+            Matchers.endsWith("cd self-todos-tmp-id1/repo")
+        );
+    }
+
+    /**
+     * MirrorWorkspace checks out HEAD if the commit has no SHA.
+     */
+    @Test
+    public void checksOutHeadWithoutSha() {
+        MatcherAssert.assertThat(
+            new MirrorWorkspace(Mockito.mock(Commit.class), 7)
+                .open("id1", this.mockProject()),
+            Matchers.containsString(
+                "worktree add --detach self-todos-tmp-id1/repo HEAD"
+            )
+        );
+    }
+
+    /**
+     * With path rules, the worktree is added without checkout and then
+     * checked out sparsely.
+     */
+    @Test
+    public void checksOutSparselyWithRules() {
+        final String script = new MirrorWorkspace(
+            Mockito.mock(Commit.class), 7, new PathRules("", "vendor/")
+        ).open("id1", this.mockProject());
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString(
+                "worktree add --detach --no-checkout self-todos-tmp-id1/repo"
+            )
+        );
+        MatcherAssert.assertThat(
+            script,
+            Matchers.stringContainsInOrder(
+                List.of(
+                    "cd self-todos-tmp-id1/repo",
+                    "!vendor/",
+                    "read-tree -mu HEAD"
+                )
+            )
+        );
+    }
+
+    /**
+     * MirrorWorkspace removes the worktree and evicts unused mirrors.
+     */
+    @Test
+    public void removesWorktreeAndEvictsOldMirrors() {
+        final String script = new MirrorWorkspace(
+            Mockito.mock(Commit.class), 3
+        ).close("id1", this.mockProject());
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString(
+                "worktree remove --force self-todos-tmp-id1/repo"
+            )
+        );
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString("rm -rf self-todos-tmp-id1")
+        );
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString("-prune -mtime +3 -exec sh -c")
+        );
+        MatcherAssert.assertThat(
+            script,
+            Matchers.containsString(
+                "flock -n 9 || exit 0; if [ -n \"$(find \"$M\" -maxdepth 0"
+                + " -mtime +3)\" ]; then rm -rf \"$M\"; fi ) 9>\"$M.lock\""
+            )
+        );
+    }
+
+    /**
+     * Mocks a Github Project.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.username()).thenReturn("zoeself");
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        return project;
+    }
+}
@@ -0,0 +1,93 @@
+package com.selfxdsd.todos;
+
+import org.cactoos.io.DeadInput;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for {@link PathRules}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class PathRulesTestCase {
+
+    /**
+     * Without rules, everything is accepted.
+     */
+    @Test
+    public void acceptsAllWithoutRules() {
+        final PathRules rules = new PathRules("", " ");
+        MatcherAssert.assertThat(rules.all(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            rules.accepts("vendor/lib/a.js"), Matchers.is(true)
+        );
+    }
+
+    /**
+     * Patterns without slash match at any depth, the others are anchored.
+     */
+    @Test
+    public void matchesLikeGitignore() {
+        final PathRules rules = new PathRules(
+            "src/, docs", "node_modules/,*.min.js,/src/generated"
+        );
+        MatcherAssert.assertThat(
+            rules.accepts("src/main/Foo.java"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            rules.accepts("web/src/app.js"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            rules.accepts("README.md"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            rules.accepts("src/node_modules/x/index.js"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            rules.accepts("src/web/app.min.js"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            rules.excluded("src/generated"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            rules.accepts("web/src/generated/A.java"), Matchers.is(true)
+        );
+    }
+
+    /**
+     * The excluded paths are not checked out.
+     * @param root Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void checksOutSparsely(@TempDir final Path root) throws Exception {
+        final Path origin = root.resolve("origin");
+        Files.createDirectories(origin.resolve("vendor/lib"));
+        Files.createDirectories(origin.resolve("src"));
+        Files.writeString(origin.resolve("vendor/lib/a.js"), "a\n");
+        Files.writeString(origin.resolve("src/B.java"), "b\n");
+        final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        final int exit = new LocalShell(root).exec(
+            "cd origin && git init -q && git add . && git -c user.name=test"
+            + " -c user.email=test@example.com commit -q -m init && cd ..\n"
+            + "git clone -q --no-checkout origin repo && cd repo\n"
+            + new PathRules("", "vendor/").checkout() + "\n"
+            + "find . -path ./.git -prune -o -type f -print",
+            new DeadInput().stream(),
+            stdout,
+            stderr
+        );
+        MatcherAssert.assertThat(stderr.toString(), exit, Matchers.is(0));
+        MatcherAssert.assertThat(
+            stdout.toString().trim(), Matchers.equalTo("./src/B.java")
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.selfxdsd.todos;
+
+import org.cactoos.io.DeadInput;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for {@link PrefilteredScan}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class PrefilteredScanTestCase {
+
+    /**
+     * Only the files with the marker are left for the scan.
+     * @param root Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void scansOnlyCandidates(@TempDir final Path root)
+        throws Exception {
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(
+            root.resolve("src/with todo.java"),
+            "// " + TodoMarker.TODO + " #1 Do it.\n"
+        );
+        Files.writeString(root.resolve("src/Plain.java"), "class Plain {}\n");
+        Files.writeString(root.resolve("README.md"), "Nothing to do.\n");
+        final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        final int exit = new LocalShell(root).exec(
+            "git init -q && git add . && git -c user.name=test"
+            + " -c user.email=test@example.com commit -q -m init\n"
+            + new PrefilteredScan(
+                () -> "find . -path ./.git -prune -o -type f -print"
+            ).command(),
+            new DeadInput().stream(),
+            stdout,
+            stderr
+        );
+        MatcherAssert.assertThat(stderr.toString(), exit, Matchers.is(0));
+        MatcherAssert.assertThat(
+            stdout.toString().trim(), Matchers.equalTo("./src/with todo.java")
+        );
+    }
+
+    /**
+     * Outside of a repository nothing is removed and nothing is scanned.
+     * @param root Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void removesNothingOutsideRepository(@TempDir final Path root)
+        throws Exception {
+        Files.writeString(root.resolve("Plain.java"), "class Plain {}\n");
+        final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        final int exit = new LocalShell(root).exec(
+            "export GIT_CEILING_DIRECTORIES=\"$(dirname \"$PWD\")\"\n"
+            + new PrefilteredScan(() -> "echo scanned").command(),
+            new DeadInput().stream(),
+            stdout,
+            new ByteArrayOutputStream()
+        );
+        MatcherAssert.assertThat(exit, Matchers.not(0));
+        MatcherAssert.assertThat(stdout.toString(), Matchers.equalTo(""));
+        MatcherAssert.assertThat(
+            Files.exists(root.resolve("Plain.java")), Matchers.is(true)
+        );
+    }
+}
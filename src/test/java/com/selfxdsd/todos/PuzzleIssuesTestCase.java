@@ -0,0 +1,155 @@
+package com.selfxdsd.todos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link PuzzleIssues}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class PuzzleIssuesTestCase {
+
+    /**
+     * The links are saved and loaded again.
+     * @param dir Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void savesAndLoadsLinks(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("issues.jsonl");
+        final PuzzleIssues saved = new PuzzleIssues(file, Duration.ofHours(1));
+        saved.verified(
+            "github/john/test",
+            Map.of("12-ab", new PuzzleIssues.Link("7", false, "abc"))
+        );
+        saved.save();
+        Files.writeString(
+            file, "not json\n", StandardOpenOption.APPEND
+        );
+        final PuzzleIssues loaded = new PuzzleIssues(file, Duration.ofHours(1));
+        loaded.load();
+        final PuzzleIssues.Link link = loaded.known("github/john/test")
+            .get("12-ab");
+        MatcherAssert.assertThat(link.issueId(), Matchers.equalTo("7"));
+        MatcherAssert.assertThat(link.isClosed(), Matchers.is(false));
+        MatcherAssert.assertThat(link.commit(), Matchers.equalTo("abc"));
+    }
+
+    /**
+     * Each change is in the file right away, without waiting for it to
+     * be compacted.
+     * @param dir Temporary directory.
+     */
+    @Test
+    public void savesEveryChange(@TempDir final Path dir) {
+        final Path file = dir.resolve("issues.jsonl");
+        final PuzzleIssues links = new PuzzleIssues(file, Duration.ofHours(1));
+        links.verified(
+            "github/john/test",
+            Map.of("12-ab", new PuzzleIssues.Link("7", false, "abc"))
+        );
+        final PuzzleIssues verified = new PuzzleIssues(
+            file, Duration.ofHours(1)
+        );
+        verified.load();
+        MatcherAssert.assertThat(
+            verified.known("github/john/test").size(), Matchers.is(1)
+        );
+        links.forget("github/john/test");
+        final PuzzleIssues forgotten = new PuzzleIssues(
+            file, Duration.ofHours(1)
+        );
+        forgotten.load();
+        MatcherAssert.assertThat(
+            forgotten.known("github/john/test"), Matchers.nullValue()
+        );
+    }
+
+    /**
+     * An update which doesn't change the Issues of the puzzles is not
+     * appended to the file.
+     * @param dir Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void appendsOnlyChanges(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("issues.jsonl");
+        final PuzzleIssues links = new PuzzleIssues(file, Duration.ofHours(1));
+        links.verified(
+            "github/john/test",
+            Map.of("12-ab", new PuzzleIssues.Link("7", false, "abc"))
+        );
+        links.update(
+            "github/john/test",
+            Map.of("12-ab", new PuzzleIssues.Link("7", false, "def"))
+        );
+        MatcherAssert.assertThat(
+            Files.readAllLines(file).size(), Matchers.is(1)
+        );
+        MatcherAssert.assertThat(
+            links.known("github/john/test").get("12-ab").commit(),
+            Matchers.equalTo("def")
+        );
+        links.update(
+            "github/john/test",
+            Map.of("12-ab", new PuzzleIssues.Link("7", true, "def"))
+        );
+        MatcherAssert.assertThat(
+            Files.readAllLines(file).size(), Matchers.is(2)
+        );
+    }
+
+    /**
+     * Links older than the verification interval, or forgotten, are not
+     * trusted; updates don't verify them again.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void verifiesOldLinks() throws Exception {
+        final PuzzleIssues links = new PuzzleIssues(
+            null, Duration.ofMillis(50)
+        );
+        final Map<String, PuzzleIssues.Link> map = Map.of(
+            "1", new PuzzleIssues.Link("1", false, "")
+        );
+        links.verified("github/john/test", map);
+        MatcherAssert.assertThat(
+            links.known("github/john/test"), Matchers.notNullValue()
+        );
+        Thread.sleep(100);
+        links.update("github/john/test", map);
+        MatcherAssert.assertThat(
+            links.known("github/john/test"), Matchers.nullValue()
+        );
+        links.verified("github/john/test", map);
+        links.forget("github/john/test");
+        MatcherAssert.assertThat(
+            links.known("github/john/test"), Matchers.nullValue()
+        );
+    }
+
+    /**
+     * With no verification interval nothing is remembered.
+     */
+    @Test
+    public void disabledRemembersNothing() {
+        final PuzzleIssues links = new PuzzleIssues(null, Duration.ZERO);
+        links.verified(
+            "github/john/test",
+            Map.of("1", new PuzzleIssues.Link("1", false, ""))
+        );
+        MatcherAssert.assertThat(
+            links.known("github/john/test"), Matchers.nullValue()
+        );
+    }
+}
@@ -0,0 +1,205 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Projects;
+import com.selfxdsd.api.Self;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.StringReader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link PuzzlesApi}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class PuzzlesApiTestCase {
+
+    /**
+     * A push reviewed in the background is accepted, with the location of
+     * its job, whose status can then be read.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void acceptsPushReviewedInBackground() throws Exception {
+        final ReviewQueue queue = new ReviewQueue(job -> true, 1, 10);
+        try {
+            final PuzzlesApi api = this.api(queue, new Admission(0, 0, 0));
+            final ResponseEntity<String> accepted = api.reviewPuzzles(
+                "github", "john", "test", "{\"after\":\"a1\"}"
+            );
+            MatcherAssert.assertThat(
+                accepted.getStatusCode(), Matchers.is(HttpStatus.ACCEPTED)
+            );
+            final String id = PuzzlesApiTestCase.json(accepted.getBody())
+                .getString("id");
+            MatcherAssert.assertThat(
+                accepted.getHeaders().getLocation().toString(),
+                Matchers.equalTo("/pdd/jobs/" + id)
+            );
+            final ResponseEntity<String> status = api.reviewJob(id);
+            MatcherAssert.assertThat(
+                status.getStatusCode(), Matchers.is(HttpStatus.OK)
+            );
+            MatcherAssert.assertThat(
+                PuzzlesApiTestCase.json(status.getBody()).getString("repo"),
+                Matchers.equalTo("john/test")
+            );
+            MatcherAssert.assertThat(
+                api.reviewJob("unknown").getStatusCode(),
+                Matchers.is(HttpStatus.NOT_FOUND)
+            );
+        } finally {
+            queue.close();
+        }
+    }
+
+    /**
+     * When the queue is full, the push is refused with 503 and a
+     * Retry-After header, and its admission is given back.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void refusesPushWhenQueueIsFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ReviewQueue queue = new ReviewQueue(
+            job -> {
+                started.countDown();
+                release.await();
+                return true;
+            },
+            1, 1
+        );
+        try {
+            final Admission admission = new Admission(3, 0, 0);
+            final PuzzlesApi api = this.api(queue, admission);
+            api.reviewPuzzles("github", "john", "one", "{}");
+            started.await(10, TimeUnit.SECONDS);
+            api.reviewPuzzles("github", "john", "two", "{}");
+            final ResponseEntity<String> full = api.reviewPuzzles(
+                "github", "john", "three", "{}"
+            );
+            MatcherAssert.assertThat(
+                full.getStatusCode(),
+                Matchers.is(HttpStatus.SERVICE_UNAVAILABLE)
+            );
+            MatcherAssert.assertThat(
+                full.getHeaders().getFirst(HttpHeaders.RETRY_AFTER),
+                Matchers.equalTo("1")
+            );
+            MatcherAssert.assertThat(
+                admission.admit(new Push("{}")).refusal(),
+                Matchers.nullValue()
+            );
+        } finally {
+            release.countDown();
+            queue.close();
+        }
+    }
+
+    /**
+     * A push which is not admitted is refused with 429 if too many reviews
+     * are in flight and 503 if there is not enough disk, both with a
+     * Retry-After header, and it's not enqueued.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void refusesPushNotAdmitted() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ReviewQueue queue = new ReviewQueue(
+            job -> {
+                release.await();
+                return true;
+            },
+            1, 10
+        );
+        try {
+            final Admission reviews = new Admission(1, 0, 0);
+            reviews.admit(new Push("{}"));
+            final ResponseEntity<String> many = this.api(queue, reviews)
+                .reviewPuzzles("github", "john", "test", "{}");
+            MatcherAssert.assertThat(
+                many.getStatusCode(),
+                Matchers.is(HttpStatus.TOO_MANY_REQUESTS)
+            );
+            MatcherAssert.assertThat(
+                many.getHeaders().getFirst(HttpHeaders.RETRY_AFTER),
+                Matchers.equalTo("1")
+            );
+            final Admission disk = new Admission(0, 300L << 20, 0);
+            final String big = "{\"repository\":{\"size\":102400}}";
+            disk.admit(new Push(big));
+            final ResponseEntity<String> unavailable = this.api(queue, disk)
+                .reviewPuzzles("github", "john", "test", big);
+            MatcherAssert.assertThat(
+                unavailable.getStatusCode(),
+                Matchers.is(HttpStatus.SERVICE_UNAVAILABLE)
+            );
+            MatcherAssert.assertThat(
+                unavailable.getHeaders().getFirst(HttpHeaders.RETRY_AFTER),
+                Matchers.equalTo("1")
+            );
+            MatcherAssert.assertThat(
+                queue.json().getJsonArray("repos"), Matchers.empty()
+            );
+        } finally {
+            release.countDown();
+            queue.close();
+        }
+    }
+
+    /**
+     * Controller with the given queue and admission control, for the
+     * Projects of john.
+     * @param queue Queue of the reviews.
+     * @param admission Admission control.
+     * @return PuzzlesApi.
+     */
+    private PuzzlesApi api(final ReviewQueue queue, final Admission admission) {
+        final Projects projects = Mockito.mock(
+            Projects.class,
+            invocation -> PuzzlesApiTestCase.project(invocation.getArgument(0))
+        );
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(projects);
+        return new PuzzlesApi(
+            self, Mockito.mock(PuzzlesComponent.class), queue, admission
+        );
+    }
+
+    /**
+     * Mock Project.
+     * @param repo Full name of the repository.
+     * @return Project.
+     */
+    private static Project project(final String repo) {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.repoFullName()).thenReturn(repo);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.username()).thenReturn("zoeself");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        return project;
+    }
+
+    /**
+     * Parse a response body.
+     * @param body Body.
+     * @return JsonObject.
+     */
+    private static JsonObject json(final String body) {
+        return Json.createReader(new StringReader(body)).readObject();
+    }
+}
@@ -32,11 +32,14 @@ import com.selfxdsd.api.Project;
 import com.selfxdsd.api.ProjectManager;
 import com.selfxdsd.api.Provider;
 import com.selfxdsd.api.Repo;
+import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unit tests for {@link PuzzlesComponent}.
@@ -202,6 +205,187 @@ public final class PuzzlesComponentTestCase {
             .post(Mockito.anyString());
     }
 
+    /**
+     * PuzzleComponent remembers the Issue of each puzzle and doesn't search
+     * the Issues again for a push which doesn't change the puzzles; when
+     * a puzzle disappears, its Issue is fetched by id and closed.
+     */
+    @Test
+    public void shouldRememberIssuesOfPuzzles(){
+        final Event event = Mockito.mock(Event.class);
+        final Project project = Mockito.mock(Project.class);
+        final Commit commit = this.mockCommit(
+            "john",
+            Mockito.mock(Comments.class)
+        );
+        final Labels labels = Mockito.mock(Labels.class);
+        final Issue issue = this.mockPuzzleLabeledIssue(
+            "The puzzle ``#puzzle-1`` originating from a.txt",
+            labels,
+            Mockito.mock(Comments.class)
+        );
+        this.mockPuzzleLabeledIssues(project, issue);
+        final Issues all = project.projectManager().provider()
+            .repo("john", "test").issues();
+        Mockito.when(all.getById("1")).thenReturn(issue);
+        final Puzzle puzzle = this.mockPuzzle("title", "body", 30);
+        final PuzzlesComponent component = this.rememberingComponent(
+            List.of(List.of(puzzle), List.of(puzzle), List.of())
+        );
+        Mockito.when(event.project()).thenReturn(project);
+        Mockito.when(event.commit()).thenReturn(commit);
+
+        component.review(event);
+        component.review(event);
+        Mockito.verify(issue, Mockito.never()).close();
+        component.review(event);
+
+        Mockito.verify(all, Mockito.times(1)).search("", Puzzle.PUZZLE_LABEL);
+        Mockito.verify(issue).close();
+        Mockito.verify(labels).remove("puzzle");
+    }
+
+    /**
+     * PuzzleComponent opens a new Issue for a to-do which comes back
+     * (a revert) after its Issue was closed, without searching the Issues.
+     */
+    @Test
+    public void shouldOpenIssueForPuzzleAddedBack(){
+        final Event event = Mockito.mock(Event.class);
+        final Project project = Mockito.mock(Project.class);
+        final Commit commit = this.mockCommit(
+            "john",
+            Mockito.mock(Comments.class)
+        );
+        final Issue issue = this.mockPuzzleLabeledIssue(
+            "The puzzle ``#puzzle-1`` originating from a.txt",
+            Mockito.mock(Labels.class),
+            Mockito.mock(Comments.class)
+        );
+        this.mockPuzzleLabeledIssues(project, issue);
+        final Issues all = project.projectManager().provider()
+            .repo("john", "test").issues();
+        Mockito.when(all.getById("1")).thenReturn(issue);
+        final Issue reopened = Mockito.mock(Issue.class);
+        Mockito.when(reopened.issueId()).thenReturn("2");
+        Mockito.when(all.open("title", "body", "puzzle", "30 min"))
+            .thenReturn(reopened);
+        final Puzzle puzzle = this.mockPuzzle("title", "body", 30);
+        final PuzzlesComponent component = this.rememberingComponent(
+            List.of(List.of(puzzle), List.of(), List.of(puzzle))
+        );
+        Mockito.when(event.project()).thenReturn(project);
+        Mockito.when(event.commit()).thenReturn(commit);
+
+        component.review(event);
+        component.review(event);
+        Mockito.verify(issue).close();
+        component.review(event);
+
+        Mockito.verify(all, Mockito.times(1))
+            .open("title", "body", "puzzle", "30 min");
+        Mockito.verify(all, Mockito.times(1)).search("", Puzzle.PUZZLE_LABEL);
+    }
+
+    /**
+     * PuzzleComponent doesn't close again an Issue closed by hand, whose
+     * puzzle disappeared.
+     */
+    @Test
+    public void shouldNotCloseIssuesClosedByHand(){
+        final Event event = Mockito.mock(Event.class);
+        final Project project = Mockito.mock(Project.class);
+        final Commit commit = this.mockCommit(
+            "john",
+            Mockito.mock(Comments.class)
+        );
+        final Issue issue = this.mockPuzzleLabeledIssue(
+            "The puzzle ``#puzzle-1`` originating from a.txt",
+            Mockito.mock(Labels.class),
+            Mockito.mock(Comments.class)
+        );
+        this.mockPuzzleLabeledIssues(project, issue);
+        final Issues all = project.projectManager().provider()
+            .repo("john", "test").issues();
+        Mockito.when(all.getById("1")).thenReturn(issue);
+        final Puzzle puzzle = this.mockPuzzle("title", "body", 30);
+        final PuzzlesComponent component = this.rememberingComponent(
+            List.of(List.of(puzzle), List.of())
+        );
+        Mockito.when(event.project()).thenReturn(project);
+        Mockito.when(event.commit()).thenReturn(commit);
+
+        component.review(event);
+        Mockito.when(issue.isClosed()).thenReturn(true);
+        component.review(event);
+
+        Mockito.verify(issue, Mockito.never()).close();
+        Mockito.verify(commit.comments(), Mockito.never())
+            .post(Mockito.anyString());
+    }
+
+    /**
+     * PuzzleComponent forgets the Issues it remembered if it fails to open
+     * or close one, so the next review searches them instead of trusting
+     * the old mapping.
+     */
+    @Test
+    public void shouldForgetIssuesIfReviewFails(){
+        final Event event = Mockito.mock(Event.class);
+        final Project project = Mockito.mock(Project.class);
+        final Commit commit = this.mockCommit(
+            "john",
+            Mockito.mock(Comments.class)
+        );
+        final Issues found = this.mockPuzzleLabeledIssues(project);
+        final Issues all = project.projectManager().provider()
+            .repo("john", "test").issues();
+        Mockito.when(all.open("title", "body", "puzzle", "30 min"))
+            .thenThrow(new IllegalStateException("provider down"));
+        final Puzzle puzzle = this.mockPuzzle("title", "body", 30);
+        final PuzzlesComponent component = this.rememberingComponent(
+            List.of(List.of(), List.of(puzzle), List.of())
+        );
+        Mockito.when(event.project()).thenReturn(project);
+        Mockito.when(event.commit()).thenReturn(commit);
+        Mockito.when(found.iterator()).thenAnswer(
+            invocation -> Collections.emptyIterator()
+        );
+
+        component.review(event);
+        try {
+            component.review(event);
+            Assert.fail("Opening the Issue should have failed.");
+        } catch (final IllegalStateException ex) {
+            Assert.assertEquals("provider down", ex.getMessage());
+        }
+        component.review(event);
+
+        Mockito.verify(all, Mockito.times(2)).search("", Puzzle.PUZZLE_LABEL);
+    }
+
+    /**
+     * PuzzlesComponent which remembers the Issues of the puzzles.
+     * @param found Puzzles found by each review.
+     * @return PuzzlesComponent.
+     */
+    private PuzzlesComponent rememberingComponent(
+        final List<List<Puzzle>> found
+    ) {
+        final AtomicInteger reviews = new AtomicInteger();
+        return new PuzzlesComponent(
+            Mockito.mock(Shell.class),
+            shell -> (proj, comm) -> {
+                final Puzzles<Project> puzzles = Mockito.mock(Puzzles.class);
+                final List<Puzzle> list = found.get(reviews.getAndIncrement());
+                Mockito.when(puzzles.iterator())
+                    .thenAnswer(invocation -> list.iterator());
+                return puzzles;
+            },
+            new PuzzleIssues(null, Duration.ofHours(1))
+        );
+    }
+
     /**
      * Mocks a puzzle.
      * @param issueTitle Title.
@@ -238,6 +422,9 @@ public final class PuzzlesComponentTestCase {
         Mockito.when(issue.body()).thenReturn(body);
         Mockito.when(issue.comments()).thenReturn(comments);
         Mockito.when(issue.labels()).thenReturn(labels);
+        Mockito.when(labels.iterator()).thenReturn(
+            Collections.emptyIterator()
+        );
         return issue;
     }
 
@@ -0,0 +1,146 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Issue;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link Reconciliation}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class ReconciliationTestCase {
+
+    /**
+     * The Issue of puzzle "123" is not taken for the Issue of puzzle "12".
+     */
+    @Test
+    public void matchesIdsExactly() {
+        final IssuesSnapshot.Entry issue = ReconciliationTestCase.issue(
+            "The puzzle ``123`` originating from src/A.java has to be resolved",
+            false
+        );
+        final Reconciliation diff = new Reconciliation(
+            List.of(ReconciliationTestCase.puzzle("12")), List.of(issue)
+        );
+        MatcherAssert.assertThat(
+            diff.added().get(0).getId(), Matchers.equalTo("12")
+        );
+        MatcherAssert.assertThat(diff.removed(), Matchers.contains(issue));
+    }
+
+    /**
+     * Puzzles with an Issue, open or closed, are kept; open Issues without
+     * a puzzle are removed, closed ones are left alone.
+     */
+    @Test
+    public void splitsAddedRemovedAndKept() {
+        final IssuesSnapshot.Entry open = ReconciliationTestCase.issue(
+            "The puzzle ``1-a`` from a.txt", false
+        );
+        final IssuesSnapshot.Entry closed = ReconciliationTestCase.issue(
+            "The puzzle ``2-b`` originating from b.txt has to be resolved", true
+        );
+        final IssuesSnapshot.Entry gone = ReconciliationTestCase.issue(
+            "The puzzle ``3-c`` originating from c.txt has to be resolved", true
+        );
+        final IssuesSnapshot.Entry stale = ReconciliationTestCase.issue(
+            "The puzzle ``4-d`` from d.txt", false
+        );
+        final Reconciliation diff = new Reconciliation(
+            List.of(
+                ReconciliationTestCase.puzzle("1-a"),
+                ReconciliationTestCase.puzzle("2-b"),
+                ReconciliationTestCase.puzzle("5-e"),
+                ReconciliationTestCase.puzzle("5-e")
+            ),
+            List.of(open, closed, gone, stale)
+        );
+        MatcherAssert.assertThat(diff.added(), Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+            diff.kept(), Matchers.contains(open, closed)
+        );
+        MatcherAssert.assertThat(diff.removed(), Matchers.contains(stale));
+    }
+
+    /**
+     * Issues with a body not following the template are matched by words.
+     */
+    @Test
+    public void matchesOlderBodiesByWords() {
+        final IssuesSnapshot.Entry issue = ReconciliationTestCase.issue(
+            "Puzzle #puzzle-12, see the code.", false
+        );
+        final Reconciliation diff = new Reconciliation(
+            List.of(
+                ReconciliationTestCase.puzzle("#puzzle-1"),
+                ReconciliationTestCase.puzzle("#puzzle-12")
+            ),
+            List.of(issue)
+        );
+        MatcherAssert.assertThat(
+            diff.added().get(0).getId(), Matchers.equalTo("#puzzle-1")
+        );
+        MatcherAssert.assertThat(diff.kept(), Matchers.contains(issue));
+    }
+
+    /**
+     * An open Issue whose puzzle id changed (another scanner) is kept for
+     * the new puzzle with the same ticket and body.
+     */
+    @Test
+    public void relinksIssuesWhenIdsChange() {
+        final IssuesSnapshot.Entry issue = ReconciliationTestCase.issue(
+            "The puzzle ``1194770182`` originating from #153 has to be "
+            + "resolved:\n\nhttps://github.com/john/test/blob/abc/a.txt#L1-L2"
+            + "\n\n\"Add integration\n tests.\".\n\nEstimation is ``30 "
+            + "minutes``.",
+            false
+        );
+        final Puzzle moved = ReconciliationTestCase.puzzle("9f2c");
+        Mockito.when(moved.getTicket()).thenReturn(153);
+        Mockito.when(moved.getBody()).thenReturn("Add integration tests.");
+        final Reconciliation diff = new Reconciliation(
+            List.of(moved), List.of(issue)
+        );
+        MatcherAssert.assertThat(diff.added(), Matchers.empty());
+        MatcherAssert.assertThat(diff.removed(), Matchers.empty());
+        MatcherAssert.assertThat(diff.kept(), Matchers.contains(issue));
+        MatcherAssert.assertThat(
+            diff.linked(), Matchers.hasEntry("9f2c", issue)
+        );
+        MatcherAssert.assertThat(diff.linked().size(), Matchers.is(1));
+    }
+
+    /**
+     * Mock a Puzzle.
+     * @param id Id of the puzzle.
+     * @return Puzzle.
+     */
+    private static Puzzle puzzle(final String id) {
+        final Puzzle puzzle = Mockito.mock(Puzzle.class);
+        Mockito.when(puzzle.getId()).thenReturn(id);
+        return puzzle;
+    }
+
+    /**
+     * Read a mock Issue.
+     * @param body Body.
+     * @param closed Is it closed?
+     * @return Issue as read.
+     */
+    private static IssuesSnapshot.Entry issue(
+        final String body,
+        final boolean closed
+    ) {
+        final Issue issue = Mockito.mock(Issue.class);
+        Mockito.when(issue.body()).thenReturn(body);
+        Mockito.when(issue.isClosed()).thenReturn(closed);
+        return new IssuesSnapshot.Entry(issue);
+    }
+}
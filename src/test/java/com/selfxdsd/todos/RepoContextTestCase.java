@@ -0,0 +1,66 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Commits;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Repo;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link RepoContext}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class RepoContextTestCase {
+
+    /**
+     * The head commit is the event's commit if the push says so; the
+     * provider is not called.
+     */
+    @Test
+    public void usesTheCommitOfThePush() {
+        final Project project = Mockito.mock(Project.class);
+        final Commit commit = Mockito.mock(Commit.class);
+        Mockito.when(commit.shaRef()).thenReturn("abc");
+        final RepoContext context = new RepoContext(
+            project, commit, new Push("{\"after\": \"abc\"}")
+        );
+        MatcherAssert.assertThat(context.head(), Matchers.is(commit));
+        Mockito.verify(project, Mockito.never()).projectManager();
+    }
+
+    /**
+     * Otherwise the repository and its latest commit are resolved once.
+     */
+    @Test
+    public void resolvesTheLatestCommitOnce() {
+        final Commits commits = Mockito.mock(Commits.class);
+        final Commit latest = Mockito.mock(Commit.class);
+        Mockito.when(commits.latest()).thenReturn(latest);
+        final Repo repo = Mockito.mock(Repo.class);
+        Mockito.when(repo.commits()).thenReturn(commits);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.repo("john", "test")).thenReturn(repo);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        final RepoContext context = new RepoContext(
+            project, Mockito.mock(Commit.class)
+        );
+        for (int idx = 0; idx < 3; idx = idx + 1) {
+            MatcherAssert.assertThat(context.head(), Matchers.is(latest));
+            MatcherAssert.assertThat(context.repo(), Matchers.is(repo));
+        }
+        MatcherAssert.assertThat(context.owner(), Matchers.equalTo("john"));
+        Mockito.verify(provider, Mockito.times(1)).repo("john", "test");
+        Mockito.verify(commits, Mockito.times(1)).latest();
+    }
+}
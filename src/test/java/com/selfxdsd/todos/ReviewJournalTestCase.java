@@ -0,0 +1,145 @@
+package com.selfxdsd.todos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ReviewJournal}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class ReviewJournalTestCase {
+
+    /**
+     * The jobs which were enqueued but not completed are returned when
+     * the journal is opened again, in the order they were enqueued.
+     * @param dir Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void replaysIncompleteJobs(@TempDir final Path dir)
+        throws Exception {
+        final Path file = dir.resolve("reviews.jsonl");
+        final ReviewJournal journal = new ReviewJournal(file);
+        MatcherAssert.assertThat(journal.open(), Matchers.empty());
+        final ReviewJob done = ReviewJournalTestCase.job("one");
+        final ReviewJob running = ReviewJournalTestCase.job("two");
+        final ReviewJob waiting = ReviewJournalTestCase.job("three");
+        journal.enqueued(done);
+        journal.enqueued(running);
+        final long seq = journal.enqueued(waiting);
+        journal.started(done);
+        journal.started(running);
+        journal.completed(done);
+        journal.sync(seq);
+        journal.close();
+        final List<JsonObject> replayed = new ReviewJournal(file).open();
+        MatcherAssert.assertThat(replayed, Matchers.hasSize(2));
+        MatcherAssert.assertThat(
+            new ReviewJob(replayed.get(0)).jobId(),
+            Matchers.equalTo(running.jobId())
+        );
+        MatcherAssert.assertThat(
+            new ReviewJob(replayed.get(1)).payload(),
+            Matchers.equalTo(waiting.payload())
+        );
+    }
+
+    /**
+     * A line which cannot be parsed, like the last one written when the
+     * service died, is skipped; the file is compacted when it's opened.
+     * @param dir Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void skipsCorruptLines(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("reviews.jsonl");
+        final ReviewJob job = ReviewJournalTestCase.job("one");
+        Files.writeString(
+            file,
+            job.record().toString() + "\n"
+            + "{\"op\":\"enqueue\",\"id\":\"torn",
+            StandardCharsets.UTF_8, StandardOpenOption.CREATE
+        );
+        final ReviewJournal journal = new ReviewJournal(file);
+        final List<JsonObject> replayed = journal.open();
+        journal.close();
+        MatcherAssert.assertThat(replayed, Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+            Files.readAllLines(file), Matchers.hasSize(1)
+        );
+    }
+
+    /**
+     * Once the writer failed, the records are not kept in memory anymore
+     * and the failure is shown.
+     * @param dir Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void stopsAppendingAfterFailure(@TempDir final Path dir)
+        throws Exception {
+        final Path sub = Files.createDirectory(dir.resolve("journal"));
+        final Path file = sub.resolve("reviews.jsonl");
+        final ReviewJournal journal = new ReviewJournal(file);
+        journal.open();
+        Files.delete(file);
+        Files.delete(sub);
+        final ReviewJob job = ReviewJournalTestCase.job("one");
+        long last = 0;
+        for (int idx = 0; idx <= 10_000; idx = idx + 1) {
+            last = journal.enqueued(job);
+        }
+        final long seq = last;
+        Assertions.assertThrows(IOException.class, () -> journal.sync(seq));
+        MatcherAssert.assertThat(journal.enqueued(job), Matchers.is(0L));
+        MatcherAssert.assertThat(
+            journal.json().getInt("waiting"), Matchers.is(0)
+        );
+        MatcherAssert.assertThat(
+            journal.json().getBoolean("open"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            journal.json().getString("failure"),
+            Matchers.containsString("NoSuchFileException")
+        );
+        journal.close();
+    }
+
+    /**
+     * A journal without file doesn't record anything.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void disabledWithoutFile() throws Exception {
+        final ReviewJournal journal = new ReviewJournal(null);
+        MatcherAssert.assertThat(journal.open(), Matchers.empty());
+        final long seq = journal.enqueued(ReviewJournalTestCase.job("one"));
+        journal.sync(seq);
+        MatcherAssert.assertThat(seq, Matchers.is(0L));
+    }
+
+    /**
+     * Job of a push.
+     * @param name Name of the repository.
+     * @return ReviewJob.
+     */
+    private static ReviewJob job(final String name) {
+        return new ReviewJob(
+            "github", "john/" + name, "zoeself", "push",
+            "{\"after\":\"" + name + "\",\n\"before\":\"x\"}"
+        );
+    }
+}
@@ -0,0 +1,297 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link ReviewQueue}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class ReviewQueueTestCase {
+
+    /**
+     * Without threads, the pushes are not reviewed in the background.
+     */
+    @Test
+    public void isDisabledWithoutThreads() {
+        MatcherAssert.assertThat(
+            new ReviewQueue(job -> true, 0, 10).enabled(),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * A submitted job is reviewed in the background and can be looked up
+     * by its id.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void reviewsInBackground() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ReviewQueue queue = new ReviewQueue(
+            job -> {
+                release.await();
+                return true;
+            },
+            1, 10
+        );
+        try {
+            final ReviewJob job = queue.submit(
+                this.project("test"), "push", "{}"
+            );
+            MatcherAssert.assertThat(queue.enabled(), Matchers.is(true));
+            MatcherAssert.assertThat(
+                queue.job(job.jobId()), Matchers.sameInstance(job)
+            );
+            MatcherAssert.assertThat(
+                job.status(),
+                Matchers.not(Matchers.is(ReviewJob.Status.DONE))
+            );
+            release.countDown();
+            this.await(job);
+            MatcherAssert.assertThat(
+                job.status(), Matchers.is(ReviewJob.Status.DONE)
+            );
+            MatcherAssert.assertThat(
+                job.json().getString("repo"),
+                Matchers.equalTo("john/test")
+            );
+            MatcherAssert.assertThat(
+                job.json().containsKey("runMs"), Matchers.is(true)
+            );
+        } finally {
+            queue.close();
+        }
+    }
+
+    /**
+     * A review which throws an exception is marked as failed.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void marksFailedReviews() throws Exception {
+        final ReviewQueue queue = new ReviewQueue(
+            job -> {
+                throw new IllegalStateException("Scan failed.");
+            },
+            1, 10
+        );
+        try {
+            final ReviewJob job = queue.submit(
+                this.project("test"), "push", "{}"
+            );
+            this.await(job);
+            MatcherAssert.assertThat(
+                job.status(), Matchers.is(ReviewJob.Status.FAILED)
+            );
+        } finally {
+            queue.close();
+        }
+    }
+
+    /**
+     * A review which can't be dispatched fails instead of waiting forever.
+     */
+    @Test
+    public void failsReviewWhichCannotBeDispatched() {
+        final ReviewQueue queue = new ReviewQueue(job -> true, 1, 10);
+        queue.close();
+        final ReviewJob job = queue.submit(this.project("test"), "push", "{}");
+        MatcherAssert.assertThat(
+            job.status(), Matchers.is(ReviewJob.Status.FAILED)
+        );
+        MatcherAssert.assertThat(
+            queue.json().getInt("waiting"), Matchers.is(0)
+        );
+    }
+
+    /**
+     * When all threads are busy and the queue is full, the push is
+     * refused.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void refusesWhenFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ReviewQueue queue = new ReviewQueue(
+            job -> {
+                started.countDown();
+                release.await();
+                return true;
+            },
+            1, 1
+        );
+        try {
+            queue.submit(this.project("one"), "push", "{}");
+            started.await(10, TimeUnit.SECONDS);
+            final ReviewJob waiting = queue.submit(
+                this.project("two"), "push", "{}"
+            );
+            MatcherAssert.assertThat(
+                waiting.status(), Matchers.is(ReviewJob.Status.QUEUED)
+            );
+            MatcherAssert.assertThat(
+                queue.submit(this.project("three"), "push", "{}"),
+                Matchers.nullValue()
+            );
+            release.countDown();
+            this.await(waiting);
+            MatcherAssert.assertThat(
+                waiting.status(), Matchers.is(ReviewJob.Status.DONE)
+            );
+        } finally {
+            queue.close();
+        }
+    }
+
+    /**
+     * Pushes arriving during the debounce window replace the waiting
+     * review, only the last one is reviewed.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void coalescesPushesInDebounceWindow() throws Exception {
+        final List<String> reviewed = new CopyOnWriteArrayList<>();
+        final ReviewQueue queue = new ReviewQueue(
+            job -> reviewed.add(new Push(job.payload()).after()),
+            2, 10, Duration.ofMillis(300L)
+        );
+        try {
+            final ReviewJob first = queue.submit(
+                this.project("test"), "push", "{\"after\":\"a1\"}"
+            );
+            final ReviewJob second = queue.submit(
+                this.project("test"), "push", "{\"after\":\"b2\"}"
+            );
+            final ReviewJob last = queue.submit(
+                this.project("test"), "push", "{\"after\":\"c3\"}"
+            );
+            this.await(last);
+            MatcherAssert.assertThat(reviewed, Matchers.contains("c3"));
+            MatcherAssert.assertThat(
+                List.of(first.status(), second.status(), last.status()),
+                Matchers.contains(
+                    ReviewJob.Status.SUPERSEDED,
+                    ReviewJob.Status.SUPERSEDED,
+                    ReviewJob.Status.DONE
+                )
+            );
+        } finally {
+            queue.close();
+        }
+    }
+
+    /**
+     * A push interrupts the running review of the same repository, then
+     * its own review runs.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void supersedesRunningReview() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final ReviewQueue queue = new ReviewQueue(
+            job -> {
+                started.countDown();
+                if ("{}".equals(job.payload())) {
+                    new CountDownLatch(1).await();
+                }
+                return true;
+            },
+            2, 10
+        );
+        try {
+            final ReviewJob running = queue.submit(
+                this.project("test"), "push", "{}"
+            );
+            started.await(10, TimeUnit.SECONDS);
+            final ReviewJob latest = queue.submit(
+                this.project("test"), "push", "{\"after\":\"b2\"}"
+            );
+            this.await(latest);
+            MatcherAssert.assertThat(
+                running.status(), Matchers.is(ReviewJob.Status.SUPERSEDED)
+            );
+            MatcherAssert.assertThat(
+                latest.status(), Matchers.is(ReviewJob.Status.DONE)
+            );
+        } finally {
+            queue.close();
+        }
+    }
+
+    /**
+     * The reviews left in the journal by the last run are done when the
+     * queue starts.
+     * @param dir Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void replaysJournal(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("reviews.jsonl");
+        final ReviewJob left = new ReviewJob(
+            "github", "john/test", "zoeself", "push",
+            "{\"after\":\"a1\"}"
+        );
+        Files.writeString(file, left.record().toString() + "\n");
+        final List<String> reviewed = new CopyOnWriteArrayList<>();
+        final ReviewQueue queue = new ReviewQueue(
+            job -> reviewed.add(job.jobId()),
+            1, 10, Duration.ZERO, new ReviewJournal(file)
+        );
+        try {
+            queue.start();
+            final ReviewJob replayed = queue.job(left.jobId());
+            this.await(replayed);
+            MatcherAssert.assertThat(
+                reviewed, Matchers.contains(left.jobId())
+            );
+        } finally {
+            queue.close();
+        }
+        MatcherAssert.assertThat(
+            new ReviewJournal(file).open(), Matchers.empty()
+        );
+    }
+
+    /**
+     * Wait until the job is finished.
+     * @param job Job.
+     * @throws InterruptedException If interrupted.
+     */
+    private void await(final ReviewJob job) throws InterruptedException {
+        MatcherAssert.assertThat(
+            job.await(Duration.ofSeconds(10)), Matchers.is(true)
+        );
+    }
+
+    /**
+     * Mock Project.
+     * @param name Name of the repository.
+     * @return Project.
+     */
+    private Project project(final String name) {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.repoFullName()).thenReturn("john/" + name);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.username()).thenReturn("zoeself");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        return project;
+    }
+}
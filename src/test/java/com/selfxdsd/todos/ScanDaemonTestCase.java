@@ -0,0 +1,253 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Commits;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Repo;
+import org.cactoos.io.DeadInput;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link ScanDaemon} and {@link DaemonScan}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class ScanDaemonTestCase {
+
+    /**
+     * Server socket of the daemon.
+     */
+    private ServerSocket server;
+
+    /**
+     * Workspace root of the daemon.
+     */
+    private Path root;
+
+    /**
+     * Start the daemon on a random port.
+     * @param workspace Temporary workspace root.
+     * @throws IOException If something goes wrong.
+     */
+    @BeforeEach
+    public void start(@TempDir final Path workspace) throws IOException {
+        this.root = workspace;
+        this.server = new ServerSocket(
+            0, 50, InetAddress.getLoopbackAddress()
+        );
+        final Thread daemon = new Thread(
+            new ScanDaemon(this.server, new BlobCache(null, 0), this.root)
+        );
+        daemon.setDaemon(true);
+        daemon.start();
+    }
+
+    /**
+     * Stop the daemon.
+     * @throws IOException If something goes wrong.
+     */
+    @AfterEach
+    public void stop() throws IOException {
+        this.server.close();
+    }
+
+    /**
+     * The daemon writes todos.json in the format of todo-finder-cli.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void writesTodosJson() throws Exception {
+        final Path dir = Files.createDirectory(this.root.resolve("repo"));
+        Files.writeString(
+            dir.resolve("build.sh"),
+            "# " + TodoMarker.TODO + " #12:1h Remove this script.\necho 1\n"
+        );
+        MatcherAssert.assertThat(
+            this.request(dir.toString()), Matchers.equalTo("OK")
+        );
+        final Puzzles<String> puzzles = new JsonPuzzles(
+            this.mockProject(), Mockito.mock(Commit.class)
+        );
+        puzzles.process(Files.readString(dir.resolve("todos.json")));
+        final Puzzle puzzle = puzzles.iterator().next();
+        MatcherAssert.assertThat(puzzle.getTicket(), Matchers.is(12));
+        MatcherAssert.assertThat(puzzle.getEstimate(), Matchers.is(60));
+        MatcherAssert.assertThat(puzzle.getFile(), Matchers.is("build.sh"));
+        MatcherAssert.assertThat(
+            puzzle.getBody(), Matchers.is("Remove this script.")
+        );
+    }
+
+    /**
+     * The daemon answers with an error if the directory is missing.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void answersErrorForMissingDir() throws Exception {
+        MatcherAssert.assertThat(
+            this.request(this.root.resolve("missing").toString()),
+            Matchers.startsWith("ERR ")
+        );
+    }
+
+    /**
+     * The daemon doesn't scan, or write into, directories outside of its
+     * workspace root.
+     * @param outside Directory outside of the root.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void refusesDirectoryOutsideRoot(@TempDir final Path outside)
+        throws Exception {
+        Files.writeString(
+            outside.resolve("a.txt"), TodoMarker.TODO + " #1:30min Outside.\n"
+        );
+        Files.createDirectory(this.root.resolve("repo"));
+        MatcherAssert.assertThat(
+            this.request(this.root.resolve("repo/../..").toString()),
+            Matchers.startsWith("ERR ")
+        );
+        MatcherAssert.assertThat(
+            this.request(outside.toString()),
+            Matchers.startsWith("ERR ")
+        );
+        MatcherAssert.assertThat(
+            Files.exists(outside.resolve("todos.json")), Matchers.is(false)
+        );
+    }
+
+    /**
+     * The command of DaemonScan reaches the daemon, so the fallback
+     * (a missing jar here) is not used.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void scriptUsesDaemon() throws Exception {
+        final Path dir = Files.createDirectory(this.root.resolve("repo"));
+        Files.writeString(
+            dir.resolve("Foo.java"), "// " + TodoMarker.TODO + " #5 Do it.\n"
+        );
+        Files.writeString(
+            dir.resolve("scan.sh"),
+            new DaemonScan(
+                this.server.getLocalPort(), new TodoFinderScan("missing.jar")
+            ).command()
+        );
+        final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        final int exit = new LocalShell(dir).exec(
+            "bash scan.sh",
+            new DeadInput().stream(),
+            new ByteArrayOutputStream(),
+            stderr
+        );
+        MatcherAssert.assertThat(stderr.toString(), exit, Matchers.is(0));
+        MatcherAssert.assertThat(
+            Files.readString(dir.resolve("todos.json")),
+            Matchers.containsString("\"originatingTicket\":\"#5\"")
+        );
+    }
+
+    /**
+     * The command of DaemonScan falls back if the daemon accepts the
+     * connection but never answers.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void scriptFallsBackIfDaemonHangs() throws Exception {
+        final Path dir = Files.createDirectory(this.root.resolve("repo"));
+        try (ServerSocket hung = new ServerSocket(
+            0, 1, InetAddress.getLoopbackAddress()
+        )) {
+            Files.writeString(
+                dir.resolve("scan.sh"),
+                new DaemonScan(
+                    hung.getLocalPort(), 1, () -> "echo '[]' > todos.json"
+                ).command()
+            );
+            final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            final int exit = Assertions.assertTimeoutPreemptively(
+                Duration.ofSeconds(10),
+                () -> new LocalShell(dir).exec(
+                    "bash scan.sh",
+                    new DeadInput().stream(),
+                    new ByteArrayOutputStream(),
+                    stderr
+                )
+            );
+            MatcherAssert.assertThat(stderr.toString(), exit, Matchers.is(0));
+        }
+        MatcherAssert.assertThat(
+            Files.readString(dir.resolve("todos.json")),
+            Matchers.equalTo("[]\n")
+        );
+    }
+
+    /**
+     * Send one request to the daemon.
+     * @param directory Directory to scan.
+     * @return Reply.
+     * @throws IOException If something goes wrong.
+     */
+    private String request(final String directory) throws IOException {
+        try (
+            Socket socket = new Socket(
+                InetAddress.getLoopbackAddress(), this.server.getLocalPort()
+            );
+            Writer output = new OutputStreamWriter(
+                socket.getOutputStream(), StandardCharsets.UTF_8
+            );
+            BufferedReader input = new BufferedReader(
+                new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8
+                )
+            )
+        ) {
+            output.write(directory + "\n");
+            output.flush();
+            return input.readLine();
+        }
+    }
+
+    /**
+     * Mock a Project.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final Commits commits = Mockito.mock(Commits.class);
+        Mockito.when(commits.latest()).thenReturn(Mockito.mock(Commit.class));
+        final Repo repo = Mockito.mock(Repo.class);
+        Mockito.when(repo.commits()).thenReturn(commits);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.repo("john", "test")).thenReturn(repo);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        return project;
+    }
+}
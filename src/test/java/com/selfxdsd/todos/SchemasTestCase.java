@@ -0,0 +1,132 @@
+package com.selfxdsd.todos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for {@link Schemas}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class SchemasTestCase {
+
+    /**
+     * An empty, valid document.
+     */
+    private static final String VALID = "<puzzles version='%s' "
+        + "date='2020-09-07T16:20:26Z'/>";
+
+    /**
+     * A schema is compiled once; unknown versions get the default one.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void compilesEachVersionOnce() throws Exception {
+        final Schemas schemas = new Schemas("0.20.5");
+        MatcherAssert.assertThat(
+            schemas.schema("0.20.5"),
+            Matchers.sameInstance(schemas.schema("0.20.5"))
+        );
+        MatcherAssert.assertThat(
+            schemas.schema("9.9.9"),
+            Matchers.sameInstance(schemas.schema("0.20.5"))
+        );
+        MatcherAssert.assertThat(
+            schemas.schema("../application"),
+            Matchers.sameInstance(schemas.schema(null))
+        );
+    }
+
+    /**
+     * Documents are validated on many threads at the same time, each one
+     * with its own reader and validator.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void validatesOnManyThreads() throws Exception {
+        final Schemas schemas = new Schemas("0.20.5");
+        final ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> checks = new ArrayList<>();
+            for (int idx = 0; idx < 40; idx = idx + 1) {
+                final boolean valid = idx % 2 == 0;
+                checks.add(
+                    threads.submit(
+                        () -> valid == SchemasTestCase.validates(
+                            schemas, valid
+                        )
+                    )
+                );
+            }
+            for (final Future<Boolean> check : checks) {
+                MatcherAssert.assertThat(check.get(), Matchers.is(true));
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * An invalid document is rejected.
+     */
+    @Test
+    public void rejectsInvalidDocument() {
+        Assertions.assertThrows(
+            SAXException.class,
+            () -> SchemasTestCase.parse(
+                new Schemas("0.20.5"), "<puzzles><nope/></puzzles>"
+            )
+        );
+    }
+
+    /**
+     * Validate a valid or an invalid document.
+     * @param schemas Schemas.
+     * @param valid Should the document be valid?
+     * @return True if it passed validation.
+     * @throws Exception If something else goes wrong.
+     */
+    private static boolean validates(
+        final Schemas schemas,
+        final boolean valid
+    ) throws Exception {
+        String xml = String.format(SchemasTestCase.VALID, "0.20.5");
+        if (!valid) {
+            xml = "<puzzles version='0.20.5'><puzzle/></puzzles>";
+        }
+        boolean passed = true;
+        try {
+            SchemasTestCase.parse(schemas, xml);
+        } catch (final SAXException ex) {
+            passed = false;
+        }
+        return passed;
+    }
+
+    /**
+     * Parse a document, validating it.
+     * @param schemas Schemas.
+     * @param xml Document.
+     * @throws Exception If it's not valid or something else goes wrong.
+     */
+    private static void parse(final Schemas schemas, final String xml)
+        throws Exception {
+        final XMLReader reader = schemas.reader();
+        reader.setContentHandler(schemas.validating(new DefaultHandler()));
+        reader.parse(new InputSource(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.selfxdsd.todos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link SniffingPuzzles}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class SniffingPuzzlesTestCase {
+
+    /**
+     * JSON input only reaches the JSON parser, and its puzzles can be
+     * read more than once.
+     * @throws PuzzlesProcessingException Something went wrong.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void routesJsonToJsonOnly() throws PuzzlesProcessingException {
+        final Puzzles<String> json = Mockito.mock(Puzzles.class);
+        final Puzzle found = Mockito.mock(Puzzle.class);
+        Mockito.when(json.iterator()).thenAnswer(
+            invocation -> List.of(found).iterator()
+        );
+        final Puzzles<String> xml = Mockito.mock(Puzzles.class);
+        final ParseReport report = Mockito.mock(ParseReport.class);
+        final Puzzles<String> puzzles = new SniffingPuzzles(json, xml, report);
+        puzzles.process("\uFEFF \n [{\"id\": \"1-1\"}]");
+        MatcherAssert.assertThat(puzzles, Matchers.contains(found));
+        MatcherAssert.assertThat(puzzles, Matchers.contains(found));
+        Mockito.verify(json).process(Mockito.anyString());
+        Mockito.verifyNoInteractions(xml, report);
+    }
+
+    /**
+     * XML input only reaches the XML parser, and a failure is reported
+     * right away, without trying the JSON parser.
+     * @throws PuzzlesProcessingException Something went wrong.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void routesXmlToXmlOnly() throws PuzzlesProcessingException {
+        final Puzzles<String> json = Mockito.mock(Puzzles.class);
+        final Puzzles<String> xml = Mockito.mock(Puzzles.class);
+        final PuzzlesProcessingException error =
+            new PuzzlesProcessingException("invalid");
+        Mockito.doThrow(error).when(xml).process(Mockito.anyString());
+        final ParseReport report = Mockito.mock(ParseReport.class);
+        final String input = "<?xml version=\"1.0\"?><puzzles/>";
+        Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> new SniffingPuzzles(json, xml, report).process(input)
+        );
+        Mockito.verifyNoInteractions(json);
+        Mockito.verify(report, Mockito.times(1)).failed(input, error);
+    }
+
+    /**
+     * Unrecognized input is tried by both parsers and reported once,
+     * after both failed.
+     * @throws PuzzlesProcessingException Something went wrong.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void reportsOnceWhenAllFail() throws PuzzlesProcessingException {
+        final Puzzles<String> json = Mockito.mock(Puzzles.class);
+        final PuzzlesProcessingException first =
+            new PuzzlesProcessingException("not json");
+        Mockito.doThrow(first).when(json).process(Mockito.anyString());
+        final Puzzles<String> xml = Mockito.mock(Puzzles.class);
+        final PuzzlesProcessingException second =
+            new PuzzlesProcessingException("not xml");
+        Mockito.doThrow(second).when(xml).process(Mockito.anyString());
+        final ParseReport report = Mockito.mock(ParseReport.class);
+        final PuzzlesProcessingException thrown = Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> new SniffingPuzzles(json, xml, report).process("garbage")
+        );
+        MatcherAssert.assertThat(thrown, Matchers.is(first));
+        MatcherAssert.assertThat(
+            thrown.getSuppressed(), Matchers.arrayContaining(second)
+        );
+        Mockito.verify(report, Mockito.times(1)).failed("garbage", first);
+    }
+
+    /**
+     * Unrecognized input is parsed by the second parser, if the first one
+     * fails, and nothing is reported. Its puzzles can be read more than
+     * once.
+     * @throws PuzzlesProcessingException Something went wrong.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void fallsBackQuietly() throws PuzzlesProcessingException {
+        final Puzzles<String> json = Mockito.mock(Puzzles.class);
+        Mockito.doThrow(PuzzlesProcessingException.class)
+            .when(json).process(Mockito.anyString());
+        final Puzzles<String> xml = Mockito.mock(Puzzles.class);
+        final Puzzle found = Mockito.mock(Puzzle.class);
+        Mockito.when(xml.iterator()).thenAnswer(
+            invocation -> List.of(found).iterator()
+        );
+        final ParseReport report = Mockito.mock(ParseReport.class);
+        final Puzzles<String> puzzles = new SniffingPuzzles(json, xml, report);
+        puzzles.process("");
+        MatcherAssert.assertThat(puzzles, Matchers.contains(found));
+        MatcherAssert.assertThat(puzzles, Matchers.contains(found));
+        Mockito.verifyNoInteractions(report);
+    }
+}
@@ -0,0 +1,238 @@
+package com.selfxdsd.todos;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import org.cactoos.io.DeadInput;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link SshPool}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class SshPoolTestCase {
+
+    /**
+     * SshPool reuses the same session for consecutive commands.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void reusesSession() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        final SshPool pool = new SshPool(
+            () -> {
+                created.incrementAndGet();
+                return this.mockSession(0);
+            },
+            2, 8, Duration.ofMinutes(10)
+        );
+        for(int idx = 0; idx < 3; idx = idx + 1) {
+            MatcherAssert.assertThat(
+                pool.exec(
+                    "ls", new DeadInput().stream(),
+                    new ByteArrayOutputStream(), new ByteArrayOutputStream()
+                ),
+                Matchers.is(0)
+            );
+        }
+        MatcherAssert.assertThat(created.get(), Matchers.is(1));
+        MatcherAssert.assertThat(pool.size(), Matchers.is(1));
+    }
+
+    /**
+     * SshPool returns the exit code of the command.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void returnsExitCode() throws Exception {
+        final SshPool pool = new SshPool(
+            () -> this.mockSession(2), 1, 1, Duration.ofMinutes(10)
+        );
+        MatcherAssert.assertThat(
+            pool.exec(
+                "bad", new DeadInput().stream(),
+                new ByteArrayOutputStream(), new ByteArrayOutputStream()
+            ),
+            Matchers.is(2)
+        );
+    }
+
+    /**
+     * SshPool evicts idle sessions.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void evictsIdleSessions() throws Exception {
+        final Session session = this.mockSession(0);
+        final SshPool pool = new SshPool(() -> session, 1, 1, Duration.ZERO);
+        pool.exec(
+            "ls", new DeadInput().stream(),
+            new ByteArrayOutputStream(), new ByteArrayOutputStream()
+        );
+        pool.evict();
+        MatcherAssert.assertThat(pool.size(), Matchers.is(0));
+        Mockito.verify(session).disconnect();
+    }
+
+    /**
+     * SshPool wraps connection failures into IOException.
+     */
+    @Test
+    public void failsIfCannotConnect() {
+        final SshPool pool = new SshPool(
+            () -> {
+                throw new JSchException("refused");
+            },
+            1, 1, Duration.ZERO
+        );
+        Assertions.assertThrows(
+            IOException.class,
+            () -> pool.exec(
+                "ls", new DeadInput().stream(),
+                new ByteArrayOutputStream(), new ByteArrayOutputStream()
+            )
+        );
+    }
+
+    /**
+     * SshPool doesn't hold its monitor while a new session is connecting.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void connectsOutsideOfThePool() throws Exception {
+        final CountDownLatch connecting = new CountDownLatch(1);
+        final CountDownLatch handshake = new CountDownLatch(1);
+        final Session session = this.mockSession(0);
+        final SshPool pool = new SshPool(
+            () -> {
+                connecting.countDown();
+                try {
+                    handshake.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return session;
+            },
+            2, 1, Duration.ofMinutes(10)
+        );
+        final Thread exec = new Thread(
+            () -> {
+                try {
+                    pool.exec(
+                        "ls", new DeadInput().stream(),
+                        new ByteArrayOutputStream(),
+                        new ByteArrayOutputStream()
+                    );
+                } catch (final IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        );
+        exec.start();
+        connecting.await();
+        Assertions.assertTimeoutPreemptively(
+            Duration.ofSeconds(5), () -> pool.evict()
+        );
+        MatcherAssert.assertThat(pool.size(), Matchers.is(0));
+        handshake.countDown();
+        exec.join();
+        MatcherAssert.assertThat(pool.size(), Matchers.is(1));
+    }
+
+    /**
+     * SshPool kills the process group of the command on the PDD host,
+     * from a second channel, if the waiting thread is interrupted.
+     * @throws Exception If something goes wrong.
+     * @checkstyle ExecutableStatementCount (100 lines).
+     */
+    @Test
+    public void killsProcessGroupIfInterrupted() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        final ChannelExec channel = Mockito.mock(ChannelExec.class);
+        Mockito.when(channel.isClosed()).thenReturn(false);
+        Mockito.doAnswer(
+            invocation -> {
+                running.countDown();
+                return null;
+            }
+        ).when(channel).connect(Mockito.anyInt());
+        final ChannelExec killer = Mockito.mock(ChannelExec.class);
+        Mockito.when(killer.isClosed()).thenReturn(true);
+        final Session session = Mockito.mock(Session.class);
+        Mockito.when(session.isConnected()).thenReturn(true);
+        Mockito.when(session.openChannel("exec"))
+            .thenReturn(channel, killer);
+        Mockito.when(channel.getSession()).thenReturn(session);
+        final SshPool pool = new SshPool(
+            () -> session, 1, 1, Duration.ofMinutes(10)
+        );
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread exec = new Thread(
+            () -> {
+                try {
+                    pool.exec(
+                        "ls", new DeadInput().stream(),
+                        new ByteArrayOutputStream(),
+                        new ByteArrayOutputStream()
+                    );
+                } catch (final IOException ex) {
+                    failure.set(ex);
+                }
+            }
+        );
+        exec.start();
+        running.await();
+        exec.interrupt();
+        exec.join();
+        MatcherAssert.assertThat(
+            failure.get(), Matchers.instanceOf(InterruptedIOException.class)
+        );
+        final ArgumentCaptor<String> command = ArgumentCaptor.forClass(
+            String.class
+        );
+        Mockito.verify(channel).setCommand(command.capture());
+        MatcherAssert.assertThat(
+            command.getValue(),
+            Matchers.allOf(
+                Matchers.startsWith("echo $$ > "),
+                Matchers.endsWith("\nls")
+            )
+        );
+        Mockito.verify(channel).sendSignal("KILL");
+        Mockito.verify(killer).setCommand(
+            Mockito.contains("kill -KILL -- -$PGID")
+        );
+        Mockito.verify(killer).disconnect();
+    }
+
+    /**
+     * Mock a connected session whose commands exit with the given code.
+     * @param exit Exit code.
+     * @return Session.
+     * @throws JSchException Never.
+     */
+    private Session mockSession(final int exit) throws JSchException {
+        final ChannelExec channel = Mockito.mock(ChannelExec.class);
+        Mockito.when(channel.isClosed()).thenReturn(true);
+        Mockito.when(channel.getExitStatus()).thenReturn(exit);
+        final Session session = Mockito.mock(Session.class);
+        Mockito.when(session.isConnected()).thenReturn(true);
+        Mockito.when(session.openChannel("exec")).thenReturn(channel);
+        return session;
+    }
+}
@@ -0,0 +1,268 @@
+package com.selfxdsd.todos;
+
+import com.jcabi.ssh.Shell;
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Commits;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Repo;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link SshStreamPuzzles}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class SshStreamPuzzlesTestCase {
+
+    /**
+     * SshStreamPuzzles parses the puzzles printed by the remote command.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void parsesRemoteOutput() throws Exception {
+        final Project project = this.mockProject();
+        final Puzzles<Project> puzzles = new SshStreamPuzzles(
+            new Shell.Fake(0, this.resource("puzzles.json"), ""),
+            new ClonedWorkspace(),
+            new JsonStreamPuzzles(project, Mockito.mock(Commit.class))
+        );
+        puzzles.process(project);
+        MatcherAssert.assertThat(puzzles, Matchers.iterableWithSize(2));
+        MatcherAssert.assertThat(
+            puzzles.iterator().next().getId(),
+            Matchers.equalTo("1194770182")
+        );
+    }
+
+    /**
+     * SshStreamPuzzles doesn't parse anything if the remote command fails.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failsWithoutParsingIfRemoteFails() throws Exception {
+        final Puzzles<InputStream> next = Mockito.mock(Puzzles.class);
+        Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> new SshStreamPuzzles(
+                new Shell.Fake(1, "", "clone failed"),
+                new ClonedWorkspace(),
+                next
+            ).process(this.mockProject())
+        );
+        Mockito.verify(next, Mockito.never()).process(Mockito.any());
+    }
+
+    /**
+     * SshStreamPuzzles doesn't scan anything if the checkout fails.
+     * @param home Home directory of the fake PDD host.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void doesNotScanIfCheckoutFails(@TempDir final Path home)
+        throws Exception {
+        final StringBuilder script = new StringBuilder();
+        final Puzzles<Project> puzzles = new SshStreamPuzzles(
+            (command, stdin, stdout, stderr) -> {
+                script.append(command);
+                return 1;
+            },
+            new Workspace() {
+                @Override
+                public String open(final String id, final Project project) {
+                    return "cd self-todos-tmp-" + id + "/repo";
+                }
+                @Override
+                public String close(final String id, final Project project) {
+                    return "rm -rf self-todos-tmp-" + id;
+                }
+            },
+            () -> "touch scanned && echo [] > todos.json",
+            Mockito.mock(Puzzles.class)
+        );
+        Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> puzzles.process(this.mockProject())
+        );
+        final ProcessBuilder bash = new ProcessBuilder(
+            "bash", "-c", script.toString()
+        ).directory(home.toFile());
+        bash.environment().put("HOME", home.toString());
+        MatcherAssert.assertThat(
+            bash.start().waitFor(), Matchers.not(Matchers.is(0))
+        );
+        MatcherAssert.assertThat(
+            Files.list(home).count(), Matchers.is(0L)
+        );
+    }
+
+    /**
+     * The remote output is not blocked by a parser which stops reading.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void doesNotBlockTheChannel() throws Exception {
+        final Puzzles<InputStream> next = new Puzzles<>() {
+            @Override
+            public void process(final InputStream input) throws
+                PuzzlesProcessingException {
+                try {
+                    input.read();
+                } catch (final IOException ex) {
+                    throw new PuzzlesProcessingException(ex);
+                }
+            }
+            @Override
+            public Iterator<Puzzle> iterator() {
+                return Collections.emptyIterator();
+            }
+        };
+        final Puzzles<Project> puzzles = new SshStreamPuzzles(
+            new Shell.Fake(0, "[" + "x".repeat(1024 * 1024) + "]", ""),
+            new ClonedWorkspace(),
+            next
+        );
+        Assertions.assertTimeoutPreemptively(
+            Duration.ofSeconds(10), () -> puzzles.process(this.mockProject())
+        );
+    }
+
+    /**
+     * The review fails if the parser falls too far behind the remote
+     * output, instead of spooling all of it in memory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void failsIfParserFallsBehind() throws Exception {
+        final CountDownLatch written = new CountDownLatch(1);
+        final Shell ssh = (cmd, stdin, stdout, stderr) -> {
+            for(int idx = 0; idx < 100; idx = idx + 1) {
+                stdout.write(new byte[100]);
+            }
+            written.countDown();
+            return 0;
+        };
+        final Puzzles<InputStream> next = new Puzzles<>() {
+            @Override
+            public void process(final InputStream input) throws
+                PuzzlesProcessingException {
+                try {
+                    written.await();
+                    input.readAllBytes();
+                } catch (final IOException | InterruptedException ex) {
+                    throw new PuzzlesProcessingException(ex);
+                }
+            }
+            @Override
+            public Iterator<Puzzle> iterator() {
+                return Collections.emptyIterator();
+            }
+        };
+        final PuzzlesProcessingException failed = Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> new SshStreamPuzzles(
+                ssh, new ClonedWorkspace(), new TodoFinderScan(), next, 1024
+            ).process(this.mockProject())
+        );
+        MatcherAssert.assertThat(
+            failed.getCause().getMessage(),
+            Matchers.startsWith("More than 1024 bytes")
+        );
+    }
+
+    /**
+     * SshStreamPuzzles interrupts the remote command if the parser fails,
+     * so it is killed instead of running until the end.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void cancelsRemoteCommandIfParserFails() throws Exception {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final Shell ssh = (cmd, stdin, stdout, stderr) -> {
+            stdout.write("[{".getBytes(StandardCharsets.UTF_8));
+            try {
+                new CountDownLatch(1).await();
+            } catch (final InterruptedException ex) {
+                cancelled.countDown();
+                throw new InterruptedIOException(ex.getMessage());
+            }
+            return 0;
+        };
+        final Puzzles<InputStream> next = new Puzzles<>() {
+            @Override
+            public void process(final InputStream input) throws
+                PuzzlesProcessingException {
+                throw new PuzzlesProcessingException(
+                    new IOException("Bad JSON.")
+                );
+            }
+            @Override
+            public Iterator<Puzzle> iterator() {
+                return Collections.emptyIterator();
+            }
+        };
+        Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> new SshStreamPuzzles(ssh, new ClonedWorkspace(), next)
+                .process(this.mockProject())
+        );
+        MatcherAssert.assertThat(
+            cancelled.await(10, TimeUnit.SECONDS), Matchers.is(true)
+        );
+    }
+
+    /**
+     * Read a test resource.
+     * @param name Resource name.
+     * @return Content.
+     * @throws IOException If something goes wrong.
+     */
+    private String resource(final String name) throws IOException {
+        try (InputStream input = this.getClass().getClassLoader()
+            .getResourceAsStream(name)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Mock a Project.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final Commits commits = Mockito.mock(Commits.class);
+        Mockito.when(commits.latest()).thenReturn(Mockito.mock(Commit.class));
+        final Repo repo = Mockito.mock(Repo.class);
+        Mockito.when(repo.commits()).thenReturn(commits);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.repo("john", "test")).thenReturn(repo);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        Mockito.when(manager.username()).thenReturn("zoeself");
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.provider()).thenReturn("github");
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        return project;
+    }
+}
@@ -0,0 +1,23 @@
+package com.selfxdsd.todos;
+
+/**
+ * The to-do marker, for the tests which write to-dos in files. It's not
+ * written literally, so PDD doesn't take it for a to-do of this
+ * repository.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+final class TodoMarker {
+
+    /**
+     * The marker.
+     */
+    static final String TODO = "@" + "todo";
+
+    /**
+     * Utility class.
+     */
+    private TodoMarker() {
+    }
+}
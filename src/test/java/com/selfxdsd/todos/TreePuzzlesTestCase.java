@@ -0,0 +1,191 @@
+package com.selfxdsd.todos;
+
+import com.selfxdsd.api.Commit;
+import com.selfxdsd.api.Commits;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Repo;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Unit tests for {@link TreePuzzles}.
+ * @author agent (agent@local)
+ * @version $Id$
+ * @since 0.0.11
+ */
+public final class TreePuzzlesTestCase {
+
+    /**
+     * TreePuzzles finds single and multi-line to-dos in nested directories.
+     * @param root Temporary directory.
+     * @throws Exception If something goes wrong.
+     * @checkstyle ExecutableStatementCount (100 lines).
+     */
+    @Test
+    public void findsTodosInTree(@TempDir final Path root) throws Exception {
+        Files.createDirectories(root.resolve("src/main"));
+        Files.writeString(
+            root.resolve("src/main/Foo.java"),
+            "class Foo {\n"
+            + "    /**\n"
+            + "     * " + TodoMarker.TODO
+            + " #153:45min Add integration tests\n"
+            + "     *  for filters.\n"
+            + "     */\n"
+            + "}\n"
+        );
+        Files.writeString(
+            root.resolve("build.sh"),
+            "# " + TodoMarker.TODO + " #12:1h Remove this script.\necho 1\n"
+        );
+        final Puzzles<Path> puzzles = new TreePuzzles(
+            this.mockProject(), Mockito.mock(Commit.class)
+        );
+        puzzles.process(root);
+        MatcherAssert.assertThat(puzzles, Matchers.iterableWithSize(2));
+        final Iterator<Puzzle> iterator = puzzles.iterator();
+        final Puzzle script = iterator.next();
+        MatcherAssert.assertThat(script.getFile(), Matchers.is("build.sh"));
+        MatcherAssert.assertThat(script.getTicket(), Matchers.is(12));
+        MatcherAssert.assertThat(script.getEstimate(), Matchers.is(60));
+        MatcherAssert.assertThat(script.getStart(), Matchers.is(1));
+        MatcherAssert.assertThat(script.getEnd(), Matchers.is(1));
+        final Puzzle java = iterator.next();
+        MatcherAssert.assertThat(
+            java.getFile(), Matchers.is("src/main/Foo.java")
+        );
+        MatcherAssert.assertThat(java.getTicket(), Matchers.is(153));
+        MatcherAssert.assertThat(java.getEstimate(), Matchers.is(45));
+        MatcherAssert.assertThat(
+            java.getBody(),
+            Matchers.is("Add integration tests for filters.")
+        );
+        MatcherAssert.assertThat(java.getStart(), Matchers.is(3));
+        MatcherAssert.assertThat(java.getEnd(), Matchers.is(4));
+        MatcherAssert.assertThat(java.getRole(), Matchers.is("DEV"));
+    }
+
+    /**
+     * TreePuzzles skips the .git directory, binary files and text which
+     * only looks like a marker.
+     * @param root Temporary directory.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void skipsGitAndBinaries(@TempDir final Path root)
+        throws Exception {
+        Files.createDirectories(root.resolve(".git"));
+        Files.writeString(
+            root.resolve(".git/COMMIT_EDITMSG"),
+            TodoMarker.TODO + " #1:30min Git.\n"
+        );
+        Files.write(
+            root.resolve("image.png"),
+            ("\0\0" + TodoMarker.TODO + " #1:30min Binary.\n").getBytes()
+        );
+        Files.writeString(
+            root.resolve("README.md"),
+            "Write to john" + TodoMarker.TODO + ".com\n"
+        );
+        final Puzzles<Path> puzzles = new TreePuzzles(
+            this.mockProject(), Mockito.mock(Commit.class)
+        );
+        puzzles.process(root);
+        MatcherAssert.assertThat(puzzles, Matchers.emptyIterable());
+    }
+
+    /**
+     * The id of a puzzle doesn't change when it moves inside its file,
+     * but the same to-do in another file is another puzzle.
+     * @param root Temporary directory.
+     * @throws IOException If something goes wrong.
+     * @throws PuzzlesProcessingException If something goes wrong.
+     */
+    @Test
+    public void idDependsOnFileNotLines(@TempDir final Path root)
+        throws IOException, PuzzlesProcessingException {
+        Files.writeString(
+            root.resolve("a.txt"), TodoMarker.TODO + " #7:30min Same body.\n"
+        );
+        Files.writeString(
+            root.resolve("b.txt"), TodoMarker.TODO + " #7:30min Same body.\n"
+        );
+        final Puzzles<Path> before = new TreePuzzles(
+            this.mockProject(), Mockito.mock(Commit.class)
+        );
+        before.process(root);
+        final Iterator<Puzzle> iterator = before.iterator();
+        final String first = iterator.next().getId();
+        MatcherAssert.assertThat(
+            iterator.next().getId(), Matchers.not(Matchers.equalTo(first))
+        );
+        Files.writeString(
+            root.resolve("a.txt"),
+            "\n\n" + TodoMarker.TODO + " #7:30min Same body.\n"
+        );
+        final Puzzles<Path> after = new TreePuzzles(
+            this.mockProject(), Mockito.mock(Commit.class)
+        );
+        after.process(root);
+        final Puzzle moved = after.iterator().next();
+        MatcherAssert.assertThat(moved.getStart(), Matchers.is(3));
+        MatcherAssert.assertThat(moved.getId(), Matchers.equalTo(first));
+    }
+
+    /**
+     * To-dos without a ticket or estimate, or with numbers too large, are
+     * skipped without failing the scan.
+     * @param root Temporary directory.
+     * @throws IOException If something goes wrong.
+     * @throws PuzzlesProcessingException If something goes wrong.
+     */
+    @Test
+    public void skipsInvalidTodos(@TempDir final Path root)
+        throws IOException, PuzzlesProcessingException {
+        Files.writeString(
+            root.resolve("a.txt"),
+            TodoMarker.TODO + " #0:30min No ticket.\n"
+            + TodoMarker.TODO + " #1:0min No estimate.\n"
+            + TodoMarker.TODO + " #99999999999:30min Huge ticket.\n"
+            + TodoMarker.TODO + " #1:99999999h Huge estimate.\n"
+            + TodoMarker.TODO + " #1:30min Valid.\n"
+        );
+        final Puzzles<Path> puzzles = new TreePuzzles(
+            this.mockProject(), Mockito.mock(Commit.class)
+        );
+        puzzles.process(root);
+        MatcherAssert.assertThat(puzzles, Matchers.iterableWithSize(1));
+        MatcherAssert.assertThat(
+            puzzles.iterator().next().getBody(), Matchers.is("Valid.")
+        );
+    }
+
+    /**
+     * Mock a Project.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final Commits commits = Mockito.mock(Commits.class);
+        Mockito.when(commits.latest()).thenReturn(Mockito.mock(Commit.class));
+        final Repo repo = Mockito.mock(Repo.class);
+        Mockito.when(repo.commits()).thenReturn(commits);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.repo("john", "test")).thenReturn(repo);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        return project;
+    }
+}
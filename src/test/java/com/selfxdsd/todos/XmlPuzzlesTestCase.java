@@ -3,6 +3,7 @@ package com.selfxdsd.todos;
 import com.selfxdsd.api.*;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -26,7 +27,12 @@ public final class XmlPuzzlesTestCase {
         final Repo repo = Mockito.mock(Repo.class);
         Mockito.when(repo.commits()).thenReturn(commits);
         final Project project = Mockito.mock(Project.class);
-        Mockito.when(project.repo()).thenReturn(repo);
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(manager.provider()).thenReturn(provider);
+        Mockito.when(provider.repo("john", "test")).thenReturn(repo);
+        Mockito.when(project.projectManager()).thenReturn(manager);
+        Mockito.when(project.repoFullName()).thenReturn("john/test");
 
 
         final Puzzles<String> puzzles = new ResourcesPuzzles(
@@ -66,6 +72,26 @@ public final class XmlPuzzlesTestCase {
         System.out.println(puzzle.issueBody());
     }
 
+    /**
+     * A document which doesn't follow the schema is rejected as a whole
+     * and the problem is reported on the commit.
+     */
+    @Test
+    public void rejectsInvalidPuzzles() {
+        final Comments comments = Mockito.mock(Comments.class);
+        final Commit commit = Mockito.mock(Commit.class);
+        Mockito.when(commit.comments()).thenReturn(comments);
+        final XmlPuzzles puzzles = new XmlPuzzles(
+            Mockito.mock(Project.class), commit
+        );
+        Assertions.assertThrows(
+            PuzzlesProcessingException.class,
+            () -> puzzles.process(
+                "<puzzles version='0.20.5' date='2020-09-07T16:20:26Z'>"
+                + "<puzzle><ticket>516</ticket></puzzle></puzzles>"
+            )
+        );
+        MatcherAssert.assertThat(puzzles, Matchers.emptyIterable());
+        Mockito.verify(comments).post(Mockito.anyString());
+    }
 }
-
-